@@ -0,0 +1,27 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the toggle benchmarks with the GC profiler enabled, so that
+ * allocation rates are reported alongside throughput.
+ *
+ * Accepts the same command-line arguments as JMH's own runner, e.g. a
+ * regular expression selecting the benchmarks to run.
+ */
+public class BenchmarkRunner {
+  private BenchmarkRunner() { /* singleton */ }
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    new Runner(new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build()
+    ).run();
+  }
+}
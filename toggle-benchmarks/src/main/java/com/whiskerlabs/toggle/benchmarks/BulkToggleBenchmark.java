@@ -0,0 +1,86 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.Toggle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures testing one toggle against many inputs, one {@code test}
+ * at a time and with the bulk {@code testAll} variants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BulkToggleBenchmark {
+  private static final String COHORT = "beta_tester";
+
+  @Param({"1000", "1000000"})
+  public int inputs;
+
+  private Toggle<Long> toggle;
+  private List<Long> subjects;
+  private long[] subjectIds;
+
+  @Setup
+  public void setup() {
+    toggle = new CompiledToggle<>(
+      "/feature/ab_test",
+      100,
+      Collections.singletonMap(COHORT, 5000)
+    );
+    subjects = new ArrayList<>(inputs);
+    subjectIds = new long[inputs];
+
+    for (int i = 0; i < inputs; i++) {
+      subjects.add((long) i);
+      subjectIds[i] = i;
+    }
+  }
+
+  @Benchmark
+  public BitSet oneAtATime() {
+    final BitSet results = new BitSet(inputs);
+
+    for (int i = 0; i < inputs; i++) {
+      if (toggle.test(subjects.get(i), COHORT)) {
+        results.set(i);
+      }
+    }
+
+    return results;
+  }
+
+  @Benchmark
+  public BitSet testAllList() {
+    return toggle.testAll(subjects, COHORT);
+  }
+
+  @Benchmark
+  public BitSet testAllSubjectIds() {
+    return Toggle.testAll(toggle, subjectIds, COHORT);
+  }
+
+  @Benchmark
+  public BitSet testAllParallel() {
+    return toggle.testAllParallel(subjects, COHORT);
+  }
+}
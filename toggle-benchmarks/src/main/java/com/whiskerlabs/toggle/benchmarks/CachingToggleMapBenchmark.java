@@ -0,0 +1,120 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.SnapshotToggleMap;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.cache.CachingToggleMap;
+import com.whiskerlabs.toggle.json.JsonToggleMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CachingToggleMap} lookups and tests on the cache hit
+ * and miss paths, for a key cached as undefined, and for a retained
+ * {@link LongToggle}. Each nested subclass runs the benchmarks with a
+ * different number of threads in order to expose contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class CachingToggleMapBenchmark {
+  private static final int TOGGLES = 1000;
+  private static final String UNKNOWN_KEY = "/feature/retired";
+
+  private final Long subject = 42L;
+
+  private String cohort;
+  private String[] keys;
+  private ToggleMap<String, Long> hitToggleMap;
+  private ToggleMap<String, Long> missToggleMap;
+  private Toggle<Long> hitToggle;
+  private LongToggle hitLongToggle;
+
+  @Setup
+  public void setup() throws IOException {
+    final Path path = SpecFixtures.write(TOGGLES, 2);
+    final SnapshotToggleMap<Long> underlying = JsonToggleMap.snapshotFromPath(path);
+    Files.delete(path);
+
+    cohort = SpecFixtures.cohort(1);
+    keys = new String[TOGGLES];
+    for (int i = 0; i < TOGGLES; i++) {
+      keys[i] = SpecFixtures.key(i);
+    }
+
+    hitToggleMap = new CachingToggleMap<>(underlying, "maximumSize=" + (2 * TOGGLES));
+    missToggleMap = new CachingToggleMap<>(underlying, "maximumSize=0");
+
+    for (final String key : keys) {
+      hitToggleMap.apply(key).test(subject);
+    }
+
+    hitToggle = hitToggleMap.apply(keys[0]);
+    hitLongToggle = LongToggle.lookUp(hitToggleMap, keys[0]);
+  }
+
+  @Benchmark
+  public boolean hit() {
+    return hitToggleMap.apply(nextKey()).test(subject);
+  }
+
+  @Benchmark
+  public boolean hitRetainedToggle() {
+    return hitToggle.test(subject);
+  }
+
+  @Benchmark
+  public boolean hitRetainedLongToggle() {
+    return hitLongToggle.testLong(ThreadLocalRandom.current().nextLong());
+  }
+
+  @Benchmark
+  public boolean hitWithCohort() {
+    return hitToggleMap.apply(nextKey()).test(subject, cohort);
+  }
+
+  @Benchmark
+  public boolean hitUnknownKey() {
+    return hitToggleMap.apply(UNKNOWN_KEY).test(subject);
+  }
+
+  @Benchmark
+  public boolean miss() {
+    return missToggleMap.apply(nextKey()).test(subject);
+  }
+
+  private String nextKey() {
+    return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+  }
+
+  @Threads(1)
+  public static class Threads1 extends CachingToggleMapBenchmark {}
+
+  @Threads(4)
+  public static class Threads4 extends CachingToggleMapBenchmark {}
+
+  @Threads(16)
+  public static class Threads16 extends CachingToggleMapBenchmark {}
+
+  @Threads(64)
+  public static class Threads64 extends CachingToggleMapBenchmark {}
+}
@@ -0,0 +1,91 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.dynamodb.DynamoDbToggleMap;
+import com.whiskerlabs.toggle.dynamodb.ToggleItems;
+import com.whiskerlabs.toggle.json.ToggleJsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of DynamoDB items into toggles, both directly from
+ * item attributes and via the former JSON round-trip, and measures
+ * {@link DynamoDbToggleMap#apply} against a stubbed {@link Table}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DynamoDbToggleMapBenchmark {
+  private static final String KEY = SpecFixtures.key(0);
+
+  @Param({"0", "10", "100"})
+  public int filters;
+
+  private Item item;
+  private ToggleMap<String, Long> toggleMap;
+
+  @Setup
+  public void setup() {
+    final List<Map<String, Object>> filterList = new ArrayList<>();
+
+    for (int i = 0; i < filters; i++) {
+      final Map<String, Object> filter = new HashMap<>();
+      filter.put("type", "cohort");
+      filter.put("target", SpecFixtures.cohort(i));
+      filter.put("toggle_value", 10000);
+      filterList.add(filter);
+    }
+
+    item = new Item()
+      .withPrimaryKey("toggle_key", KEY)
+      .withInt("toggle_value", 5000)
+      .withList("filter", filterList);
+
+    toggleMap = new DynamoDbToggleMap<>(new Table(null, "toggles") {
+      @Override
+      public Item getItem(String hashKeyName, Object hashKeyValue) {
+        return item;
+      }
+    });
+  }
+
+  @Benchmark
+  public CompiledToggle<Long> decodeDirect() {
+    return ToggleItems.decode(item);
+  }
+
+  @Benchmark
+  public CompiledToggle<Long> decodeViaJson() {
+    return ToggleJsonNode.compile(
+      ToggleJsonNode.fromString(item.toJSON()),
+      "toggle_key",
+      "toggle_value"
+    );
+  }
+
+  @Benchmark
+  public Object apply() {
+    return toggleMap.apply(KEY);
+  }
+}
@@ -0,0 +1,96 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.whiskerlabs.toggle.SnapshotToggleMap;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.cache.CachingToggleMap;
+import com.whiskerlabs.toggle.json.JsonToggleMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures evaluating every flag checked while handling one request,
+ * both one {@code apply} and {@code test} at a time and in a single
+ * {@code evaluateAll} pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EvaluateAllBenchmark {
+  private static final int TOGGLES = 1000;
+
+  @Param({"40", "80"})
+  public int flagsPerRequest;
+
+  private final Long subject = 42L;
+
+  private List<String> keys;
+  private ToggleMap<String, Long> snapshotToggleMap;
+  private ToggleMap<String, Long> cachingToggleMap;
+
+  @Setup
+  public void setup() throws IOException {
+    final Path path = SpecFixtures.write(TOGGLES, 2);
+    final SnapshotToggleMap<Long> underlying = JsonToggleMap.snapshotFromPath(path);
+    Files.delete(path);
+
+    keys = new ArrayList<>(flagsPerRequest);
+    for (int i = 0; i < flagsPerRequest; i++) {
+      keys.add(SpecFixtures.key(i * (TOGGLES / flagsPerRequest)));
+    }
+
+    snapshotToggleMap = underlying;
+    cachingToggleMap = new CachingToggleMap<>(underlying, "maximumSize=" + (2 * TOGGLES));
+    cachingToggleMap.evaluateAll(keys, subject, null);
+  }
+
+  @Benchmark
+  public int snapshotOneAtATime() {
+    return oneAtATime(snapshotToggleMap);
+  }
+
+  @Benchmark
+  public Object snapshotEvaluateAll() {
+    return snapshotToggleMap.evaluateAll(keys, subject, null);
+  }
+
+  @Benchmark
+  public int cachingOneAtATime() {
+    return oneAtATime(cachingToggleMap);
+  }
+
+  @Benchmark
+  public Object cachingEvaluateAll() {
+    return cachingToggleMap.evaluateAll(keys, subject, null);
+  }
+
+  private int oneAtATime(ToggleMap<String, Long> toggleMap) {
+    int enabled = 0;
+
+    for (final String key : keys) {
+      if (toggleMap.apply(key).test(subject)) {
+        enabled++;
+      }
+    }
+
+    return enabled;
+  }
+}
@@ -0,0 +1,78 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.json.JsonToggleMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonToggleMap#apply} and prefix queries across
+ * toggle specification sizes, both re-parsing the specification on
+ * each lookup and looking up toggles in a parse-once snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonToggleMapBenchmark {
+  @Param({"10", "100", "1000", "10000", "100000"})
+  public int toggles;
+
+  private Path path;
+  private String key;
+  private String prefix;
+  private ToggleMap<String, Long> jsonToggleMap;
+  private ToggleMap<String, Long> snapshotToggleMap;
+
+  @Setup
+  public void setup() throws IOException {
+    path = SpecFixtures.write(toggles, 2);
+    key = SpecFixtures.key(toggles / 2);
+    prefix = SpecFixtures.key(1);
+    jsonToggleMap = JsonToggleMap.fromPath(path);
+    snapshotToggleMap = JsonToggleMap.snapshotFromPath(path);
+    snapshotToggleMap.keysWithPrefix(prefix);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Benchmark
+  public Object applyReparsing() {
+    return jsonToggleMap.apply(key);
+  }
+
+  @Benchmark
+  public Object applySnapshot() {
+    return snapshotToggleMap.apply(key);
+  }
+
+  @Benchmark
+  public Object keysWithPrefixReparsing() {
+    return jsonToggleMap.keysWithPrefix(prefix);
+  }
+
+  @Benchmark
+  public Object keysWithPrefixSnapshot() {
+    return snapshotToggleMap.keysWithPrefix(prefix);
+  }
+}
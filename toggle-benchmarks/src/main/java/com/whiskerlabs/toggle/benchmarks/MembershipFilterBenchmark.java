@@ -0,0 +1,79 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CompiledToggle#valueFor} for toggles targeting large
+ * allow-lists through a membership filter, with and without a Bloom
+ * filter, for cohorts on and off the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MembershipFilterBenchmark {
+  @Param({"10000", "500000"})
+  public int members;
+
+  @Param({"false", "true"})
+  public boolean bloom;
+
+  private String[] memberCohorts;
+  private String[] nonMemberCohorts;
+  private CompiledToggle<Long> toggle;
+
+  @Setup
+  public void setup() {
+    final List<String> targets = new ArrayList<>(members);
+
+    for (int i = 0; i < members; i++) {
+      targets.add("account-" + i);
+    }
+
+    toggle = new CompiledToggle<>(
+      SpecFixtures.key(0),
+      0,
+      Collections.emptyMap(),
+      Collections.singletonList(new MembershipFilter(MembershipSet.of(targets, bloom), 10000))
+    );
+
+    memberCohorts = new String[1024];
+    nonMemberCohorts = new String[1024];
+
+    for (int i = 0; i < 1024; i++) {
+      memberCohorts[i] = targets.get(ThreadLocalRandom.current().nextInt(members));
+      nonMemberCohorts[i] = "account-" + (members + i);
+    }
+  }
+
+  @Benchmark
+  public int member() {
+    return toggle.valueFor(memberCohorts[ThreadLocalRandom.current().nextInt(1024)]);
+  }
+
+  @Benchmark
+  public int nonMember() {
+    return toggle.valueFor(nonMemberCohorts[ThreadLocalRandom.current().nextInt(1024)]);
+  }
+}
@@ -0,0 +1,77 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates toggle specifications of arbitrary size for benchmarks.
+ */
+public class SpecFixtures {
+  private SpecFixtures() { /* singleton */ }
+
+  /**
+   * Returns the key of the toggle at the argument index of a
+   * generated toggle specification.
+   */
+  public static String key(int index) {
+    return "/feature/toggle_" + index;
+  }
+
+  /**
+   * Returns the target of the cohort filter at the argument index of
+   * a generated toggle.
+   */
+  public static String cohort(int index) {
+    return "cohort_" + index;
+  }
+
+  /**
+   * Generates a JSON toggle specification.
+   *
+   * @param toggles The number of toggles to generate.
+   * @param filters The number of cohort filters to generate for each
+   *        toggle.
+   * @return A JSON toggle specification.
+   */
+  public static String json(int toggles, int filters) {
+    final StringBuilder builder = new StringBuilder("[\n");
+
+    for (int i = 0; i < toggles; i++) {
+      builder.append("  {\"key\": \"").append(key(i)).append("\", \"value\": 5000");
+
+      if (filters > 0) {
+        builder.append(", \"filter\": [");
+
+        for (int j = 0; j < filters; j++) {
+          builder
+            .append(j == 0 ? "" : ", ")
+            .append("{\"type\": \"cohort\", \"target\": \"")
+            .append(cohort(j))
+            .append("\", \"value\": 10000}");
+        }
+
+        builder.append("]");
+      }
+
+      builder.append(i == toggles - 1 ? "}\n" : "},\n");
+    }
+
+    return builder.append("]\n").toString();
+  }
+
+  /**
+   * Writes a generated JSON toggle specification to a temporary file.
+   *
+   * @param toggles The number of toggles to generate.
+   * @param filters The number of cohort filters to generate for each
+   *        toggle.
+   * @return The {@code Path} of the temporary file.
+   */
+  public static Path write(int toggles, int filters) throws IOException {
+    final Path path = Files.createTempFile("toggle_spec", ".json");
+    Files.write(path, json(toggles, filters).getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+}
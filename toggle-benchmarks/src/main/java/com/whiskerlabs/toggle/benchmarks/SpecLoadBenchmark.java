@@ -0,0 +1,69 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
+import com.whiskerlabs.toggle.json.JsonToggleMap;
+import com.whiskerlabs.toggle.json.StreamingToggleSpecLoader;
+import com.whiskerlabs.toggle.json.ToggleJsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a whole toggle specification file into a snapshot,
+ * both by materializing a {@code JsonNode} tree and by compiling
+ * toggles directly from the token stream. Run with the GC profiler to
+ * compare the bytes allocated per load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SpecLoadBenchmark {
+  @Param({"1000", "100000"})
+  public int toggles;
+
+  @Param({"2", "20"})
+  public int filters;
+
+  private Path path;
+
+  @Setup
+  public void setup() throws IOException {
+    path = SpecFixtures.write(toggles, filters);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Benchmark
+  public Object loadTree() throws IOException {
+    try (final YAMLParser yamlParser = JsonToggleMap.DEFAULT_YAML_FACTORY.createParser(path.toFile())) {
+      final JsonNode rootNode = JsonToggleMap.DEFAULT_OBJECT_READER.<JsonNode>readTree(yamlParser);
+      return ToggleJsonNode.compileAll(rootNode.elements(), "key", "value");
+    }
+  }
+
+  @Benchmark
+  public Object loadStreaming() throws IOException {
+    return StreamingToggleSpecLoader.load(path);
+  }
+}
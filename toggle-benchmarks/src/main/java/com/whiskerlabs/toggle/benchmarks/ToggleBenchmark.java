@@ -0,0 +1,99 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.Toggle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Toggle#test} on a compiled toggle, with and without
+ * a cohort, and {@link Toggle#testCohorts} with several cohorts. The
+ * {@code testLong} benchmarks compare testing a primitive ID through a
+ * {@link LongToggle} with boxing it for {@link Toggle#test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ToggleBenchmark {
+  private static final String COHORT = "beta_tester";
+  private static final List<String> COHORTS = Arrays.asList("employee", "eu-west", COHORT);
+
+  private final Long subject = 42L;
+
+  // Outside the Long cache, so that boxing it allocates.
+  private long id = 123456789L;
+
+  private Toggle<Long> toggle;
+  private Toggle<Long> cohortToggle;
+  private Toggle<Long> cohortsToggle;
+  private LongToggle longToggle;
+
+  @Setup
+  public void setup() {
+    toggle = new CompiledToggle<>(
+      "/feature/ab_test",
+      100,
+      Collections.singletonMap(COHORT, 5000)
+    );
+    cohortToggle = toggle.withCohort(COHORT);
+    cohortsToggle = toggle.withCohorts(COHORTS);
+    longToggle = LongToggle.of(toggle);
+  }
+
+  @Benchmark
+  public boolean test() {
+    return toggle.test(subject);
+  }
+
+  @Benchmark
+  public boolean testWithCohort() {
+    return toggle.test(subject, COHORT);
+  }
+
+  @Benchmark
+  public boolean testWithRetainedCohortToggle() {
+    return cohortToggle.test(subject);
+  }
+
+  @Benchmark
+  public boolean testWithCohorts() {
+    return toggle.testCohorts(subject, COHORTS);
+  }
+
+  @Benchmark
+  public boolean testWithRetainedCohortsToggle() {
+    return cohortsToggle.test(subject);
+  }
+
+  @Benchmark
+  public boolean testWithCohortComposedPerTest() {
+    return toggle.withCohort(COHORT).test(subject);
+  }
+
+  @Benchmark
+  public boolean testLongBoxed() {
+    return toggle.test(id, COHORT);
+  }
+
+  @Benchmark
+  public boolean testLong() {
+    return longToggle.testLong(id, COHORT);
+  }
+}
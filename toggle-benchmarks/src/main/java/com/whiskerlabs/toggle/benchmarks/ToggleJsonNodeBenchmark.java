@@ -0,0 +1,61 @@
+package com.whiskerlabs.toggle.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.json.ToggleJsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ToggleJsonNode#findByNullableCohort} on long filter arrays,
+ * alongside the equivalent lookup on a compiled toggle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ToggleJsonNodeBenchmark {
+  @Param({"1", "10", "100", "1000"})
+  public int filters;
+
+  private JsonNode filterNode;
+  private CompiledToggle<Long> compiledToggle;
+  private String lastCohort;
+
+  @Setup
+  public void setup() {
+    final JsonNode toggleNode = ToggleJsonNode.fromString(SpecFixtures.json(1, filters)).get(0);
+
+    filterNode = toggleNode.path("filter");
+    compiledToggle = ToggleJsonNode.compile(toggleNode, "key", "value");
+    lastCohort = SpecFixtures.cohort(filters - 1);
+  }
+
+  @Benchmark
+  public JsonNode findByCohortLast() {
+    return ToggleJsonNode.findByNullableCohort(filterNode, lastCohort);
+  }
+
+  @Benchmark
+  public JsonNode findByCohortMissing() {
+    return ToggleJsonNode.findByNullableCohort(filterNode, "na");
+  }
+
+  @Benchmark
+  public int compiledValueForLast() {
+    return compiledToggle.valueFor(lastCohort);
+  }
+}
@@ -0,0 +1,224 @@
+package com.whiskerlabs.toggle.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.whiskerlabs.toggle.AsyncToggleMap;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AsyncToggleMap} which caches toggles retrieved from an
+ * underlying {@code AsyncToggleMap} in a Caffeine {@link
+ * AsyncLoadingCache}.
+ *
+ * Concurrent lookups of a key which is not cached share a single load
+ * from the underlying {@code AsyncToggleMap}, and no thread waits on
+ * the load. As with {@link CachingToggleMap}, the last toggle loaded
+ * for each key is retained and used should a subsequent load fail,
+ * and lookups of keys for which no toggle is available produce a
+ * toggle which always tests {@code false}, so the futures returned by
+ * {@link #apply} never complete exceptionally. Keys for which the
+ * underlying {@code AsyncToggleMap} completes with a {@link
+ * ToggleNotFoundException} are likewise cached as misses for a
+ * separate TTL, during which lookups of them don't consult the
+ * underlying {@code AsyncToggleMap}.
+ *
+ * The cache spec must not specify {@code weakValues} or {@code
+ * softValues}, which asynchronous caches do not support.
+ *
+ * @param <K> The key type of an {@code AsyncToggleMap}.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class AsyncCachingToggleMap<K, T> extends AsyncToggleMap<K, T> {
+  private final Toggle<T> ALWAYS_FALSE = Toggle.alwaysFalse();
+
+  private final AsyncToggleMap<K, T> underlying;
+  private final AsyncLoadingCache<K, Toggle<T>> cache;
+  private final Cache<K, Toggle<T>> fallbackCache;
+
+  // Keys which the underlying AsyncToggleMap reported as undefined, as
+  // in CachingToggleMap.
+  private final Cache<K, Boolean> negativeCache;
+
+  public AsyncCachingToggleMap(AsyncToggleMap<K, T> underlying, CaffeineSpec cacheSpec) {
+    this(underlying, cacheSpec, CachingToggleMap.DEFAULT_FALLBACK_CACHE_SIZE);
+  }
+
+  /**
+   * Constructs an {@code AsyncCachingToggleMap}.
+   *
+   * @param underlying The {@code AsyncToggleMap} to cache toggles from.
+   * @param cacheSpec A Caffeine spec configuring the toggle cache.
+   * @param fallbackCacheSize The maximum number of last-known-good
+   *        toggles retained in case lookups to {@code underlying}
+   *        fail.
+   */
+  public AsyncCachingToggleMap(
+    AsyncToggleMap<K, T> underlying,
+    CaffeineSpec cacheSpec,
+    long fallbackCacheSize
+  ) {
+    this(underlying, cacheSpec, fallbackCacheSize, CachingToggleMap.DEFAULT_NEGATIVE_CACHE_TTL);
+  }
+
+  /**
+   * Constructs an {@code AsyncCachingToggleMap} which caches misses
+   * for the argument TTL.
+   *
+   * @param underlying The {@code AsyncToggleMap} to cache toggles from.
+   * @param cacheSpec A Caffeine spec configuring the toggle cache.
+   * @param fallbackCacheSize The maximum number of last-known-good
+   *        toggles, and of misses, retained.
+   * @param negativeCacheTtl How long to treat a key as undefined after
+   *        {@code underlying} reports it as such. {@link
+   *        Duration#ZERO} disables negative caching.
+   */
+  public AsyncCachingToggleMap(
+    AsyncToggleMap<K, T> underlying,
+    CaffeineSpec cacheSpec,
+    long fallbackCacheSize,
+    Duration negativeCacheTtl
+  ) {
+    this.underlying = underlying;
+    this.fallbackCache = Caffeine.newBuilder()
+      .maximumSize(fallbackCacheSize)
+      .build();
+    this.negativeCache = Caffeine.newBuilder()
+      .maximumSize(fallbackCacheSize)
+      .expireAfterWrite(negativeCacheTtl.toNanos(), TimeUnit.NANOSECONDS)
+      .build();
+    this.cache = Caffeine.from(cacheSpec)
+      .buildAsync(new AsyncCacheLoader<K, Toggle<T>>() {
+        // A cached miss loads as null, which Caffeine doesn't retain.
+        @Override
+        public CompletableFuture<Toggle<T>> asyncLoad(K key, Executor executor) {
+          if (isNegativelyCached(key)) {
+            return CompletableFuture.completedFuture(null);
+          }
+
+          return underlying.apply(key).handle((toggle, err) -> {
+            if (err == null) {
+              fallbackCache.put(key, toggle);
+              return toggle;
+            }
+
+            final Throwable cause = (err instanceof CompletionException) ? err.getCause() : err;
+
+            if (cause instanceof ToggleNotFoundException) {
+              // A definite miss, so stop serving the toggle, as
+              // CachingToggleMap does.
+              negativeCache.put(key, Boolean.TRUE);
+              fallbackCache.invalidate(key);
+              return null;
+            }
+
+            throw new CompletionException(cause);
+          });
+        }
+
+        @Override
+        public CompletableFuture<Map<K, Toggle<T>>> asyncLoadAll(
+          Iterable<? extends K> keys,
+          Executor executor
+        ) {
+          final List<K> keyList = new ArrayList<>();
+
+          for (final K key : keys) {
+            if (!isNegativelyCached(key)) {
+              keyList.add(key);
+            }
+          }
+
+          if (keyList.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+          }
+
+          return underlying.getAll(keyList).thenApply(toggles -> {
+            fallbackCache.putAll(toggles);
+
+            // Keys which the bulk lookup omits identify no toggle, so
+            // they are cached as misses, as asyncLoad does.
+            for (final K key : keyList) {
+              if (!toggles.containsKey(key)) {
+                negativeCache.put(key, Boolean.TRUE);
+                fallbackCache.invalidate(key);
+              }
+            }
+
+            return toggles;
+          });
+        }
+      });
+  }
+
+  public AsyncCachingToggleMap(AsyncToggleMap<K, T> underlying, String cacheSpec) {
+    this(underlying, CaffeineSpec.parse(cacheSpec));
+  }
+
+  @Override
+  public CompletableFuture<Toggle<T>> apply(K key) {
+    return cache.get(key).handle((toggle, err) -> {
+      if (toggle != null) {
+        return toggle;
+      }
+
+      final Toggle<T> fallback = fallbackCache.getIfPresent(key);
+      return (fallback == null) ? ALWAYS_FALSE : fallback;
+    });
+  }
+
+  /**
+   * Looks up the toggles identified by each of the argument keys.
+   *
+   * Keys which are not yet cached are loaded from the underlying
+   * {@code AsyncToggleMap} in a single bulk lookup. If the bulk lookup
+   * fails, last-known-good toggles are used.
+   *
+   * @param keys The keys of the toggles to look up.
+   * @return A future of an unmodifiable map from each key which
+   *         identifies a toggle to that toggle.
+   */
+  @Override
+  public CompletableFuture<Map<K, Toggle<T>>> getAll(Collection<? extends K> keys) {
+    return cache.getAll(keys).handle((toggles, err) ->
+      Collections.unmodifiableMap((err == null) ? toggles : fallbackCache.getAllPresent(keys))
+    );
+  }
+
+  /**
+   * @return Whether the argument key is cached as a miss.
+   */
+  boolean isNegativelyCached(K key) {
+    return negativeCache.getIfPresent(key) != null;
+  }
+
+  /**
+   * Performs any pending cache maintenance, such as evictions, on the
+   * calling thread.
+   */
+  void cleanUp() {
+    cache.synchronous().cleanUp();
+  }
+
+  @Override
+  public CompletableFuture<Set<K>> keySet() {
+    return underlying.keySet();
+  }
+}
@@ -1,77 +1,859 @@
 package com.whiskerlabs.toggle.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.CaffeineSpec;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.whiskerlabs.toggle.LongToggle;
 import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleChange;
+import com.whiskerlabs.toggle.ToggleEvaluations;
+import com.whiskerlabs.toggle.ToggleKeyIndex;
 import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import com.whiskerlabs.toggle.ToggleSubscription;
+import com.whiskerlabs.toggle.metrics.EvaluationRecorder;
+import com.whiskerlabs.toggle.metrics.ToggleMetrics;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 
 /**
  * A {@link ToggleMap} which caches toggles retrieved from an
  * underlying {@code ToggleMap}.
  *
+ * Keys for which the underlying {@code ToggleMap} throws a {@link
+ * ToggleNotFoundException}, or which its bulk lookups omit, are cached
+ * as misses for a separate, typically shorter, TTL, and their
+ * last-known-good toggles are discarded. Until a miss expires, lookups
+ * of its key neither consult the underlying {@code ToggleMap} nor
+ * throw, and its toggle tests {@code false}.
+ *
+ * If the underlying {@code ToggleMap} notifies its listeners of
+ * changes, {@link #subscribeToChanges} keeps the cache consistent with
+ * it without relying on expiry, so that entries may be cached for a
+ * very long time.
+ *
+ * Keys are indexed for {@link #keySet}, {@link #keysWithPrefix} and
+ * {@link #evaluateAll(Object, String)}. The index is seeded from the
+ * underlying {@code ToggleMap}'s key set by the first such call, and
+ * is then kept up to date by loads and by change notifications. Loads
+ * only observe the keys which are looked up, so unless {@link
+ * #subscribeToChanges} is active, toggles added to the underlying
+ * {@code ToggleMap} would otherwise never be indexed; the first query
+ * after the index is older than a TTL therefore starts rebuilding it
+ * from the underlying key set in the background, and queries are
+ * served from the existing index in the meantime. While subscribed,
+ * queries of the index never consult the underlying {@code ToggleMap}.
+ *
  * @param <K> The key type of a {@code ToggleMap}.
  *
  * @param <T> The toggle input type. The toggle is applied to
  *            instances of type {@code T}.
  */
 public class CachingToggleMap<K, T> extends ToggleMap<K, T> {
+  public static final long DEFAULT_FALLBACK_CACHE_SIZE = 10000;
+  public static final Duration DEFAULT_NEGATIVE_CACHE_TTL = Duration.ofSeconds(30);
+  public static final Duration DEFAULT_KEY_INDEX_TTL = Duration.ofMinutes(1);
+
   private final Toggle<T> ALWAYS_FALSE = Toggle.alwaysFalse();
 
   private final ToggleMap<K, T> underlying;
+  private final ToggleMetrics metrics;
   private final LoadingCache<K, Toggle<T>> cache;
 
-  // We keep explicit references to the last-cached toggles in order
-  // to fall back to it in cases where lookups to the underlying
-  // ToggleMap fail.
-  private final Map<K, Toggle<T>> fallbackCache;
+  // We keep explicit references to the last-loaded toggles in order
+  // to fall back to them in cases where lookups to the underlying
+  // ToggleMap fail. The fallback cache is only written when a toggle
+  // is loaded from the underlying ToggleMap, so cache hits are
+  // read-only.
+  private final Cache<K, Toggle<T>> fallbackCache;
+
+  // Keys which the underlying ToggleMap reported as undefined. Caffeine
+  // 2.3 has no per-entry expiry, so misses are kept in their own cache
+  // in order to expire independently of the toggle cache.
+  private final Cache<K, Boolean> negativeCache;
+
+  // Seeded on the first prefix query, so that caches which are never
+  // queried by prefix neither read the underlying key set nor build an
+  // index. Updates to the index are made under keyIndexLock. While the
+  // index is rebuilt from the underlying key set, updates are also
+  // journaled, then replayed onto the rebuilt index, so that keys
+  // loaded in the meantime are not lost. Rebuilds are serialized by
+  // keyIndexRebuildLock, and at most one background rebuild is in
+  // flight at a time.
+  private final Object keyIndexLock = new Object();
+  private final Object keyIndexRebuildLock = new Object();
+  private final long keyIndexTtlNanos;
+  private final Executor keyIndexExecutor;
+  private final AtomicBoolean keyIndexRebuilding = new AtomicBoolean(false);
+  private final AtomicInteger changeSubscriptions = new AtomicInteger();
+  private volatile ToggleKeyIndex<K> keyIndex = null;
+  private volatile long keyIndexBuiltNanos;
+  private List<ToggleChange<K>> keyIndexJournal = null;
 
   public CachingToggleMap(ToggleMap<K, T> underlying, CaffeineSpec cacheSpec) {
-    this.underlying = underlying;
-    this.cache = Caffeine.from(cacheSpec)
-      .build(underlying::apply);
-    this.fallbackCache = new HashMap<>();
+    this(builder(underlying, cacheSpec));
   }
 
   public CachingToggleMap(ToggleMap<K, T> underlying, String cacheSpec) {
     this(underlying, CaffeineSpec.parse(cacheSpec));
   }
 
+  private CachingToggleMap(Builder<K, T> builder) {
+    this.underlying = builder.underlying;
+    this.metrics = builder.metrics;
+    this.keyIndexTtlNanos = builder.keyIndexTtl.toNanos();
+    this.keyIndexExecutor = builder.keyIndexExecutor;
+    this.fallbackCache = Caffeine.newBuilder()
+      .maximumSize(builder.fallbackCacheSize)
+      .build();
+    this.negativeCache = Caffeine.newBuilder()
+      .maximumSize(builder.fallbackCacheSize)
+      .expireAfterWrite(builder.negativeCacheTtl.toNanos(), TimeUnit.NANOSECONDS)
+      .build();
+
+    final Caffeine<Object, Object> caffeine = Caffeine.from(builder.cacheSpec);
+
+    if (builder.metrics != ToggleMetrics.NOOP) {
+      try {
+        caffeine.recordStats();
+      } catch (IllegalStateException err) {
+        // The spec already enables statistics.
+      }
+    }
+
+    this.cache = caffeine
+      .build(new CacheLoader<K, Toggle<T>>() {
+        @Override
+        public Toggle<T> load(K key) {
+          return CachingToggleMap.this.load(key);
+        }
+
+        @Override
+        public Map<K, Toggle<T>> loadAll(Iterable<? extends K> keys) {
+          final List<K> keyList = new ArrayList<>();
+          keys.forEach(keyList::add);
+          return CachingToggleMap.this.loadAll(keyList);
+        }
+      });
+  }
+
+  /**
+   * Returns a {@link Builder} of a {@code CachingToggleMap}, through
+   * which settings other than the cache spec may be configured.
+   *
+   * @param underlying The {@code ToggleMap} to cache toggles from.
+   * @param cacheSpec A Caffeine spec configuring the toggle cache.
+   */
+  public static <K, T> Builder<K, T> builder(ToggleMap<K, T> underlying, CaffeineSpec cacheSpec) {
+    return new Builder<>(underlying, cacheSpec);
+  }
+
+  public static <K, T> Builder<K, T> builder(ToggleMap<K, T> underlying, String cacheSpec) {
+    return builder(underlying, CaffeineSpec.parse(cacheSpec));
+  }
+
+  /**
+   * A builder of a {@link CachingToggleMap}. Settings which aren't
+   * configured take their defaults.
+   *
+   * @param <K> The key type of a {@code ToggleMap}.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   */
+  public static final class Builder<K, T> {
+    private final ToggleMap<K, T> underlying;
+    private final CaffeineSpec cacheSpec;
+    private long fallbackCacheSize = DEFAULT_FALLBACK_CACHE_SIZE;
+    private ToggleMetrics metrics = ToggleMetrics.NOOP;
+    private Duration negativeCacheTtl = DEFAULT_NEGATIVE_CACHE_TTL;
+    private Duration keyIndexTtl = DEFAULT_KEY_INDEX_TTL;
+    private Executor keyIndexExecutor = ForkJoinPool.commonPool();
+
+    private Builder(ToggleMap<K, T> underlying, CaffeineSpec cacheSpec) {
+      this.underlying = underlying;
+      this.cacheSpec = cacheSpec;
+    }
+
+    /**
+     * @param fallbackCacheSize The maximum number of last-known-good
+     *        toggles, and of misses, retained in case lookups to the
+     *        underlying {@code ToggleMap} fail. Defaults to {@link
+     *        CachingToggleMap#DEFAULT_FALLBACK_CACHE_SIZE}.
+     * @return This builder.
+     */
+    public Builder<K, T> fallbackCacheSize(long fallbackCacheSize) {
+      this.fallbackCacheSize = fallbackCacheSize;
+      return this;
+    }
+
+    /**
+     * Unless {@code metrics} is {@link ToggleMetrics#NOOP}, Caffeine
+     * statistics are also recorded for the toggle cache and made
+     * available through {@link CachingToggleMap#stats}.
+     *
+     * @param metrics The sink to which evaluations, fallbacks and loads
+     *        from the underlying {@code ToggleMap} are recorded.
+     *        Defaults to {@link ToggleMetrics#NOOP}.
+     * @return This builder.
+     */
+    public Builder<K, T> metrics(ToggleMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * @param negativeCacheTtl How long to treat a key as undefined
+     *        after the underlying {@code ToggleMap} reports it as
+     *        such. {@link Duration#ZERO} disables negative caching.
+     *        Defaults to {@link CachingToggleMap#DEFAULT_NEGATIVE_CACHE_TTL}.
+     * @return This builder.
+     */
+    public Builder<K, T> negativeCacheTtl(Duration negativeCacheTtl) {
+      this.negativeCacheTtl = negativeCacheTtl;
+      return this;
+    }
+
+    /**
+     * @param keyIndexTtl How long the key index may be used before it
+     *        is rebuilt from the key set of the underlying {@code
+     *        ToggleMap}, unless {@link
+     *        CachingToggleMap#subscribeToChanges} is active. Defaults
+     *        to {@link CachingToggleMap#DEFAULT_KEY_INDEX_TTL}.
+     * @return This builder.
+     */
+    public Builder<K, T> keyIndexTtl(Duration keyIndexTtl) {
+      this.keyIndexTtl = keyIndexTtl;
+      return this;
+    }
+
+    /**
+     * @param keyIndexExecutor The executor on which the key index is
+     *        rebuilt. Defaults to the common fork-join pool.
+     * @return This builder.
+     */
+    public Builder<K, T> keyIndexExecutor(Executor keyIndexExecutor) {
+      this.keyIndexExecutor = keyIndexExecutor;
+      return this;
+    }
+
+    /**
+     * @return A new {@code CachingToggleMap} with this builder's
+     *         settings.
+     */
+    public CachingToggleMap<K, T> build() {
+      return new CachingToggleMap<>(this);
+    }
+  }
+
   @Override
   public Toggle<T> apply(K key) {
+    final EvaluationRecorder recorder = metrics.evaluations(key);
+
     return new Toggle<T>() {
       @Override
-      protected boolean test(T t, Optional<String> cohortOpt) {
-        Toggle<T> underlying = null;
+      public boolean test(T t, String cohort) {
+        final boolean result = lookUp(key).test(t, cohort);
+        recorder.record(result);
+        return result;
+      }
 
-        try {
-          underlying = cache.get(key);
-          fallbackCache.put(key, underlying);
-        } catch (NoSuchElementException err) {
-          underlying = fallbackCache.getOrDefault(key, ALWAYS_FALSE);
+      @Override
+      public boolean testCohorts(T t, List<String> cohorts) {
+        final boolean result = lookUp(key).testCohorts(t, cohorts);
+        recorder.record(result);
+        return result;
+      }
+
+      // Look the toggle up in the cache once, rather than on each test
+      // of the returned predicate.
+      @Override
+      public Predicate<T> resolve(String cohort) {
+        return recording(lookUp(key).resolve(cohort));
+      }
+
+      @Override
+      public Predicate<T> resolveCohorts(List<String> cohorts) {
+        return recording(lookUp(key).resolveCohorts(cohorts));
+      }
+
+      private Predicate<T> recording(Predicate<T> resolved) {
+        if (recorder == EvaluationRecorder.NOOP) {
+          return resolved;
         }
 
-        if (cohortOpt.isPresent()) {
-          return underlying
-            .withCohort(cohortOpt.get())
-            .test(t);
-        } else {
-          return underlying.test(t);
+        return t -> {
+          final boolean result = resolved.test(t);
+          recorder.record(result);
+          return result;
+        };
+      }
+    };
+  }
+
+  /**
+   * Returns a {@link LongToggle} which, like the toggles returned by
+   * {@link #apply}, consults the cache on each test. Cache hits for
+   * compiled toggles are tested without boxing or allocating.
+   */
+  @Override
+  protected LongToggle applyLong(K key) {
+    final EvaluationRecorder recorder = metrics.evaluations(key);
+
+    return new LongToggle() {
+      @Override
+      public boolean testLong(long id, String cohort) {
+        final boolean result = lookUpLong(key).testLong(id, cohort);
+        recorder.record(result);
+        return result;
+      }
+
+      @Override
+      public boolean testLongCohorts(long id, List<String> cohorts) {
+        final boolean result = lookUpLong(key).testLongCohorts(id, cohorts);
+        recorder.record(result);
+        return result;
+      }
+
+      @Override
+      public LongPredicate resolve(String cohort) {
+        final LongPredicate resolved = lookUpLong(key).resolve(cohort);
+
+        if (recorder == EvaluationRecorder.NOOP) {
+          return resolved;
         }
+
+        return id -> {
+          final boolean result = resolved.test(id);
+          recorder.record(result);
+          return result;
+        };
       }
     };
   }
 
+  private LongToggle lookUpLong(K key) {
+    final Toggle<T> toggle = lookUp(key);
+    return (toggle == ALWAYS_FALSE) ? LongToggle.alwaysFalse() : asLongToggle(toggle);
+  }
+
+  // A cached miss loads as null, which Caffeine doesn't retain, so
+  // lookups of an undefined key fall through to orFallback without
+  // throwing. Misses discard their last-known-good toggles, so such
+  // lookups test false.
+  private Toggle<T> lookUp(K key) {
+    Toggle<T> toggle = null;
+
+    try {
+      toggle = cache.get(key);
+    } catch (NoSuchElementException err) {
+      metrics.recordFallback(key);
+    }
+
+    return orFallback(key, toggle);
+  }
+
+  // Returns the argument toggle, or if the lookup which produced it
+  // missed or failed, the last-known-good toggle for the key, or else a
+  // toggle which always tests false. Shared by single and bulk lookups
+  // so that they serve the same toggle for a key.
+  private Toggle<T> orFallback(K key, Toggle<T> toggle) {
+    if (toggle != null) {
+      return toggle;
+    }
+
+    final Toggle<T> fallback = fallbackCache.getIfPresent(key);
+    return (fallback == null) ? ALWAYS_FALSE : fallback;
+  }
+
+  /**
+   * Returns a snapshot of the Caffeine statistics of the toggle cache.
+   *
+   * Statistics are only recorded if this map was built with a
+   * {@link ToggleMetrics} other than {@link ToggleMetrics#NOOP}, or
+   * with a cache spec which enables {@code recordStats}; otherwise,
+   * every statistic is zero.
+   *
+   * @return The statistics of the toggle cache.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * Looks up the toggles identified by each of the argument keys.
+   *
+   * Keys which are not yet cached are loaded from the underlying
+   * {@code ToggleMap} in a single bulk lookup. As with {@link
+   * #apply}, the returned toggles consult the cache on each test.
+   *
+   * @param keys The keys of the toggles to look up.
+   * @return An unmodifiable map from each key which identifies a
+   *         toggle to that toggle.
+   */
+  @Override
+  public Map<K, Toggle<T>> getAll(Collection<? extends K> keys) {
+    final Map<K, Toggle<T>> builder = new HashMap<>();
+
+    for (final K key : cache.getAll(keys).keySet()) {
+      builder.put(key, apply(key));
+    }
+
+    return Collections.unmodifiableMap(builder);
+  }
+
+  /**
+   * Evaluates every toggle in this map for a single input.
+   *
+   * The keys evaluated are read from this map's key index, as for
+   * {@link #keysWithPrefix}, so that the underlying {@code ToggleMap}'s
+   * key set is not read on each call.
+   *
+   * @param t The toggle input.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return The result of evaluating each indexed key, in
+   *         lexicographic order of their string forms.
+   */
+  @Override
+  public ToggleEvaluations<K> evaluateAll(T t, String cohort) {
+    return evaluateAll(currentKeyIndex().keysWithPrefix(""), t, cohort);
+  }
+
+  /**
+   * Evaluates the toggles identified by each of the argument keys for
+   * a single input.
+   *
+   * The toggles are read from the cache in a single bulk lookup, with
+   * keys which are not yet cached loaded from the underlying {@code
+   * ToggleMap} in a single bulk lookup, and then tested directly. As
+   * with {@link #apply}, keys which the bulk lookup doesn't produce a
+   * toggle for because it failed are evaluated with their
+   * last-known-good toggles, if any. Keys which identify no toggle,
+   * including keys cached as misses, evaluate to {@code false}.
+   *
+   * @param keys The keys of the toggles to evaluate.
+   * @param t The toggle input.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return The result of evaluating each key.
+   */
+  @Override
+  public ToggleEvaluations<K> evaluateAll(List<? extends K> keys, T t, String cohort) {
+    Map<K, Toggle<T>> toggles;
+
+    try {
+      toggles = cache.getAll(keys);
+    } catch (RuntimeException err) {
+      toggles = Collections.emptyMap();
+      keys.forEach(metrics::recordFallback);
+    }
+
+    final BitSet results = new BitSet(keys.size());
+
+    for (int ordinal = 0; ordinal < keys.size(); ordinal++) {
+      final K key = keys.get(ordinal);
+      final Toggle<T> toggle = orFallback(key, toggles.get(key));
+
+      // Keys for which no toggle is available evaluate to false and
+      // aren't recorded, so that evaluating arbitrary keys doesn't
+      // accumulate metrics for them.
+      if (toggle == ALWAYS_FALSE) {
+        continue;
+      }
+
+      final boolean result = toggle.test(t, cohort);
+      metrics.evaluations(key).record(result);
+
+      if (result) {
+        results.set(ordinal);
+      }
+    }
+
+    return new ToggleEvaluations<>(keys, results);
+  }
+
+  /**
+   * Schedules a background refresh of the toggles in this cache.
+   *
+   * Refreshes run on the argument executor every {@code interval},
+   * plus up to {@code jitter}, and reload every cached key from the
+   * underlying {@code ToggleMap}. Combined with a cache spec which
+   * does not expire entries, this keeps toggle lookups on the calling
+   * thread from ever waiting on the underlying {@code ToggleMap} once
+   * a key has been loaded.
+   *
+   * @param executor The executor on which to run refreshes.
+   * @param interval The minimum interval between refreshes.
+   * @param jitter The maximum random delay added to {@code interval}.
+   * @param concurrency The number of tasks across which each refresh
+   *        is divided.
+   * @return A {@link ScheduledRefresher} which may be closed to stop
+   *         refreshing.
+   */
+  public ScheduledRefresher<K, T> scheduleRefresh(
+    ScheduledExecutorService executor,
+    Duration interval,
+    Duration jitter,
+    int concurrency
+  ) {
+    final ScheduledRefresher<K, T> refresher =
+      new ScheduledRefresher<>(this, executor, interval, jitter, concurrency);
+    refresher.start();
+    return refresher;
+  }
+
+  /**
+   * Subscribes this cache to changes in the underlying {@code
+   * ToggleMap}.
+   *
+   * Removed toggles are evicted, along with their last-known-good
+   * toggles, and cached as misses. Added or updated toggles are no
+   * longer treated as misses and, if cached, are reloaded in a single
+   * bulk lookup on the notifying thread. Other keys are left alone.
+   * Once handled, the changes are passed on to this map's own
+   * listeners. While subscribed, the key index is kept up to date by
+   * the changes, and is no longer rebuilt when its TTL elapses. A
+   * failure to handle changes is recorded with {@link
+   * ToggleMetrics#recordListenerFailure}, as it may leave stale
+   * toggles cached.
+   *
+   * @return A {@link ToggleSubscription} which may be closed to stop
+   *         following changes.
+   */
+  public ToggleSubscription subscribeToChanges() {
+    final ToggleSubscription subscription = underlying.subscribe(changes -> {
+      try {
+        applyChanges(changes);
+      } catch (RuntimeException err) {
+        // Entries may now be stale for as long as they are cached.
+        metrics.recordListenerFailure(err);
+        throw err;
+      }
+    });
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    changeSubscriptions.incrementAndGet();
+
+    return () -> {
+      if (closed.compareAndSet(false, true)) {
+        subscription.close();
+        changeSubscriptions.decrementAndGet();
+      }
+    };
+  }
+
+  /**
+   * Seeds this map with last-known-good toggles, e.g. toggles restored
+   * from disk at startup.
+   *
+   * The toggles are served from the cache until they are evicted,
+   * expire or are refreshed, and are used as fallbacks should lookups
+   * to the underlying {@code ToggleMap} fail, so that a cold start
+   * does not depend on the underlying {@code ToggleMap} being
+   * available.
+   *
+   * @param toggles The toggles to seed this map with.
+   */
+  public void preload(Map<? extends K, ? extends Toggle<T>> toggles) {
+    fallbackCache.putAll(toggles);
+    cache.putAll(toggles);
+  }
+
+  /**
+   * @return An unmodifiable, point-in-time copy of the last toggles
+   *         successfully loaded from the underlying {@code ToggleMap}
+   *         or preloaded, by key.
+   */
+  public Map<K, Toggle<T>> lastKnownGood() {
+    return Collections.unmodifiableMap(new HashMap<>(fallbackCache.asMap()));
+  }
+
+  /**
+   * Returns a point-in-time copy of the keys present in this cache.
+   */
+  List<K> cachedKeys() {
+    return new ArrayList<>(cache.asMap().keySet());
+  }
+
+  /**
+   * Performs any pending cache maintenance, such as evictions, on the
+   * calling thread.
+   */
+  void cleanUp() {
+    cache.cleanUp();
+    fallbackCache.cleanUp();
+    negativeCache.cleanUp();
+  }
+
+  /**
+   * @return The cache of last-known-good toggles.
+   */
+  Cache<K, Toggle<T>> fallbackCache() {
+    return fallbackCache;
+  }
+
+  /**
+   * Reloads the toggles for the argument keys from the underlying
+   * {@code ToggleMap} in a single bulk lookup and replaces the cached
+   * toggles with them. Keys which identify no toggle are evicted, and
+   * cached as misses. If the lookup fails, the cached toggles are
+   * retained.
+   */
+  void reloadAll(List<K> keys) {
+    final Map<K, Toggle<T>> toggles;
+
+    try {
+      toggles = loadAll(keys);
+    } catch (RuntimeException err) {
+      // Keep serving the cached toggles.
+      return;
+    }
+
+    cache.putAll(toggles);
+
+    for (final K key : keys) {
+      if (!toggles.containsKey(key)) {
+        cache.invalidate(key);
+      }
+    }
+  }
+
+  /**
+   * @return Whether the argument key is cached as a miss.
+   */
+  boolean isNegativelyCached(K key) {
+    return negativeCache.getIfPresent(key) != null;
+  }
+
+  private void applyChanges(List<ToggleChange<K>> changes) {
+    final List<K> changedKeys = new ArrayList<>(changes.size());
+
+    for (final ToggleChange<K> change : changes) {
+      final K key = change.key();
+
+      if (change.type() == ToggleChange.Type.REMOVED) {
+        cache.invalidate(key);
+        fallbackCache.invalidate(key);
+        negativeCache.put(key, Boolean.TRUE);
+      } else {
+        negativeCache.invalidate(key);
+
+        // Check via the map view so as not to skew hit statistics.
+        if (cache.asMap().containsKey(key)) {
+          changedKeys.add(key);
+        }
+      }
+    }
+
+    updateKeyIndex(changes);
+
+    if (!changedKeys.isEmpty()) {
+      reloadAll(changedKeys);
+    }
+
+    notifyChanges(changes);
+  }
+
+  private Toggle<T> load(K key) {
+    if (isNegativelyCached(key)) {
+      return null;
+    }
+
+    final long start = System.nanoTime();
+    boolean success = false;
+
+    try {
+      final Toggle<T> toggle = underlying.apply(key);
+      fallbackCache.put(key, toggle);
+      updateKeyIndex(Collections.singletonList(ToggleChange.added(key)));
+      success = true;
+      return toggle;
+    } catch (ToggleNotFoundException err) {
+      // A definite miss, so stop serving the toggle, as applyChanges
+      // does for removals.
+      negativeCache.put(key, Boolean.TRUE);
+      fallbackCache.invalidate(key);
+      updateKeyIndex(Collections.singletonList(ToggleChange.removed(key)));
+      success = true;
+      return null;
+    } finally {
+      metrics.recordLoad(System.nanoTime() - start, success);
+    }
+  }
+
+  private Map<K, Toggle<T>> loadAll(List<K> keys) {
+    final List<K> unknownKeys = new ArrayList<>(keys.size());
+
+    for (final K key : keys) {
+      if (!isNegativelyCached(key)) {
+        unknownKeys.add(key);
+      }
+    }
+
+    if (unknownKeys.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    final long start = System.nanoTime();
+    boolean success = false;
+
+    try {
+      final Map<K, Toggle<T>> toggles = underlying.getAll(unknownKeys);
+      fallbackCache.putAll(toggles);
+
+      final List<ToggleChange<K>> changes = new ArrayList<>(unknownKeys.size());
+
+      // Keys which the bulk lookup omits identify no toggle, so they
+      // are cached as misses, as load does.
+      for (final K key : unknownKeys) {
+        if (toggles.containsKey(key)) {
+          changes.add(ToggleChange.added(key));
+        } else {
+          negativeCache.put(key, Boolean.TRUE);
+          fallbackCache.invalidate(key);
+          changes.add(ToggleChange.removed(key));
+        }
+      }
+
+      updateKeyIndex(changes);
+      success = true;
+      return toggles;
+    } finally {
+      metrics.recordLoad(System.nanoTime() - start, success);
+    }
+  }
+
+  private void updateKeyIndex(List<ToggleChange<K>> changes) {
+    synchronized (keyIndexLock) {
+      if (keyIndex != null) {
+        keyIndex.apply(changes);
+      }
+
+      if (keyIndexJournal != null) {
+        keyIndexJournal.addAll(changes);
+      }
+    }
+  }
+
+  private boolean isKeyIndexStale() {
+    return changeSubscriptions.get() == 0
+      && System.nanoTime() - keyIndexBuiltNanos >= keyIndexTtlNanos;
+  }
+
+  // Rebuilds the key index from the underlying key set, which is
+  // returned, on the calling thread.
+  private Set<K> rebuildKeyIndex() {
+    synchronized (keyIndexRebuildLock) {
+      synchronized (keyIndexLock) {
+        keyIndexJournal = new ArrayList<>();
+      }
+
+      try {
+        final Set<K> keys = underlying.keySet();
+        final ToggleKeyIndex<K> index = new ToggleKeyIndex<>(keys);
+
+        synchronized (keyIndexLock) {
+          index.apply(keyIndexJournal);
+          keyIndex = index;
+          keyIndexBuiltNanos = System.nanoTime();
+        }
+
+        return keys;
+      } finally {
+        synchronized (keyIndexLock) {
+          keyIndexJournal = null;
+        }
+      }
+    }
+  }
+
+  // Starts rebuilding the key index in the background, unless a
+  // rebuild is already in flight. If the rebuild fails, the existing
+  // index is kept, and remains stale.
+  private void rebuildKeyIndexAsync() {
+    if (!keyIndexRebuilding.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      keyIndexExecutor.execute(() -> {
+        try {
+          rebuildKeyIndex();
+        } catch (RuntimeException err) {
+          // Keep serving the existing index.
+        } finally {
+          keyIndexRebuilding.set(false);
+        }
+      });
+    } catch (RuntimeException err) {
+      keyIndexRebuilding.set(false);
+    }
+  }
+
+  /**
+   * Returns the keys with the argument prefix from this map's key
+   * index, seeding the index from the underlying {@code ToggleMap} on
+   * the calling thread on first use. Once the index's TTL has elapsed,
+   * unless {@link #subscribeToChanges} is active, it is rebuilt in the
+   * background, and the existing index is used until the rebuild
+   * completes.
+   */
+  @Override
+  public List<K> keysWithPrefix(String prefix) {
+    return currentKeyIndex().keysWithPrefix(prefix);
+  }
+
+  // Returns the key index, seeding it on the calling thread if need be,
+  // and starting a background rebuild if it is stale.
+  private ToggleKeyIndex<K> currentKeyIndex() {
+    ToggleKeyIndex<K> index = keyIndex;
+
+    if (index == null) {
+      synchronized (keyIndexRebuildLock) {
+        if (keyIndex == null) {
+          rebuildKeyIndex();
+        }
+
+        index = keyIndex;
+      }
+    } else if (isKeyIndexStale()) {
+      rebuildKeyIndexAsync();
+    }
+
+    return index;
+  }
+
+  /**
+   * Returns the keys in this map's key index, which is seeded and
+   * rebuilt as for {@link #keysWithPrefix}, so that the underlying
+   * {@code ToggleMap}'s key set is read at most once per TTL, and
+   * never while {@link #subscribeToChanges} is active.
+   *
+   * @return An unmodifiable, point-in-time copy of the indexed keys.
+   */
   @Override
   public Set<K> keySet() {
-    final Set<K> underlyingKeySet = underlying.keySet();
-    underlyingKeySet.forEach(cache::refresh);
-    return underlyingKeySet;
+    return Collections.unmodifiableSet(new LinkedHashSet<>(currentKeyIndex().keysWithPrefix("")));
   }
 }
@@ -0,0 +1,139 @@
+package com.whiskerlabs.toggle.cache;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import com.whiskerlabs.toggle.binary.BinarySnapshotWriter;
+import com.whiskerlabs.toggle.binary.MappedToggleMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the last-known-good toggles of a {@link CachingToggleMap}
+ * to a local binary snapshot file, so that they can be restored at
+ * startup without consulting the underlying {@code ToggleMap}.
+ *
+ * On startup, call {@link #restore} before serving traffic, then
+ * warm the cache from the underlying {@code ToggleMap} in the
+ * background, e.g. with {@link ScheduledRefresher#refreshNow}, and
+ * {@link #schedule} periodic saves.
+ *
+ * Only {@link CompiledToggle CompiledToggles} can be persisted, which
+ * includes the toggles produced by every {@code ToggleMap} in this
+ * library; other toggles are skipped.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class LastKnownGoodStore<T> {
+  private final Path path;
+
+  /**
+   * Constructs a {@code LastKnownGoodStore}.
+   *
+   * @param path The path of the binary snapshot file in which to
+   *        persist toggles.
+   */
+  public LastKnownGoodStore(Path path) {
+    this.path = path;
+  }
+
+  /**
+   * Reads the persisted toggles.
+   *
+   * @return A snapshot of the persisted toggles, or an empty snapshot
+   *         if none have been persisted or the file cannot be read.
+   */
+  public ToggleSnapshot<T> load() {
+    try {
+      // Read the file rather than mapping it, so that it is not held
+      // open once restored.
+      return new MappedToggleMap<T>(ByteBuffer.wrap(Files.readAllBytes(path))).toSnapshot();
+    } catch (IOException | RuntimeException err) {
+      return ToggleSnapshot.empty();
+    }
+  }
+
+  /**
+   * Seeds the argument toggle map with the persisted toggles.
+   *
+   * @param toggleMap The toggle map to seed.
+   * @return The number of toggles restored.
+   */
+  public int restore(CachingToggleMap<String, T> toggleMap) {
+    final ToggleSnapshot<T> snapshot = load();
+    final Map<String, Toggle<T>> toggles = new HashMap<>();
+
+    for (final CompiledToggle<T> toggle : snapshot.toggles()) {
+      toggles.put(toggle.key(), toggle);
+    }
+
+    toggleMap.preload(toggles);
+    return toggles.size();
+  }
+
+  /**
+   * Persists the last-known-good toggles of the argument toggle map,
+   * atomically replacing any previously persisted toggles.
+   *
+   * If the toggle map has no last-known-good toggles, e.g. because
+   * neither restoring nor loading toggles has succeeded yet, the
+   * previously persisted toggles are left in place.
+   *
+   * @param toggleMap The toggle map whose toggles to persist.
+   * @return The number of toggles persisted.
+   * @throws IOException If the snapshot file cannot be written.
+   */
+  public int save(CachingToggleMap<String, T> toggleMap) throws IOException {
+    final List<CompiledToggle<T>> toggles = new ArrayList<>();
+
+    for (final Toggle<T> toggle : toggleMap.lastKnownGood().values()) {
+      if (toggle instanceof CompiledToggle) {
+        toggles.add((CompiledToggle<T>) toggle);
+      }
+    }
+
+    if (!toggles.isEmpty()) {
+      BinarySnapshotWriter.write(ToggleSnapshot.of(toggles), path);
+    }
+
+    return toggles.size();
+  }
+
+  /**
+   * Schedules periodic saves of the argument toggle map's
+   * last-known-good toggles on the argument executor.
+   *
+   * Failed saves are retried at the next scheduled save.
+   *
+   * @param toggleMap The toggle map whose toggles to persist.
+   * @param executor The executor on which to save toggles.
+   * @param interval The delay between saves.
+   * @return A {@link ScheduledFuture} which may be cancelled to stop
+   *         saving.
+   */
+  public ScheduledFuture<?> schedule(
+    CachingToggleMap<String, T> toggleMap,
+    ScheduledExecutorService executor,
+    Duration interval
+  ) {
+    return executor.scheduleWithFixedDelay(() -> {
+      try {
+        save(toggleMap);
+      } catch (IOException | RuntimeException err) {
+        // Keep the previously persisted toggles.
+      }
+    }, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,137 @@
+package com.whiskerlabs.toggle.cache;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reloads every toggle cached by a {@link
+ * CachingToggleMap} on a dedicated {@link ScheduledExecutorService}.
+ *
+ * Each refresh divides the cached keys among {@code concurrency}
+ * tasks, reloads each task's keys from the underlying {@code
+ * ToggleMap} in a single bulk lookup, and swaps the reloaded toggles
+ * into the cache. Refreshes never overlap: the next refresh is
+ * scheduled once the previous one completes, after the configured
+ * interval plus a random jitter, so that many processes started
+ * together do not refresh in lockstep.
+ *
+ * @param <K> The key type of a {@code ToggleMap}.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class ScheduledRefresher<K, T> implements Closeable {
+  private final CachingToggleMap<K, T> toggleMap;
+  private final ScheduledExecutorService executor;
+  private final Duration interval;
+  private final Duration jitter;
+  private final int concurrency;
+
+  private volatile boolean closed = false;
+  private volatile ScheduledFuture<?> nextRefresh;
+
+  ScheduledRefresher(
+    CachingToggleMap<K, T> toggleMap,
+    ScheduledExecutorService executor,
+    Duration interval,
+    Duration jitter,
+    int concurrency
+  ) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+    }
+
+    this.toggleMap = toggleMap;
+    this.executor = executor;
+    this.interval = interval;
+    this.jitter = jitter;
+    this.concurrency = concurrency;
+  }
+
+  /**
+   * @return The minimum interval between refreshes.
+   */
+  public Duration interval() {
+    return interval;
+  }
+
+  /**
+   * @return The maximum random delay added to each refresh interval.
+   */
+  public Duration jitter() {
+    return jitter;
+  }
+
+  /**
+   * @return The number of tasks across which each refresh is divided.
+   */
+  public int concurrency() {
+    return concurrency;
+  }
+
+  /**
+   * Reloads every cached toggle immediately, independently of the
+   * refresh schedule.
+   *
+   * @return A future which completes once every cached toggle has
+   *         been reloaded.
+   */
+  public CompletableFuture<Void> refreshNow() {
+    final List<K> keys = toggleMap.cachedKeys();
+    final int tasks = Math.max(1, Math.min(concurrency, keys.size()));
+    final int chunkSize = (keys.size() + tasks - 1) / tasks;
+    final CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+
+    for (int i = 0; i < tasks; i++) {
+      final List<K> chunk =
+        keys.subList(Math.min(i * chunkSize, keys.size()), Math.min((i + 1) * chunkSize, keys.size()));
+      futures[i] = CompletableFuture.runAsync(() -> toggleMap.reloadAll(chunk), executor);
+    }
+
+    return CompletableFuture.allOf(futures);
+  }
+
+  /**
+   * Stops scheduling refreshes. A refresh which is already running is
+   * allowed to complete.
+   */
+  @Override
+  public void close() {
+    closed = true;
+
+    final ScheduledFuture<?> refresh = nextRefresh;
+    if (refresh != null) {
+      refresh.cancel(false);
+    }
+  }
+
+  void start() {
+    scheduleNext();
+  }
+
+  private void scheduleNext() {
+    if (closed) {
+      return;
+    }
+
+    final long delayNanos = interval.toNanos() + (jitter.isZero()
+      ? 0
+      : ThreadLocalRandom.current().nextLong(jitter.toNanos() + 1));
+
+    nextRefresh = executor.schedule(
+      () -> refreshNow().whenComplete((result, err) -> scheduleNext()),
+      delayNanos,
+      TimeUnit.NANOSECONDS
+    );
+
+    if (closed) {
+      nextRefresh.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.whiskerlabs.toggle.cache;
+
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.whiskerlabs.toggle.AsyncToggleMap;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncCachingToggleMapTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+  private static final String retiredKey = "/feature/retired";
+
+  private final AtomicInteger lookups = new AtomicInteger();
+  private volatile boolean available = true;
+  private volatile boolean onKeyRetired = false;
+
+  private final AsyncToggleMap<String, Integer> underlying = new AsyncToggleMap<String, Integer>() {
+    @Override
+    public CompletableFuture<Toggle<Integer>> apply(String key) {
+      lookups.incrementAndGet();
+      final CompletableFuture<Toggle<Integer>> toggle = new CompletableFuture<>();
+
+      if (!available) {
+        toggle.completeExceptionally(new IllegalStateException("Backend unavailable"));
+      } else if (key.equals(onKey) && !onKeyRetired) {
+        toggle.complete(Toggle.alwaysTrue());
+      } else if (key.equals(retiredKey) || key.equals(onKey)) {
+        toggle.completeExceptionally(new ToggleNotFoundException(key));
+      } else {
+        toggle.completeExceptionally(
+          new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key)
+        );
+      }
+
+      return toggle;
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> keySet() {
+      return CompletableFuture.completedFuture(Collections.singleton(onKey));
+    }
+  };
+
+  @Test
+  public void testReadFromCacheOnHit() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(toggleMap.apply(onKey).join().test(1)).isTrue();
+    assertThat(toggleMap.apply(onKey).join().test(2)).isTrue();
+    assertThat(lookups.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testFallsBackToLastReadToggleOnFailedReadFromUnderlying() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    assertThat(toggleMap.apply(onKey).join().test(1)).isTrue();
+    toggleMap.cleanUp();
+
+    available = false;
+    assertThat(toggleMap.apply(onKey).join().test(1)).isTrue();
+    assertThat(lookups.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testNonexistentKeyTestsFalse() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    final CompletableFuture<Toggle<Integer>> toggle = toggleMap.apply(offKey);
+
+    assertThat(toggle.isCompletedExceptionally()).isFalse();
+    assertThat(toggle.join().test(1)).isFalse();
+  }
+
+  @Test
+  public void testCachesMisses() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(toggleMap.apply(retiredKey).join().test(1)).isFalse();
+    assertThat(toggleMap.apply(retiredKey).join().test(1)).isFalse();
+    assertThat(toggleMap.getAll(Arrays.asList(retiredKey)).join()).isEmpty();
+
+    assertThat(toggleMap.isNegativelyCached(retiredKey)).isTrue();
+    assertThat(toggleMap.isNegativelyCached(offKey)).isFalse();
+    assertThat(lookups.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testGetAllOmitsNonexistentKeys() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    final Map<String, Toggle<Integer>> toggles =
+      toggleMap.getAll(Arrays.asList(onKey, offKey)).join();
+
+    assertThat(toggles).containsOnlyKeys(onKey);
+    assertThat(toggles.get(onKey).test(1)).isTrue();
+  }
+
+  @Test
+  public void testStopsServingFallbackOfRetiredKey() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    assertThat(toggleMap.apply(onKey).join().test(1)).isTrue();
+    toggleMap.cleanUp();
+
+    onKeyRetired = true;
+    assertThat(toggleMap.apply(onKey).join().test(1)).isFalse();
+    assertThat(toggleMap.isNegativelyCached(onKey)).isTrue();
+  }
+
+  @Test
+  public void testGetAllStopsServingFallbackOfRetiredKey() {
+    final AsyncCachingToggleMap<String, Integer> toggleMap =
+      new AsyncCachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    assertThat(toggleMap.getAll(Arrays.asList(onKey)).join()).containsOnlyKeys(onKey);
+    toggleMap.cleanUp();
+
+    onKeyRetired = true;
+    assertThat(toggleMap.getAll(Arrays.asList(onKey)).join()).isEmpty();
+    assertThat(toggleMap.isNegativelyCached(onKey)).isTrue();
+    assertThat(toggleMap.apply(onKey).join().test(1)).isFalse();
+  }
+}
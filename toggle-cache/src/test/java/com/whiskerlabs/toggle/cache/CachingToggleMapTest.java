@@ -1,15 +1,34 @@
 package com.whiskerlabs.toggle.cache;
 
 import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.SnapshotToggleMap;
 import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleChange;
+import com.whiskerlabs.toggle.ToggleEvaluations;
 import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import com.whiskerlabs.toggle.ToggleSubscription;
+import com.whiskerlabs.toggle.metrics.LongAdderToggleMetrics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -48,20 +67,30 @@ public class CachingToggleMapTest {
   @Test
   public void testCohortsPassedThrough() {
     final Toggle<Integer> mockToggle = mock(Toggle.class);
-    when(mockToggle.withCohort(anyString())).thenReturn(mockToggle);
-    when(mockToggle.test(eq(1))).thenReturn(toggle.test(1));
+    when(mockToggle.test(eq(1), eq("foo"))).thenReturn(toggle.test(1));
     when(underlying.apply(onKey)).thenReturn(mockToggle);
 
     final CachingToggleMap<String, Integer> toggleMap =
       new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
 
-    toggleMap.apply(onKey)
-      .withCohort("foo")
-      .test(1);
+    assertThat(toggleMap.apply(onKey).withCohort("foo").test(1)).isTrue();
+    assertThat(toggleMap.apply(onKey).test(1, "foo")).isTrue();
 
     verify(underlying, times(1)).apply(eq(onKey));
-    verify(mockToggle, times(1)).withCohort(eq("foo"));
-    verify(mockToggle, times(1)).test(eq(1));
+    verify(mockToggle, times(2)).test(eq(1), eq("foo"));
+  }
+
+  @Test
+  public void testMultipleCohortsPassedThrough() {
+    final Toggle<Integer> mockToggle = mock(Toggle.class);
+    when(mockToggle.testCohorts(eq(1), eq(Arrays.asList("foo", "bar")))).thenReturn(true);
+    when(underlying.apply(onKey)).thenReturn(mockToggle);
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(toggleMap.apply(onKey).withCohorts("foo", "bar").test(1)).isTrue();
+    verify(mockToggle, times(1)).testCohorts(eq(1), eq(Arrays.asList("foo", "bar")));
   }
 
   @Test
@@ -79,6 +108,251 @@ public class CachingToggleMapTest {
     verify(underlying, times(2)).apply(eq(onKey));
   }
 
+  @Test
+  public void testCacheHitsDoNotWriteFallbackCache() {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    assertThat(toggleMap.lastKnownGood()).containsOnlyKeys(onKey);
+
+    toggleMap.fallbackCache().invalidate(onKey);
+
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    assertThat(toggleMap.apply(onKey).test(2)).isTrue();
+    assertThat(toggleMap.lastKnownGood()).isEmpty();
+    verify(underlying, times(1)).apply(eq(onKey));
+  }
+
+  @Test
+  public void testFallbackCacheWrittenWhenLoaded() {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    toggleMap.apply(onKey).test(1);
+    toggleMap.fallbackCache().invalidate(onKey);
+    toggleMap.cleanUp();
+
+    // The toggle was evicted, so this lookup loads it again.
+    toggleMap.apply(onKey).test(1);
+
+    assertThat(toggleMap.lastKnownGood()).containsOnlyKeys(onKey);
+    verify(underlying, times(2)).apply(eq(onKey));
+  }
+
+  @Test
+  public void testFallbackCacheIsBounded() {
+    final CachingToggleMap<String, Integer> toggleMap =
+      CachingToggleMap.builder(underlying, "maximumSize=10").fallbackCacheSize(2).build();
+
+    for (int i = 0; i < 5; i++) {
+      final String key = "/feature/" + i;
+      when(underlying.apply(key)).thenReturn(toggle);
+      toggleMap.apply(key).test(1);
+    }
+
+    toggleMap.cleanUp();
+
+    assertThat(toggleMap.cachedKeys()).hasSize(5);
+    assertThat(toggleMap.fallbackCache().estimatedSize()).isEqualTo(2);
+    assertThat(toggleMap.lastKnownGood()).hasSize(2);
+  }
+
+  @Test
+  public void testCachesMisses() {
+    when(underlying.apply(offKey)).thenThrow(new ToggleNotFoundException(offKey));
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    final Toggle<Integer> t = toggleMap.apply(offKey);
+    assertThat(t.test(1)).isFalse();
+    assertThat(t.test(1)).isFalse();
+    assertThat(toggleMap.evaluateAll(Arrays.asList(offKey), 1, null).get(0)).isFalse();
+
+    assertThat(toggleMap.isNegativelyCached(offKey)).isTrue();
+    verify(underlying, times(1)).apply(eq(offKey));
+    verify(underlying, never()).getAll(anyCollection());
+  }
+
+  @Test
+  public void testDoesNotCacheMissesWithZeroNegativeCacheTtl() {
+    when(underlying.apply(offKey)).thenThrow(new ToggleNotFoundException(offKey));
+
+    final CachingToggleMap<String, Integer> toggleMap = CachingToggleMap.builder(underlying, "maximumSize=3")
+      .negativeCacheTtl(Duration.ZERO)
+      .build();
+
+    final Toggle<Integer> t = toggleMap.apply(offKey);
+    assertThat(t.test(1)).isFalse();
+    assertThat(t.test(1)).isFalse();
+    verify(underlying, times(2)).apply(eq(offKey));
+  }
+
+  @Test
+  public void testRecordsMetrics() {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+    when(underlying.apply(offKey)).thenThrow(new NoSuchElementException());
+
+    final LongAdderToggleMetrics metrics = new LongAdderToggleMetrics();
+    final CachingToggleMap<String, Integer> toggleMap = CachingToggleMap.builder(underlying, "maximumSize=3")
+      .metrics(metrics)
+      .build();
+
+    final Toggle<Integer> t = toggleMap.apply(onKey);
+    assertThat(t.test(1)).isTrue();
+    assertThat(t.test(1)).isTrue();
+    assertThat(toggleMap.apply(offKey).test(1)).isFalse();
+
+    assertThat(metrics.evaluationCounts().get(onKey).trueCount()).isEqualTo(2);
+    assertThat(metrics.evaluationCounts().get(offKey).falseCount()).isEqualTo(1);
+    assertThat(metrics.fallbackCount(onKey)).isEqualTo(0);
+    assertThat(metrics.fallbackCount(offKey)).isEqualTo(1);
+    assertThat(metrics.loadLatency().count()).isEqualTo(2);
+    assertThat(metrics.loadFailureCount()).isEqualTo(1);
+    assertThat(toggleMap.stats().hitCount()).isEqualTo(1);
+    assertThat(toggleMap.stats().missCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testRecordsCacheStatsWhenSpecAlreadyEnablesThem() {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+
+    final CachingToggleMap<String, Integer> toggleMap = CachingToggleMap.builder(underlying, "maximumSize=3,recordStats")
+      .metrics(new LongAdderToggleMetrics())
+      .build();
+
+    toggleMap.apply(onKey).test(1);
+    toggleMap.apply(onKey).test(1);
+
+    assertThat(toggleMap.stats().hitCount()).isEqualTo(1);
+    assertThat(toggleMap.stats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testReadAllFromUnderlyingToggleMapInBulk() {
+    final Map<String, Toggle<Integer>> toggles = new HashMap<>();
+    toggles.put(onKey, toggle);
+    toggles.put(offKey, Toggle.alwaysFalse());
+    when(underlying.getAll(anyCollection())).thenReturn(toggles);
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    final Map<String, Toggle<Integer>> found =
+      toggleMap.getAll(Arrays.asList(onKey, offKey, "/feature/nonexistent"));
+
+    assertThat(found).containsOnlyKeys(onKey, offKey);
+    assertThat(found.get(onKey).test(1)).isTrue();
+    assertThat(found.get(offKey).test(1)).isFalse();
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    verify(underlying, times(1)).getAll(anyCollection());
+    verify(underlying, never()).apply(anyString());
+  }
+
+  @Test
+  public void testTestAllLooksToggleUpOnce() {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    assertThat(toggleMap.apply(onKey).testAll(Arrays.asList(1, 2, 3)).cardinality()).isEqualTo(3);
+    verify(underlying, times(1)).apply(eq(onKey));
+  }
+
+  @Test
+  public void testEvaluateAllInBulk() {
+    final Map<String, Toggle<Integer>> toggles = new HashMap<>();
+    toggles.put(onKey, toggle);
+    toggles.put(offKey, Toggle.alwaysFalse());
+    when(underlying.getAll(anyCollection())).thenReturn(toggles);
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    final ToggleEvaluations<String> evaluations =
+      toggleMap.evaluateAll(Arrays.asList(offKey, onKey, "/feature/nonexistent"), 1, null);
+
+    assertThat(evaluations.get(0)).isFalse();
+    assertThat(evaluations.get(1)).isTrue();
+    assertThat(evaluations.get(2)).isFalse();
+    verify(underlying, times(1)).getAll(anyCollection());
+    verify(underlying, never()).apply(anyString());
+  }
+
+  @Test
+  public void testEvaluateAllFallsBackToLastReadTogglesOnFailedReadFromUnderlying() {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+    when(underlying.getAll(anyCollection())).thenThrow(new IllegalStateException());
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    toggleMap.cleanUp();
+
+    final ToggleEvaluations<String> evaluations =
+      toggleMap.evaluateAll(Arrays.asList(onKey, offKey), 1, null);
+
+    assertThat(evaluations.get(0)).isTrue();
+    assertThat(evaluations.get(1)).isFalse();
+  }
+
+  @Test
+  public void testEvaluateAllFallsBackLikeApplyForCachedMisses() {
+    when(underlying.apply(onKey)).thenReturn(toggle).thenThrow(new ToggleNotFoundException(onKey));
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=0"));
+
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    toggleMap.cleanUp();
+
+    // The toggle was deleted, so its last-known-good toggle is dropped.
+    assertThat(toggleMap.apply(onKey).test(1)).isFalse();
+    assertThat(toggleMap.isNegativelyCached(onKey)).isTrue();
+    assertThat(toggleMap.lastKnownGood()).doesNotContainKey(onKey);
+    assertThat(toggleMap.evaluateAll(Arrays.asList(onKey), 1, null).get(0)).isFalse();
+    verify(underlying, never()).getAll(anyCollection());
+  }
+
+  @Test
+  public void testEvaluateAllCachesKeysMissingFromBulkLookup() {
+    final String unknownKey = "/feature/nonexistent";
+    when(underlying.getAll(anyCollection())).thenReturn(Collections.singletonMap(onKey, toggle));
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    for (int i = 0; i < 2; i++) {
+      final ToggleEvaluations<String> evaluations =
+        toggleMap.evaluateAll(Arrays.asList(onKey, unknownKey), 1, null);
+
+      assertThat(evaluations.get(0)).isTrue();
+      assertThat(evaluations.get(1)).isFalse();
+    }
+
+    assertThat(toggleMap.isNegativelyCached(unknownKey)).isTrue();
+    verify(underlying, times(1)).getAll(anyCollection());
+    verify(underlying, never()).apply(anyString());
+  }
+
+  @Test
+  public void testDoesNotCacheMissesWhenBulkLookupFails() {
+    when(underlying.getAll(anyCollection())).thenThrow(new IllegalStateException());
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(toggleMap.evaluateAll(Arrays.asList(onKey), 1, null).get(0)).isFalse();
+    assertThat(toggleMap.isNegativelyCached(onKey)).isFalse();
+  }
+
   @Test
   public void testReadKeySetFromUnderlying() {
     final Set<String> expectedKeySet = new HashSet();
@@ -91,4 +365,274 @@ public class CachingToggleMapTest {
 
     assertThat(toggleMap.keySet()).containsOnly(onKey, offKey);
   }
+
+  @Test
+  public void testScheduledRefreshReloadsCachedToggles() throws Exception {
+    when(underlying.apply(onKey)).thenReturn(Toggle.alwaysFalse());
+    when(underlying.getAll(anyCollection())).thenReturn(Collections.singletonMap(onKey, toggle));
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+    final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+
+    try (final ScheduledRefresher<String, Integer> refresher = toggleMap.scheduleRefresh(
+      executor,
+      Duration.ofHours(1),
+      Duration.ofMinutes(1),
+      2
+    )) {
+      assertThat(toggleMap.apply(onKey).test(1)).isFalse();
+
+      refresher.refreshNow().get(10, TimeUnit.SECONDS);
+
+      assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+      verify(underlying, times(1)).apply(eq(onKey));
+      verify(underlying, times(1)).getAll(eq(Collections.singletonList(onKey)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testScheduledRefreshRetainsCachedToggleOnFailedReadFromUnderlying() throws Exception {
+    when(underlying.apply(onKey)).thenReturn(toggle);
+    when(underlying.getAll(anyCollection())).thenThrow(new IllegalStateException());
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+    final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    try (final ScheduledRefresher<String, Integer> refresher = toggleMap.scheduleRefresh(
+      executor,
+      Duration.ofHours(1),
+      Duration.ZERO,
+      1
+    )) {
+      assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+
+      refresher.refreshNow().get(10, TimeUnit.SECONDS);
+
+      assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+      verify(underlying, times(1)).apply(eq(onKey));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSubscribeToChangesInvalidatesChangedKeys() {
+    final String newKey = "/feature/new_hotness";
+    final PublishingToggleMap publishing = new PublishingToggleMap(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(offKey, 0, Collections.emptyMap())
+    ));
+    final CachingToggleMap<String, Integer> toggleMap = new CachingToggleMap<>(publishing, "maximumSize=10");
+    final List<ToggleChange<String>> changes = new ArrayList<>();
+    toggleMap.subscribe(changes::addAll);
+
+    final ToggleSubscription subscription = toggleMap.subscribeToChanges();
+
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    assertThat(toggleMap.apply(offKey).test(1)).isFalse();
+    assertThat(toggleMap.apply(newKey).test(1)).isFalse();
+    assertThat(toggleMap.isNegativelyCached(newKey)).isTrue();
+
+    publishing.publish(Arrays.asList(
+      new CompiledToggle<Integer>(offKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(newKey, 10000, Collections.emptyMap())
+    ));
+
+    assertThat(toggleMap.apply(onKey).test(1)).isFalse();
+    assertThat(toggleMap.lastKnownGood()).doesNotContainKey(onKey);
+    assertThat(toggleMap.apply(offKey).test(1)).isTrue();
+    assertThat(toggleMap.apply(newKey).test(1)).isTrue();
+    assertThat(changes).containsOnly(
+      ToggleChange.removed(onKey),
+      ToggleChange.updated(offKey),
+      ToggleChange.added(newKey)
+    );
+
+    changes.clear();
+    subscription.close();
+    publishing.publish(Collections.emptyList());
+
+    assertThat(changes).isEmpty();
+    assertThat(toggleMap.apply(offKey).test(1)).isTrue();
+  }
+
+  @Test
+  public void testKeysWithPrefixReadsUnderlyingKeySetOnce() {
+    final String retiredKey = "/feature/retired";
+    when(underlying.keySet()).thenReturn(new HashSet<>(Arrays.asList(onKey, "/ops/kill_switch")));
+    when(underlying.apply(offKey)).thenReturn(toggle);
+    when(underlying.apply(retiredKey)).thenThrow(new ToggleNotFoundException(retiredKey));
+
+    final CachingToggleMap<String, Integer> toggleMap =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey);
+
+    toggleMap.apply(offKey).test(1);
+    toggleMap.apply(retiredKey).test(1);
+
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(offKey, onKey);
+    assertThat(toggleMap.keysWithPrefix("/ops/")).containsExactly("/ops/kill_switch");
+    verify(underlying, times(1)).keySet();
+  }
+
+  @Test
+  public void testApplyLongReadsFromCache() {
+    final CachingToggleMap<String, Long> toggleMap = new CachingToggleMap<>(
+      new SnapshotToggleMap<Long>(ToggleSnapshot.of(Collections.singletonList(
+        new CompiledToggle<Long>(onKey, 0, Collections.singletonMap("beta_tester", 10000))
+      ))),
+      "maximumSize=3"
+    );
+
+    final LongToggle longToggle = LongToggle.lookUp(toggleMap, onKey);
+
+    assertThat(longToggle.testLong(1L)).isFalse();
+    assertThat(longToggle.testLong(1L, "beta_tester")).isTrue();
+    assertThat(longToggle.resolve("beta_tester").test(2L)).isTrue();
+    assertThat(LongToggle.lookUp(toggleMap, offKey).testLong(1L, "beta_tester")).isFalse();
+  }
+
+  @Test
+  public void testKeysWithPrefixRebuildsIndexInBackgroundUnlessSubscribed() {
+    final String newKey = "/feature/new_hotness";
+    final PublishingToggleMap publishing = new PublishingToggleMap(Collections.singletonList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap())
+    ));
+    final List<Runnable> rebuilds = new ArrayList<>();
+    final CachingToggleMap<String, Integer> toggleMap = CachingToggleMap.builder(publishing, "maximumSize=10")
+      .keyIndexTtl(Duration.ZERO)
+      .keyIndexExecutor(rebuilds::add)
+      .build();
+
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey);
+    assertThat(publishing.keySetReads).isEqualTo(1);
+    assertThat(rebuilds).isEmpty();
+
+    publishing.publish(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(newKey, 10000, Collections.emptyMap())
+    ));
+
+    // The stale index is served while a single rebuild is pending.
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey);
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey);
+    assertThat(rebuilds).hasSize(1);
+    assertThat(publishing.keySetReads).isEqualTo(1);
+
+    runAll(rebuilds);
+
+    assertThat(publishing.keySetReads).isEqualTo(2);
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey, newKey);
+    runAll(rebuilds);
+
+    final ToggleSubscription subscription = toggleMap.subscribeToChanges();
+    publishing.publish(Collections.singletonList(
+      new CompiledToggle<Integer>(newKey, 10000, Collections.emptyMap())
+    ));
+
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(newKey);
+    assertThat(rebuilds).isEmpty();
+
+    subscription.close();
+  }
+
+  @Test
+  public void testKeySetServedFromKeyIndex() {
+    final String newKey = "/feature/new_hotness";
+    final PublishingToggleMap publishing = new PublishingToggleMap(Collections.singletonList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap())
+    ));
+    final List<Runnable> rebuilds = new ArrayList<>();
+    final CachingToggleMap<String, Integer> toggleMap = CachingToggleMap.builder(publishing, "maximumSize=10")
+      .keyIndexTtl(Duration.ZERO)
+      .keyIndexExecutor(rebuilds::add)
+      .build();
+
+    assertThat(toggleMap.keySet()).containsOnly(onKey);
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey);
+    assertThat(publishing.keySetReads).isEqualTo(1);
+
+    publishing.publish(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(newKey, 10000, Collections.emptyMap())
+    ));
+
+    // The stale index is served while a single rebuild is pending.
+    assertThat(toggleMap.keySet()).containsOnly(onKey);
+    assertThat(toggleMap.keySet()).containsOnly(onKey);
+    assertThat(rebuilds).hasSize(1);
+    assertThat(publishing.keySetReads).isEqualTo(1);
+
+    runAll(rebuilds);
+
+    assertThat(toggleMap.keySet()).containsOnly(onKey, newKey);
+    assertThat(publishing.keySetReads).isEqualTo(2);
+  }
+
+  @Test
+  public void testEvaluateAllKeysReadsUnderlyingKeySetOnce() {
+    final PublishingToggleMap publishing = new PublishingToggleMap(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(offKey, 0, Collections.emptyMap())
+    ));
+    final CachingToggleMap<String, Integer> toggleMap = new CachingToggleMap<>(publishing, "maximumSize=10");
+
+    for (int i = 0; i < 2; i++) {
+      final ToggleEvaluations<String> evaluations = toggleMap.evaluateAll(1, null);
+
+      assertThat(evaluations.isEnabled(offKey)).isFalse();
+      assertThat(evaluations.isEnabled(onKey)).isTrue();
+    }
+
+    assertThat(publishing.keySetReads).isEqualTo(1);
+  }
+
+  @Test
+  public void testRecordsFailureToApplyChanges() {
+    final PublishingToggleMap publishing = new PublishingToggleMap(Collections.emptyList());
+    final LongAdderToggleMetrics metrics = new LongAdderToggleMetrics();
+    final CachingToggleMap<String, Integer> toggleMap = CachingToggleMap.builder(publishing, "maximumSize=10")
+      .metrics(metrics)
+      .build();
+    toggleMap.subscribeToChanges();
+
+    // The cache rejects null keys.
+    publishing.notify(Collections.singletonList(ToggleChange.removed(null)));
+
+    assertThat(metrics.listenerFailureCount()).isEqualTo(1);
+    assertThat(publishing.listenerFailureCount()).isEqualTo(1);
+  }
+
+  private static void runAll(List<Runnable> tasks) {
+    final List<Runnable> pending = new ArrayList<>(tasks);
+    tasks.clear();
+    pending.forEach(Runnable::run);
+  }
+
+  private static class PublishingToggleMap extends SnapshotToggleMap<Integer> {
+    private int keySetReads = 0;
+
+    PublishingToggleMap(List<CompiledToggle<Integer>> toggles) {
+      super(ToggleSnapshot.of(toggles));
+    }
+
+    @Override
+    public Set<String> keySet() {
+      keySetReads++;
+      return super.keySet();
+    }
+
+    void publish(List<CompiledToggle<Integer>> toggles) {
+      publish(ToggleSnapshot.of(toggles));
+    }
+
+    void notify(List<ToggleChange<String>> changes) {
+      notifyChanges(changes);
+    }
+  }
 }
@@ -0,0 +1,86 @@
+package com.whiskerlabs.toggle.cache;
+
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class LastKnownGoodStoreTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String cohortKey = "/feature/beta_only";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ToggleMap<String, Integer> underlying = mock(TestToggleMap.class);
+
+  @Test
+  public void testRestoresPersistedTogglesWithoutConsultingUnderlying() throws IOException {
+    final Path path = temporaryFolder.getRoot().toPath().resolve("toggles.bin");
+    final LastKnownGoodStore<Integer> store = new LastKnownGoodStore<>(path);
+
+    when(underlying.apply(onKey))
+      .thenReturn(new CompiledToggle<>(onKey, 10000, Collections.emptyMap()));
+    when(underlying.apply(cohortKey))
+      .thenReturn(new CompiledToggle<>(cohortKey, 0, Collections.singletonMap("beta_tester", 10000)));
+
+    final CachingToggleMap<String, Integer> warm =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+    warm.apply(onKey).test(1);
+    warm.apply(cohortKey).test(1);
+    warm.preload(Collections.singletonMap("/feature/opaque", Toggle.<Integer>alwaysTrue()));
+
+    assertThat(store.save(warm)).isEqualTo(2);
+
+    final ToggleMap<String, Integer> failing = mock(TestToggleMap.class);
+    when(failing.apply(anyString())).thenThrow(new NoSuchElementException());
+
+    final CachingToggleMap<String, Integer> cold =
+      new CachingToggleMap<>(failing, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(store.restore(cold)).isEqualTo(2);
+    assertThat(cold.apply(onKey).test(1)).isTrue();
+    assertThat(cold.apply(cohortKey).test(1)).isFalse();
+    assertThat(cold.apply(cohortKey).test(1, "beta_tester")).isTrue();
+    verify(failing, never()).apply(anyString());
+  }
+
+  @Test
+  public void testKeepsPersistedTogglesWhenNothingToSave() throws IOException {
+    final Path path = temporaryFolder.getRoot().toPath().resolve("toggles.bin");
+    final LastKnownGoodStore<Integer> store = new LastKnownGoodStore<>(path);
+
+    final CachingToggleMap<String, Integer> warm =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+    warm.preload(Collections.singletonMap(onKey, new CompiledToggle<>(onKey, 10000, Collections.emptyMap())));
+    store.save(warm);
+
+    final CachingToggleMap<String, Integer> empty =
+      new CachingToggleMap<>(underlying, CaffeineSpec.parse("maximumSize=3"));
+
+    assertThat(store.save(empty)).isZero();
+    assertThat(store.load().keySet()).containsOnly(onKey);
+  }
+
+  @Test
+  public void testLoadsEmptySnapshotFromMissingOrCorruptFile() throws IOException {
+    final Path path = temporaryFolder.getRoot().toPath().resolve("toggles.bin");
+    assertThat(new LastKnownGoodStore<Integer>(path).load().size()).isZero();
+
+    Files.write(path, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+    assertThat(new LastKnownGoodStore<Integer>(path).load().size()).isZero();
+  }
+}
@@ -0,0 +1,130 @@
+package com.whiskerlabs.toggle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * An asynchronous counterpart to {@link ToggleMap}, whose lookups
+ * return {@link CompletableFuture CompletableFutures} rather than
+ * blocking the calling thread.
+ *
+ * A lookup of a key which identifies no toggle completes exceptionally
+ * with a {@link NoSuchElementException}. The toggles produced by an
+ * {@code AsyncToggleMap} are resolved, i.e. testing them never
+ * blocks, so they may be tested on event loop threads.
+ *
+ * @param <K> The key type of an {@code AsyncToggleMap}.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public abstract class AsyncToggleMap<K, T> implements Function<K, CompletableFuture<Toggle<T>>> {
+  /**
+   * Adapts a blocking {@link ToggleMap} by running its lookups on the
+   * argument executor.
+   *
+   * @param <K> The key type of a {@code ToggleMap}.
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param toggleMap The toggle map to adapt.
+   * @param executor The executor on which to run blocking lookups.
+   * @return An {@code AsyncToggleMap} backed by {@code toggleMap}.
+   */
+  public static <K, T> AsyncToggleMap<K, T> fromBlocking(
+    ToggleMap<K, T> toggleMap,
+    Executor executor
+  ) {
+    return new AsyncToggleMap<K, T>() {
+      @Override
+      public CompletableFuture<Toggle<T>> apply(K key) {
+        return CompletableFuture.supplyAsync(() -> toggleMap.apply(key), executor);
+      }
+
+      @Override
+      public CompletableFuture<Map<K, Toggle<T>>> getAll(Collection<? extends K> keys) {
+        return CompletableFuture.supplyAsync(() -> toggleMap.getAll(keys), executor);
+      }
+
+      @Override
+      public CompletableFuture<Set<K>> keySet() {
+        return CompletableFuture.supplyAsync(toggleMap::keySet, executor);
+      }
+    };
+  }
+
+  /**
+   * Returns the keys contained in this toggle map.
+   *
+   * @return A future of a set view of the keys contained in this
+   *         toggle map.
+   */
+  public abstract CompletableFuture<Set<K>> keySet();
+
+  /**
+   * Looks up the toggles identified by each of the argument keys.
+   *
+   * Keys which identify no toggle are absent from the resulting map.
+   * The default implementation looks up each key concurrently.
+   * Implementations backed by a remote store are encouraged to
+   * override it with a bulk lookup.
+   *
+   * @param keys The keys of the toggles to look up.
+   * @return A future of an unmodifiable map from each key which
+   *         identifies a toggle to that toggle, which completes
+   *         exceptionally if any lookup fails for another reason.
+   */
+  public CompletableFuture<Map<K, Toggle<T>>> getAll(Collection<? extends K> keys) {
+    final List<K> keyList = new ArrayList<>(keys);
+    final List<CompletableFuture<Toggle<T>>> lookups = new ArrayList<>(keyList.size());
+
+    for (final K key : keyList) {
+      lookups.add(apply(key).handle((toggle, err) -> {
+        if (err == null) {
+          return toggle;
+        } else if (unwrap(err) instanceof NoSuchElementException) {
+          return null;
+        }
+
+        throw (err instanceof CompletionException)
+          ? (CompletionException) err
+          : new CompletionException(err);
+      }));
+    }
+
+    return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      final Map<K, Toggle<T>> builder = new HashMap<>();
+
+      for (int i = 0; i < keyList.size(); i++) {
+        final Toggle<T> toggle = lookups.get(i).join();
+
+        if (toggle != null) {
+          builder.put(keyList.get(i), toggle);
+        }
+      }
+
+      return Collections.unmodifiableMap(builder);
+    });
+  }
+
+  /**
+   * Returns the cause of a failure, unwrapping any {@link
+   * CompletionException} in which it is wrapped.
+   *
+   * @param err A failure observed by a dependent stage of a {@code
+   *        CompletableFuture}.
+   * @return The underlying failure.
+   */
+  protected static Throwable unwrap(Throwable err) {
+    return (err instanceof CompletionException && err.getCause() != null) ? err.getCause() : err;
+  }
+}
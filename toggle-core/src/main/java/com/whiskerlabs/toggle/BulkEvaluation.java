@@ -0,0 +1,77 @@
+package com.whiskerlabs.toggle;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * Functions which evaluate a predicate over a range of indices into a
+ * {@link BitSet}.
+ *
+ * Results are accumulated into a {@code long[]} of bit words before
+ * being wrapped in a {@code BitSet}. Parallel evaluations divide the
+ * range into subranges aligned to word boundaries, so that no two
+ * tasks write the same word and no synchronization is needed beyond
+ * joining the tasks.
+ */
+final class BulkEvaluation {
+  // A multiple of 64, so that subranges are word-aligned.
+  static final int PARALLEL_THRESHOLD = 1 << 13;
+
+  private BulkEvaluation() { /* singleton */ }
+
+  static BitSet evaluate(int size, IntPredicate predicate) {
+    final long[] words = new long[wordCount(size)];
+    fill(words, 0, size, predicate);
+    return BitSet.valueOf(words);
+  }
+
+  static BitSet evaluateParallel(int size, IntPredicate predicate, ForkJoinPool pool) {
+    final long[] words = new long[wordCount(size)];
+    pool.invoke(new FillTask(words, 0, size, predicate));
+    return BitSet.valueOf(words);
+  }
+
+  private static int wordCount(int size) {
+    return (size + 63) >>> 6;
+  }
+
+  private static void fill(long[] words, int from, int to, IntPredicate predicate) {
+    for (int i = from; i < to; i++) {
+      if (predicate.test(i)) {
+        words[i >>> 6] |= 1L << i;
+      }
+    }
+  }
+
+  private static final class FillTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] words;
+    private final int from;
+    private final int to;
+    private final IntPredicate predicate;
+
+    private FillTask(long[] words, int from, int to, IntPredicate predicate) {
+      this.words = words;
+      this.from = from;
+      this.to = to;
+      this.predicate = predicate;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        fill(words, from, to, predicate);
+        return;
+      }
+
+      final int mid = (from + ((to - from) >>> 1)) & ~63;
+      invokeAll(
+        new FillTask(words, from, mid, predicate),
+        new FillTask(words, mid, to, predicate)
+      );
+    }
+  }
+}
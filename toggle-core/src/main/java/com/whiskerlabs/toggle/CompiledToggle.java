@@ -0,0 +1,318 @@
+package com.whiskerlabs.toggle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Toggle} whose specification has been resolved ahead of
+ * time into a default weight and a mapping from cohorts to weights.
+ *
+ * Testing a {@code CompiledToggle} entails one hash lookup per cohort
+ * and per membership filter, and never consults the representation
+ * the toggle was originally specified in.
+ *
+ * Of the filters matching a cohort, or any of several cohorts, the
+ * one which comes first in the toggle's specification applies,
+ * whether it is a cohort filter or a {@link MembershipFilter
+ * membership filter}. Cohort filters are ordered by the iteration
+ * order of {@link #cohortValues}, and each membership filter is
+ * placed among them by its {@link
+ * MembershipFilter#precedingCohortFilters}.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class CompiledToggle<T> extends Toggle<T> {
+  private final String key;
+  private final int value;
+  private final Map<String, Integer> cohortValues;
+  private final Map<String, CohortFilter> cohortIndex;
+  private final MembershipFilter[] memberships;
+
+  // Created on first use. Racing threads may each create a view, which
+  // is harmless as views are stateless.
+  private LongToggle longToggle = null;
+
+  /**
+   * Constructs a {@code CompiledToggle}.
+   *
+   * @param key The key identifying this toggle.
+   * @param value The weight applied when no cohort filter matches,
+   *        up to 10,000.
+   * @param cohortValues A mapping from cohort strings to the weight
+   *        applied for that cohort, up to 10,000, iterating in order
+   *        of precedence.
+   */
+  public CompiledToggle(String key, int value, Map<String, Integer> cohortValues) {
+    this(key, value, cohortValues, Collections.emptyList());
+  }
+
+  /**
+   * Constructs a {@code CompiledToggle} with membership filters.
+   *
+   * @param key The key identifying this toggle.
+   * @param value The weight applied when no filter matches, up to
+   *        10,000.
+   * @param cohortValues A mapping from cohort strings to the weight
+   *        applied for that cohort, up to 10,000, iterating in order
+   *        of precedence.
+   * @param memberships Membership filters, in order of precedence.
+   * @throws IllegalArgumentException If the membership filters are not
+   *         ordered by their positions among the cohort filters.
+   */
+  public CompiledToggle(
+    String key,
+    int value,
+    Map<String, Integer> cohortValues,
+    List<MembershipFilter> memberships
+  ) {
+    this.key = key;
+    this.value = value;
+    this.cohortValues = cohortValues.isEmpty()
+      ? Collections.emptyMap()
+      : Collections.unmodifiableMap(new LinkedHashMap<>(cohortValues));
+    this.memberships = memberships.toArray(new MembershipFilter[0]);
+
+    for (int i = 1; i < this.memberships.length; i++) {
+      if (this.memberships[i].precedingCohortFilters()
+          < this.memberships[i - 1].precedingCohortFilters()) {
+        throw new IllegalArgumentException("Membership filters out of order: " + key);
+      }
+    }
+
+    if (cohortValues.isEmpty()) {
+      this.cohortIndex = Collections.emptyMap();
+    } else {
+      final Map<String, CohortFilter> index = new HashMap<>();
+      int ordinal = 0;
+
+      for (final Map.Entry<String, Integer> cohortValue : this.cohortValues.entrySet()) {
+        index.put(cohortValue.getKey(), new CohortFilter(ordinal++, cohortValue.getValue()));
+      }
+
+      this.cohortIndex = index;
+    }
+  }
+
+  /**
+   * @return The key identifying this toggle.
+   */
+  public String key() {
+    return key;
+  }
+
+  /**
+   * @return The weight applied when no cohort filter matches.
+   */
+  public int value() {
+    return value;
+  }
+
+  /**
+   * @return An unmodifiable mapping from cohort strings to weights,
+   *         iterating in order of precedence.
+   */
+  public Map<String, Integer> cohortValues() {
+    return cohortValues;
+  }
+
+  /**
+   * @return The membership filters of this toggle, in order of
+   *         precedence.
+   */
+  public List<MembershipFilter> memberships() {
+    return Collections.unmodifiableList(Arrays.asList(memberships));
+  }
+
+  /**
+   * Returns the weight which applies to the argument cohort.
+   *
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return The weight of the first filter in the specification
+   *         matching {@code cohort}, or else the default weight of
+   *         this toggle.
+   */
+  public int valueFor(String cohort) {
+    if (cohort == null) {
+      return value;
+    }
+
+    final CohortFilter filter = cohortIndex.isEmpty() ? null : cohortIndex.get(cohort);
+    final int ordinal = (filter == null) ? Integer.MAX_VALUE : filter.ordinal;
+
+    // Only membership filters preceding the matching cohort filter, if
+    // any, may take precedence over it.
+    for (final MembershipFilter membership : memberships) {
+      if (membership.precedingCohortFilters() > ordinal) {
+        break;
+      } else if (membership.matches(cohort)) {
+        return membership.value();
+      }
+    }
+
+    return (filter == null) ? value : filter.value;
+  }
+
+  /**
+   * Returns the weight which applies to a subject belonging to each of
+   * the argument cohorts.
+   *
+   * @param cohorts The cohorts to which the subject belongs.
+   * @return The weight of the first filter in the specification
+   *         matching any of {@code cohorts}, or else the default weight
+   *         of this toggle.
+   */
+  public int valueForCohorts(List<String> cohorts) {
+    CohortFilter match = null;
+
+    if (!cohortIndex.isEmpty()) {
+      for (int i = 0; i < cohorts.size(); i++) {
+        final CohortFilter filter = cohortIndex.get(cohorts.get(i));
+
+        if (filter != null && (match == null || filter.ordinal < match.ordinal)) {
+          match = filter;
+        }
+      }
+    }
+
+    final int ordinal = (match == null) ? Integer.MAX_VALUE : match.ordinal;
+
+    for (final MembershipFilter membership : memberships) {
+      if (membership.precedingCohortFilters() > ordinal) {
+        break;
+      }
+
+      for (int i = 0; i < cohorts.size(); i++) {
+        if (membership.matches(cohorts.get(i))) {
+          return membership.value();
+        }
+      }
+    }
+
+    return (match == null) ? value : match.value;
+  }
+
+  @Override
+  public boolean test(T t, String cohort) {
+    return nextBoolean(valueFor(cohort));
+  }
+
+  @Override
+  public boolean testCohorts(T t, List<String> cohorts) {
+    return nextBoolean(valueForCohorts(cohorts));
+  }
+
+  /**
+   * Resolves the weight which applies to the argument cohort once, so
+   * that testing the returned predicate entails no lookups.
+   */
+  @Override
+  public Predicate<T> resolve(String cohort) {
+    final int weight = valueFor(cohort);
+
+    if (weight == 0) {
+      return t -> false;
+    }
+
+    return t -> nextBoolean(weight);
+  }
+
+  /**
+   * Resolves the weight which applies to the argument cohorts once, so
+   * that testing the returned predicate entails no lookups.
+   */
+  @Override
+  public Predicate<T> resolveCohorts(List<String> cohorts) {
+    final int weight = valueForCohorts(cohorts);
+
+    if (weight == 0) {
+      return t -> false;
+    }
+
+    return t -> nextBoolean(weight);
+  }
+
+  /**
+   * Returns a view of this toggle which tests primitive subject IDs
+   * without boxing them. The view is created once and retained.
+   *
+   * @return A {@link LongToggle} equivalent to this toggle.
+   */
+  public LongToggle asLongToggle() {
+    LongToggle view = longToggle;
+
+    if (view == null) {
+      view = new CompiledLongToggle();
+      longToggle = view;
+    }
+
+    return view;
+  }
+
+  /**
+   * Compares toggle specifications. Two {@code CompiledToggle}s are
+   * equal if they share a key, a default weight, the same cohort
+   * filters in the same order of precedence, and equal membership
+   * filters.
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    } else if (!(other instanceof CompiledToggle)) {
+      return false;
+    }
+
+    final CompiledToggle<?> that = (CompiledToggle<?>) other;
+    return key.equals(that.key)
+      && value == that.value
+      && new ArrayList<>(cohortValues.entrySet()).equals(new ArrayList<>(that.cohortValues.entrySet()))
+      && Arrays.equals(memberships, that.memberships);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * key.hashCode() + value) + cohortValues.hashCode();
+  }
+
+  private final class CompiledLongToggle extends LongToggle {
+    @Override
+    public boolean testLong(long id, String cohort) {
+      return nextBoolean(valueFor(cohort));
+    }
+
+    @Override
+    public boolean testLongCohorts(long id, List<String> cohorts) {
+      return nextBoolean(valueForCohorts(cohorts));
+    }
+
+    @Override
+    public LongPredicate resolve(String cohort) {
+      final int weight = valueFor(cohort);
+
+      if (weight == 0) {
+        return id -> false;
+      }
+
+      return id -> nextBoolean(weight);
+    }
+  }
+
+  private static final class CohortFilter {
+    private final int ordinal;
+    private final int value;
+
+    private CohortFilter(int ordinal, int value) {
+      this.ordinal = ordinal;
+      this.value = value;
+    }
+  }
+}
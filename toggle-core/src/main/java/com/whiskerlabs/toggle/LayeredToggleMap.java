@@ -0,0 +1,94 @@
+package com.whiskerlabs.toggle;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link ToggleMap} which layers several {@link SnapshotToggleMap
+ * SnapshotToggleMaps} by priority, e.g. a file of per-environment
+ * overrides on top of a shared DynamoDB table.
+ *
+ * A toggle defined by a higher-priority layer replaces any toggle with
+ * the same key in lower-priority layers in its entirety. The layers
+ * are merged into a single snapshot up front, and the merged snapshot
+ * is rebuilt whenever any layer publishes a new snapshot, so lookups
+ * are {@code O(1)} regardless of the number of layers.
+ *
+ * Layers backed by a remote store should keep their snapshot current
+ * themselves, e.g. using {@code SyncingDynamoDbToggleMap}, since a
+ * {@code LayeredToggleMap} never consults a layer on lookup.
+ *
+ * Each layer holds a reference to the {@code LayeredToggleMap} in
+ * order to notify it of publishes, so a {@code LayeredToggleMap} which
+ * is no longer used should be closed, lest its layers keep it
+ * reachable and keep rebuilding it.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class LayeredToggleMap<T> extends SnapshotToggleMap<T> implements Closeable {
+  private final List<SnapshotToggleMap<T>> layers;
+  private final List<ToggleSubscription> subscriptions = new ArrayList<>();
+
+  private LayeredToggleMap(List<? extends SnapshotToggleMap<T>> layers) {
+    super(ToggleSnapshot.empty());
+    this.layers = Collections.unmodifiableList(new ArrayList<>(layers));
+  }
+
+  /**
+   * Constructs a {@code LayeredToggleMap} which follows the snapshots
+   * published by its layers until it is closed.
+   *
+   * @param layers The layers to merge, in order of decreasing
+   *        priority.
+   * @return A {@code LayeredToggleMap} of {@code layers}.
+   */
+  public static <T> LayeredToggleMap<T> of(List<? extends SnapshotToggleMap<T>> layers) {
+    final LayeredToggleMap<T> toggleMap = new LayeredToggleMap<>(layers);
+
+    // Subscribe before the first merge, so that no publish is missed.
+    synchronized (toggleMap) {
+      for (final SnapshotToggleMap<T> layer : toggleMap.layers) {
+        toggleMap.subscriptions.add(layer.onPublish(toggleMap::rebuild));
+      }
+    }
+
+    toggleMap.rebuild();
+    return toggleMap;
+  }
+
+  /**
+   * @return The layers of this toggle map, in order of decreasing
+   *         priority.
+   */
+  public List<SnapshotToggleMap<T>> layers() {
+    return layers;
+  }
+
+  /**
+   * Stops following the snapshots published by the layers, which are
+   * not themselves closed. The last merged snapshot continues to be
+   * served.
+   */
+  @Override
+  public synchronized void close() {
+    subscriptions.forEach(ToggleSubscription::close);
+    subscriptions.clear();
+  }
+
+  // Rebuilds are serialized so that a rebuild triggered by one layer
+  // can't publish a merge which misses a concurrent change to another.
+  private synchronized void rebuild() {
+    final List<CompiledToggle<T>> toggles = new ArrayList<>();
+
+    for (final SnapshotToggleMap<T> layer : layers) {
+      toggles.addAll(layer.snapshot().toggles());
+    }
+
+    // ToggleSnapshot.of keeps the first toggle encountered for each
+    // key, i.e. the one from the highest-priority layer.
+    publish(ToggleSnapshot.of(toggles));
+  }
+}
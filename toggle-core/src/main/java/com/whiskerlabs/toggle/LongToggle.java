@@ -0,0 +1,248 @@
+package com.whiskerlabs.toggle;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A {@link Toggle} specialized for numeric subject IDs, e.g. user or
+ * account IDs, which are tested as primitive {@code long}s rather than
+ * boxed {@code Long}s. {@code int} IDs widen to {@code long} without
+ * boxing.
+ *
+ * The {@code LongToggle} view of a {@link CompiledToggle} is created
+ * once and retained by the toggle, so neither obtaining nor testing it
+ * allocates.
+ *
+ * @see #lookUp
+ */
+public abstract class LongToggle implements LongPredicate, Cohortable<LongToggle> {
+  private static final LongToggle ALWAYS_TRUE = new LongToggle() {
+    @Override
+    public boolean testLong(long id, String cohort) {
+      return true;
+    }
+  };
+
+  private static final LongToggle ALWAYS_FALSE = new LongToggle() {
+    @Override
+    public boolean testLong(long id, String cohort) {
+      return false;
+    }
+  };
+
+  /**
+   * @return A {@code LongToggle} whose tests always return {@code
+   *         true}.
+   */
+  public static LongToggle alwaysTrue() {
+    return ALWAYS_TRUE;
+  }
+
+  /**
+   * @return A {@code LongToggle} whose tests always return {@code
+   *         false}.
+   */
+  public static LongToggle alwaysFalse() {
+    return ALWAYS_FALSE;
+  }
+
+  /**
+   * Looks up the toggle identified by the argument key in a toggle map
+   * whose inputs are subject IDs.
+   *
+   * Compiled toggles, e.g. those of file-, snapshot- and
+   * DynamoDB-backed maps and cache hits in a caching map, are returned
+   * without allocating.
+   *
+   * @param <K> The key type of a {@code ToggleMap}.
+   * @param toggleMap A toggle map whose inputs are subject IDs.
+   * @param key The key of the toggle to look up.
+   * @return A {@code LongToggle} equivalent to {@code
+   *         toggleMap.apply(key)}.
+   * @throws java.util.NoSuchElementException If {@code key} identifies
+   *         no toggle.
+   */
+  public static <K> LongToggle lookUp(ToggleMap<K, Long> toggleMap, K key) {
+    return toggleMap.applyLong(key);
+  }
+
+  /**
+   * Returns a {@code LongToggle} view of the argument toggle.
+   *
+   * Compiled toggles return their retained view. Any other toggle is
+   * adapted by boxing each ID, so testing it allocates unless the JIT
+   * eliminates the box.
+   *
+   * @param toggle A toggle whose inputs are subject IDs.
+   * @return A {@code LongToggle} equivalent to {@code toggle}.
+   */
+  public static LongToggle of(Toggle<Long> toggle) {
+    if (toggle instanceof CompiledToggle) {
+      return ((CompiledToggle<?>) toggle).asLongToggle();
+    }
+
+    return new BoxingLongToggle(toggle);
+  }
+
+  /**
+   * Evaluates this toggle for a subject ID.
+   *
+   * @param id A subject ID.
+   * @return {@code true} with some probability defined by the
+   *         applicable toggle specification.
+   */
+  @Override
+  public boolean test(long id) {
+    return testLong(id, null);
+  }
+
+  /**
+   * Evaluates this toggle for a subject ID.
+   *
+   * @param id A subject ID.
+   * @return {@code true} with some probability defined by the
+   *         applicable toggle specification.
+   */
+  public boolean testLong(long id) {
+    return testLong(id, null);
+  }
+
+  /**
+   * Evaluates this toggle for a subject ID in a cohort. As with {@link
+   * Toggle#test(Object, String)}, implementations must not allocate on
+   * this path.
+   *
+   * @param id A subject ID.
+   * @param cohort A cohort string used to match this toggle with an
+   *        applicable toggle filter, or {@code null} if no cohort
+   *        applies.
+   * @return {@code true} with some probability defined by the
+   *         applicable toggle specification.
+   */
+  public abstract boolean testLong(long id, String cohort);
+
+  /**
+   * Evaluates this toggle for a subject ID which belongs to each of
+   * the argument cohorts, with the same precedence as {@link
+   * Toggle#testCohorts}. The default implementation, suitable for
+   * toggles without filters, tests the first cohort, if any.
+   *
+   * @param id A subject ID.
+   * @param cohorts The cohorts to which the subject belongs.
+   * @return {@code true} with some probability defined by the
+   *         applicable toggle specification.
+   */
+  public boolean testLongCohorts(long id, List<String> cohorts) {
+    return testLong(id, cohorts.isEmpty() ? null : cohorts.get(0));
+  }
+
+  /**
+   * Composes this toggle with a cohort. The returned toggle may be
+   * retained and reused across tests.
+   */
+  @Override
+  public LongToggle withCohort(String cohort) {
+    return new CohortLongToggle(this, cohort);
+  }
+
+  /**
+   * Resolves this toggle for a cohort into a {@link LongPredicate}
+   * which may be tested repeatedly, as {@link Toggle#resolve(String)}
+   * does.
+   *
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return A predicate equivalent to testing this toggle with {@code
+   *         cohort}.
+   */
+  public LongPredicate resolve(String cohort) {
+    return id -> testLong(id, cohort);
+  }
+
+  /**
+   * Tests this toggle against each of the argument subject IDs with a
+   * cohort. The toggle is resolved once for all IDs.
+   *
+   * @param ids The subject IDs to test.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of subject ID {@code i} returned {@code true}.
+   */
+  public BitSet testAll(long[] ids, String cohort) {
+    final LongPredicate predicate = resolve(cohort);
+    return BulkEvaluation.evaluate(ids.length, i -> predicate.test(ids[i]));
+  }
+
+  /**
+   * A {@link LongToggle} composed with a fixed cohort.
+   */
+  private static final class CohortLongToggle extends LongToggle {
+    private final LongToggle outer;
+    private final String cohort;
+
+    private CohortLongToggle(LongToggle outer, String cohort) {
+      this.outer = outer;
+      this.cohort = cohort;
+    }
+
+    @Override
+    public LongToggle withCohort(String cohort) {
+      return outer.withCohort(cohort);
+    }
+
+    @Override
+    public boolean test(long id) {
+      return outer.testLong(id, cohort);
+    }
+
+    @Override
+    public boolean testLong(long id) {
+      return outer.testLong(id, cohort);
+    }
+
+    @Override
+    public boolean testLong(long id, String cohort) {
+      return outer.testLong(id, cohort);
+    }
+
+    @Override
+    public boolean testLongCohorts(long id, List<String> cohorts) {
+      return outer.testLongCohorts(id, cohorts);
+    }
+
+    @Override
+    public LongPredicate resolve(String cohort) {
+      return outer.resolve(cohort);
+    }
+  }
+
+  /**
+   * A {@link LongToggle} view of a toggle which isn't compiled.
+   */
+  private static final class BoxingLongToggle extends LongToggle {
+    private final Toggle<Long> toggle;
+
+    private BoxingLongToggle(Toggle<Long> toggle) {
+      this.toggle = toggle;
+    }
+
+    @Override
+    public boolean testLong(long id, String cohort) {
+      return toggle.test(id, cohort);
+    }
+
+    @Override
+    public boolean testLongCohorts(long id, List<String> cohorts) {
+      return toggle.testCohorts(id, cohorts);
+    }
+
+    @Override
+    public LongPredicate resolve(String cohort) {
+      final Predicate<Long> resolved = toggle.resolve(cohort);
+      return resolved::test;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.whiskerlabs.toggle;
+
+/**
+ * A compiled membership filter, which applies a weight to every cohort
+ * in a {@link MembershipSet}, e.g. every account on an allow-list.
+ *
+ * A membership filter records its position among the filters of its
+ * toggle's specification as the number of cohort filters which precede
+ * it, so that a {@link CompiledToggle} can apply whichever matching
+ * filter comes first in the specification.
+ */
+public final class MembershipFilter {
+  private final MembershipSet members;
+  private final int value;
+  private final int precedingCohortFilters;
+
+  /**
+   * Constructs a {@code MembershipFilter} which comes after every
+   * cohort filter of its toggle's specification.
+   *
+   * @param members The cohorts to which this filter applies.
+   * @param value The weight applied to members, up to 10,000.
+   */
+  public MembershipFilter(MembershipSet members, int value) {
+    this(members, value, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructs a {@code MembershipFilter}.
+   *
+   * @param members The cohorts to which this filter applies.
+   * @param value The weight applied to members, up to 10,000.
+   * @param precedingCohortFilters The number of cohort filters which
+   *        precede this filter in its toggle's specification.
+   */
+  public MembershipFilter(MembershipSet members, int value, int precedingCohortFilters) {
+    this.members = members;
+    this.value = value;
+    this.precedingCohortFilters = precedingCohortFilters;
+  }
+
+  /**
+   * @return The cohorts to which this filter applies.
+   */
+  public MembershipSet members() {
+    return members;
+  }
+
+  /**
+   * @return The weight applied to members.
+   */
+  public int value() {
+    return value;
+  }
+
+  /**
+   * @return The number of cohort filters which precede this filter in
+   *         its toggle's specification, or {@link Integer#MAX_VALUE}
+   *         if it comes after all of them.
+   */
+  public int precedingCohortFilters() {
+    return precedingCohortFilters;
+  }
+
+  /**
+   * @param cohort A cohort string, or {@code null}.
+   * @return {@code true} if this filter applies to {@code cohort}.
+   */
+  public boolean matches(String cohort) {
+    return members.contains(cohort);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    } else if (!(other instanceof MembershipFilter)) {
+      return false;
+    }
+
+    final MembershipFilter that = (MembershipFilter) other;
+    return value == that.value
+      && precedingCohortFilters == that.precedingCohortFilters
+      && members.equals(that.members);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * members.hashCode() + value) + precedingCohortFilters;
+  }
+}
@@ -0,0 +1,261 @@
+package com.whiskerlabs.toggle;
+
+import java.nio.LongBuffer;
+import java.util.Collection;
+
+/**
+ * An immutable, compact set of strings, e.g. the account IDs targeted
+ * by a membership filter.
+ *
+ * Members are stored as 64-bit fingerprints in an open-addressed hash
+ * table at most half full, i.e. in at most 16 bytes per member, so a
+ * membership test entails a fingerprint computation and typically a
+ * single probe, and never allocates. Distinct strings share a
+ * fingerprint with probability on the order of {@code 2^-64}, so
+ * {@link #contains} may, with that probability, report a non-member
+ * as a member.
+ *
+ * A set may optionally be fronted by a Bloom filter of 16 bits per
+ * member. For large sets whose table doesn't fit in CPU cache, the
+ * filter rejects nearly all non-members without touching the table.
+ *
+ * @see MembershipFilter
+ */
+public final class MembershipSet {
+  /**
+   * The number of Bloom filter bits allocated per member.
+   */
+  public static final int BLOOM_BITS_PER_MEMBER = 16;
+
+  private static final int BLOOM_HASHES = 7;
+
+  private final int size;
+  private final LongBuffer table;
+  private final LongBuffer bloom;
+  private final int tableMask;
+  private final int bloomMask;
+
+  private MembershipSet(int size, LongBuffer table, LongBuffer bloom) {
+    this.size = size;
+    this.table = table;
+    this.bloom = bloom;
+    this.tableMask = table.limit() - 1;
+    this.bloomMask = (bloom == null) ? 0 : bloom.limit() * 64 - 1;
+  }
+
+  /**
+   * Compiles the argument strings into a {@code MembershipSet} without
+   * a Bloom filter.
+   *
+   * @param members The members of the set.
+   * @return A {@code MembershipSet} containing {@code members}.
+   */
+  public static MembershipSet of(Collection<String> members) {
+    return of(members, false);
+  }
+
+  /**
+   * Compiles the argument strings into a {@code MembershipSet}.
+   *
+   * @param members The members of the set.
+   * @param bloomFilter Whether to front the set with a Bloom filter.
+   * @return A {@code MembershipSet} containing {@code members}.
+   */
+  public static MembershipSet of(Collection<String> members, boolean bloomFilter) {
+    final long[] table = new long[tableSlots(members.size())];
+    final int mask = table.length - 1;
+    int size = 0;
+
+    for (final String member : members) {
+      final long fingerprint = fingerprint(member);
+      int slot = (int) fingerprint & mask;
+
+      while (table[slot] != 0 && table[slot] != fingerprint) {
+        slot = (slot + 1) & mask;
+      }
+
+      if (table[slot] == 0) {
+        table[slot] = fingerprint;
+        size++;
+      }
+    }
+
+    LongBuffer bloom = null;
+
+    if (bloomFilter) {
+      bloom = LongBuffer.wrap(new long[bloomWords(size)]);
+      final int bloomMask = bloom.limit() * 64 - 1;
+
+      for (final long fingerprint : table) {
+        if (fingerprint != 0) {
+          addToBloom(bloom, bloomMask, fingerprint);
+        }
+      }
+    }
+
+    return new MembershipSet(size, LongBuffer.wrap(table), bloom);
+  }
+
+  /**
+   * Reconstructs a {@code MembershipSet} from the buffers returned by
+   * {@link #table} and {@link #bloomFilter}, e.g. views of a
+   * memory-mapped file. The buffers are used in place, not copied.
+   *
+   * @param size The number of members in the set.
+   * @param table A buffer holding the fingerprint table.
+   * @param bloom A buffer holding the Bloom filter, or {@code null}.
+   * @return A {@code MembershipSet} backed by the argument buffers.
+   * @throws IllegalArgumentException If either buffer does not have a
+   *         power-of-two number of elements.
+   */
+  public static MembershipSet wrap(int size, LongBuffer table, LongBuffer bloom) {
+    if (Integer.bitCount(table.limit()) != 1 || size >= table.limit()
+        || (bloom != null && Integer.bitCount(bloom.limit()) != 1)) {
+      throw new IllegalArgumentException("Malformed membership set");
+    }
+
+    return new MembershipSet(size, table, bloom);
+  }
+
+  /**
+   * Reports whether the argument string is a member of this set.
+   *
+   * @param member A string, or {@code null}.
+   * @return {@code true} if {@code member} is a member of this set.
+   */
+  public boolean contains(String member) {
+    if (member == null) {
+      return false;
+    }
+
+    final long fingerprint = fingerprint(member);
+
+    if (bloom != null && !mightContain(fingerprint)) {
+      return false;
+    }
+
+    int slot = (int) fingerprint & tableMask;
+
+    // Bound the probe sequence, as a wrapped table need not have an
+    // empty slot.
+    for (int probes = 0; probes <= tableMask; probes++) {
+      final long entry = table.get(slot);
+
+      if (entry == fingerprint) {
+        return true;
+      } else if (entry == 0) {
+        return false;
+      }
+
+      slot = (slot + 1) & tableMask;
+    }
+
+    return false;
+  }
+
+  /**
+   * @return The number of members in this set.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return A read-only view of the fingerprint table of this set,
+   *         with {@code 0} marking an empty slot.
+   */
+  public LongBuffer table() {
+    return table.asReadOnlyBuffer();
+  }
+
+  /**
+   * @return A read-only view of the Bloom filter of this set, or
+   *         {@code null} if it has none.
+   */
+  public LongBuffer bloomFilter() {
+    return (bloom == null) ? null : bloom.asReadOnlyBuffer();
+  }
+
+  /**
+   * Compares the fingerprint tables and Bloom filters of two sets.
+   *
+   * Table layout depends on the order in which members were added, so
+   * sets with the same members compiled from differently-ordered
+   * collections may compare unequal.
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    } else if (!(other instanceof MembershipSet)) {
+      return false;
+    }
+
+    final MembershipSet that = (MembershipSet) other;
+    return size == that.size
+      && table.equals(that.table)
+      && (bloom == null ? that.bloom == null : bloom.equals(that.bloom));
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * size + table.limit();
+  }
+
+  private boolean mightContain(long fingerprint) {
+    final int h1 = (int) (fingerprint >>> 32);
+    final int h2 = (int) fingerprint | 1;
+
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      final int bit = (h1 + i * h2) & bloomMask;
+
+      if ((bloom.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static void addToBloom(LongBuffer bloom, int bloomMask, long fingerprint) {
+    final int h1 = (int) (fingerprint >>> 32);
+    final int h2 = (int) fingerprint | 1;
+
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      final int bit = (h1 + i * h2) & bloomMask;
+      bloom.put(bit >>> 6, bloom.get(bit >>> 6) | (1L << bit));
+    }
+  }
+
+  // Sized so that the table is at most half full.
+  private static int tableSlots(int members) {
+    return Integer.highestOneBit(Math.max(1, members) * 2 - 1) * 2;
+  }
+
+  private static int bloomWords(int members) {
+    final long bits = Math.max(64L, (long) members * BLOOM_BITS_PER_MEMBER);
+    return (int) (Long.highestOneBit(bits * 2 - 1) >>> 6);
+  }
+
+  /**
+   * Computes the 64-bit FNV-1a hash of the argument string's UTF-16
+   * code units, finalized with the MurmurHash3 mixer. Zero is reserved
+   * to mark empty table slots.
+   */
+  private static long fingerprint(String member) {
+    long hash = 0xCBF29CE484222325L;
+
+    for (int i = 0; i < member.length(); i++) {
+      hash ^= member.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+
+    return (hash == 0) ? 1 : hash;
+  }
+}
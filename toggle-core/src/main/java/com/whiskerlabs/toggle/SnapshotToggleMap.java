@@ -0,0 +1,181 @@
+package com.whiskerlabs.toggle;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link ToggleMap} backed by an immutable {@link ToggleSnapshot}.
+ *
+ * Toggle lookups are {@code O(1)} and toggle tests never consult the
+ * representation from which the snapshot was built.
+ *
+ * Subclasses may replace the backing snapshot via {@link #publish}.
+ * Readers observe either the previous or the new snapshot in its
+ * entirety and never block on a replacement. Subscribed listeners are
+ * notified of the keys which differ between the two snapshots.
+ *
+ * The first call to {@link #keysWithPrefix} indexes the current
+ * snapshot's keys in a {@link ToggleKeyIndex}. Subsequent publishes
+ * update the index with just the keys they add or remove.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class SnapshotToggleMap<T> extends ToggleMap<String, T> {
+  private final List<Runnable> publishListeners = new CopyOnWriteArrayList<>();
+  private final Object keyIndexLock = new Object();
+
+  private volatile ToggleSnapshot<T> snapshot;
+  private volatile ToggleKeyIndex<String> keyIndex = null;
+
+  public SnapshotToggleMap(ToggleSnapshot<T> snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * @return The snapshot backing this toggle map.
+   */
+  public ToggleSnapshot<T> snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Replaces the snapshot backing this toggle map and notifies
+   * subscribed listeners of the keys which changed.
+   *
+   * Publishes are expected not to race, e.g. because subclasses
+   * publish from a single thread or while holding a lock.
+   *
+   * @param snapshot The snapshot to serve subsequent lookups from.
+   */
+  protected void publish(ToggleSnapshot<T> snapshot) {
+    final ToggleSnapshot<T> previous;
+    List<ToggleChange<String>> changes = null;
+
+    // Swap the snapshot and update the key index together, so that an
+    // index built concurrently can't miss the new snapshot.
+    synchronized (keyIndexLock) {
+      previous = this.snapshot;
+
+      if (snapshot == previous) {
+        return;
+      }
+
+      this.snapshot = snapshot;
+
+      if (keyIndex != null) {
+        changes = snapshot.diff(previous);
+        keyIndex.apply(changes);
+      }
+    }
+
+    publishListeners.forEach(Runnable::run);
+
+    if (hasChangeListeners()) {
+      notifyChanges((changes == null) ? snapshot.diff(previous) : changes);
+    }
+  }
+
+  /**
+   * Registers a listener which is run on the publishing thread after
+   * each replacement of the backing snapshot.
+   *
+   * @return A {@link ToggleSubscription} which may be closed to stop
+   *         running {@code listener}.
+   */
+  ToggleSubscription onPublish(Runnable listener) {
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    publishListeners.add(listener);
+
+    return () -> {
+      if (closed.compareAndSet(false, true)) {
+        publishListeners.remove(listener);
+      }
+    };
+  }
+
+  @Override
+  public Toggle<T> apply(String key) {
+    final CompiledToggle<T> toggle = snapshot().get(key);
+
+    if (toggle == null) {
+      throw new ToggleNotFoundException(key);
+    }
+
+    return toggle;
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return snapshot().keySet();
+  }
+
+  /**
+   * Returns the keys with the argument prefix from an index of the
+   * current snapshot, building the index on first use.
+   */
+  @Override
+  public List<String> keysWithPrefix(String prefix) {
+    ToggleKeyIndex<String> index = keyIndex;
+
+    if (index == null) {
+      synchronized (keyIndexLock) {
+        if (keyIndex == null) {
+          keyIndex = new ToggleKeyIndex<>(snapshot.keySet());
+        }
+
+        index = keyIndex;
+      }
+    }
+
+    return index.keysWithPrefix(prefix);
+  }
+
+  /**
+   * Evaluates every toggle in the current snapshot for a single input.
+   *
+   * @param t The toggle input.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return The result of evaluating each key in the current snapshot.
+   */
+  @Override
+  public ToggleEvaluations<String> evaluateAll(T t, String cohort) {
+    final ToggleSnapshot<T> current = snapshot();
+    final List<String> keys = new ArrayList<>(current.keySet());
+    return evaluate(current, keys, t, cohort);
+  }
+
+  /**
+   * Evaluates the toggles identified by each of the argument keys
+   * against a single snapshot, so that the results are consistent
+   * even if the snapshot is replaced during the evaluation.
+   */
+  @Override
+  public ToggleEvaluations<String> evaluateAll(List<? extends String> keys, T t, String cohort) {
+    return evaluate(snapshot(), keys, t, cohort);
+  }
+
+  private static <T> ToggleEvaluations<String> evaluate(
+    ToggleSnapshot<T> snapshot,
+    List<? extends String> keys,
+    T t,
+    String cohort
+  ) {
+    final BitSet results = new BitSet(keys.size());
+
+    for (int ordinal = 0; ordinal < keys.size(); ordinal++) {
+      final CompiledToggle<T> toggle = snapshot.get(keys.get(ordinal));
+
+      if (toggle != null && toggle.test(t, cohort)) {
+        results.set(ordinal);
+      }
+    }
+
+    return new ToggleEvaluations<>(keys, results);
+  }
+}
@@ -1,7 +1,12 @@
 package com.whiskerlabs.toggle;
 
-import java.util.Objects;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Predicate;
 
@@ -28,7 +33,7 @@ public abstract class Toggle<T> implements Predicate<T>, Cohortable<Toggle<T>> {
   public static <T> Toggle<T> alwaysTrue() {
     return new Toggle<T>() {
       @Override
-      protected boolean test(T t, Optional<String> cohortOpt) {
+      public boolean test(T t, String cohort) {
         return true;
       }
     };
@@ -46,7 +51,7 @@ public abstract class Toggle<T> implements Predicate<T>, Cohortable<Toggle<T>> {
   public static <T> Toggle<T> alwaysFalse() {
     return new Toggle<T>() {
       @Override
-      protected boolean test(T t, Optional<String> cohortOpt) {
+      public boolean test(T t, String cohort) {
         return false;
       }
     };
@@ -70,40 +75,349 @@ public abstract class Toggle<T> implements Predicate<T>, Cohortable<Toggle<T>> {
       : ThreadLocalRandom.current().nextInt(10000 / weight) == 0;
   }
 
+  /**
+   * Composes this toggle with a cohort.
+   *
+   * The returned toggle is a thin, immutable wrapper which delegates
+   * to {@link #test(Object, String)}. It may be retained and reused
+   * across tests in order to avoid composing a cohort on each test.
+   */
   @Override
   public Toggle<T> withCohort(String cohort) {
-    final Optional<String> cohortOpt = Optional.of(cohort);
-    final Toggle<T> outer = this;
+    return new CohortToggle<>(this, cohort);
+  }
 
-    return new Toggle<T>() {
-      @Override
-      public boolean test(T t) {
-        return outer.test(t, cohortOpt);
-      }
+  /**
+   * Composes this toggle with several cohorts, e.g. every cohort the
+   * subject of a request belongs to.
+   *
+   * The returned toggle is a thin, immutable wrapper which delegates
+   * to {@link #testCohorts}, and may be retained and reused.
+   *
+   * @param cohorts The cohorts to compose this toggle with.
+   * @return A toggle equivalent to testing this toggle with {@code
+   *         cohorts}.
+   */
+  public Toggle<T> withCohorts(List<String> cohorts) {
+    return new CohortsToggle<>(this, cohorts);
+  }
 
-      @Override
-      protected boolean test(T t, Optional<String> cohortOpt) {
-        return outer.test(t, cohortOpt);
-      }
-    };
+  /**
+   * Composes this toggle with several cohorts.
+   *
+   * @param cohorts The cohorts to compose this toggle with.
+   * @return A toggle equivalent to testing this toggle with {@code
+   *         cohorts}.
+   * @see #withCohorts(List)
+   */
+  public Toggle<T> withCohorts(String... cohorts) {
+    return withCohorts(Collections.unmodifiableList(Arrays.asList(cohorts)));
   }
 
   @Override
   public boolean test(T t) {
-    return test(t, Optional.empty());
+    return test(t, null);
   }
 
   /**
    * Evaluates this predicate on the given argument.
    *
-   * An optional cohort may be provided, in which case the toggle can
-   * be targeted by an applicable toggle filter.
+   * A cohort may be provided, in which case the toggle can be
+   * targeted by an applicable toggle filter. Implementations must not
+   * allocate on this path, as it is evaluated on each toggle test.
    *
    * @param t The input of this toggle.
-   * @param cohortOpt An optional cohort string used to match this
-   *        toggle with an applicable toggle filter.
+   * @param cohort A cohort string used to match this toggle with an
+   *        applicable toggle filter, or {@code null} if no cohort
+   *        applies.
    * @return {@code true} with some probablility defined by the
    *         applicable toggle specification.
    */
-  protected abstract boolean test(T t, Optional<String> cohortOpt);
+  public abstract boolean test(T t, String cohort);
+
+  /**
+   * Evaluates this predicate on the given argument for a subject which
+   * belongs to each of the argument cohorts.
+   *
+   * If the toggle has filters matching more than one of the cohorts,
+   * the filter which appears first in the toggle's specification
+   * applies, whether it is a cohort or a membership filter, just as
+   * the first filter matching a single cohort does.
+   * The order of {@code cohorts} does not matter. The default
+   * implementation, suitable for toggles without filters, tests the
+   * first cohort, if any.
+   *
+   * @param t The input of this toggle.
+   * @param cohorts The cohorts to which the subject belongs.
+   * @return {@code true} with some probablility defined by the
+   *         applicable toggle specification.
+   */
+  public boolean testCohorts(T t, List<String> cohorts) {
+    return test(t, cohorts.isEmpty() ? null : cohorts.get(0));
+  }
+
+  /**
+   * Resolves this toggle for several cohorts into a {@link Predicate}
+   * which may be tested repeatedly, as {@link #resolve(String)} does
+   * for a single cohort.
+   *
+   * @param cohorts The cohorts to which the subject belongs.
+   * @return A predicate equivalent to testing this toggle with {@code
+   *         cohorts}.
+   */
+  public Predicate<T> resolveCohorts(List<String> cohorts) {
+    return t -> testCohorts(t, cohorts);
+  }
+
+  /**
+   * Resolves this toggle for a cohort into a {@link Predicate} which
+   * may be tested repeatedly.
+   *
+   * Resolution performs any work which does not depend on the toggle
+   * input, e.g. looking the toggle up or matching its filters against
+   * the cohort, exactly once. The returned predicate reflects the
+   * state of the toggle at the time of resolution. The default
+   * implementation delegates each test to {@link #test(Object,
+   * String)}.
+   *
+   * @param cohort A cohort string used to match this toggle with an
+   *        applicable toggle filter, or {@code null} if no cohort
+   *        applies.
+   * @return A predicate equivalent to testing this toggle with {@code
+   *         cohort}.
+   */
+  public Predicate<T> resolve(String cohort) {
+    return t -> test(t, cohort);
+  }
+
+  /**
+   * Resolves this toggle into a {@link Predicate} which may be tested
+   * repeatedly, as if by {@link #test(Object)}.
+   *
+   * @return A predicate equivalent to testing this toggle.
+   */
+  public Predicate<T> resolve() {
+    return resolve(null);
+  }
+
+  /**
+   * Tests this toggle against each of the argument inputs.
+   *
+   * @param inputs The inputs to test.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of input {@code i} returned {@code true}.
+   */
+  public BitSet testAll(List<? extends T> inputs) {
+    return evaluate(inputs, resolve());
+  }
+
+  /**
+   * Tests this toggle against each of the argument inputs with a
+   * cohort. The toggle is resolved once for all inputs.
+   *
+   * @param inputs The inputs to test.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of input {@code i} returned {@code true}.
+   */
+  public BitSet testAll(List<? extends T> inputs, String cohort) {
+    return evaluate(inputs, resolve(cohort));
+  }
+
+  /**
+   * Tests this toggle against each of the argument inputs with a
+   * cohort. The toggle is resolved once for all inputs.
+   *
+   * @param inputs The inputs to test.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of input {@code i} returned {@code true}.
+   */
+  public BitSet testAll(T[] inputs, String cohort) {
+    final Predicate<T> predicate = resolve(cohort);
+    return BulkEvaluation.evaluate(inputs.length, i -> predicate.test(inputs[i]));
+  }
+
+  /**
+   * Tests this toggle against each of the argument inputs with a
+   * cohort in parallel on the common {@link ForkJoinPool}.
+   *
+   * @param inputs The inputs to test.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of input {@code i} returned {@code true}.
+   */
+  public BitSet testAllParallel(List<? extends T> inputs, String cohort) {
+    return testAllParallel(inputs, cohort, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Tests this toggle against each of the argument inputs with a
+   * cohort in parallel on the argument {@link ForkJoinPool}.
+   *
+   * The toggle is resolved once, and the resolved predicate is tested
+   * concurrently, so toggles whose {@link #resolve} implementation
+   * returns a predicate which is not thread-safe must not be tested
+   * in parallel.
+   *
+   * @param inputs The inputs to test.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @param pool The pool on which to run tests.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of input {@code i} returned {@code true}.
+   */
+  public BitSet testAllParallel(List<? extends T> inputs, String cohort, ForkJoinPool pool) {
+    final List<? extends T> indexed =
+      (inputs instanceof RandomAccess) ? inputs : new ArrayList<>(inputs);
+    final Predicate<T> predicate = resolve(cohort);
+
+    return BulkEvaluation.evaluateParallel(
+      indexed.size(),
+      i -> predicate.test(indexed.get(i)),
+      pool
+    );
+  }
+
+  /**
+   * Tests the argument toggle against each of the argument subject
+   * IDs with a cohort. The toggle is resolved once for all inputs.
+   *
+   * @param toggle A toggle whose inputs are subject IDs.
+   * @param subjectIds The subject IDs to test.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return A {@link BitSet} whose bit {@code i} is set if the test
+   *         of subject ID {@code i} returned {@code true}.
+   */
+  public static BitSet testAll(Toggle<Long> toggle, long[] subjectIds, String cohort) {
+    return LongToggle.of(toggle).testAll(subjectIds, cohort);
+  }
+
+  private static <T> BitSet evaluate(List<? extends T> inputs, Predicate<T> predicate) {
+    if (inputs instanceof RandomAccess) {
+      return BulkEvaluation.evaluate(inputs.size(), i -> predicate.test(inputs.get(i)));
+    }
+
+    final BitSet results = new BitSet(inputs.size());
+    int i = 0;
+
+    for (final T input : inputs) {
+      if (predicate.test(input)) {
+        results.set(i);
+      }
+      i++;
+    }
+
+    return results;
+  }
+
+  /**
+   * A {@link Toggle} composed with a fixed cohort.
+   */
+  private static final class CohortToggle<T> extends Toggle<T> {
+    private final Toggle<T> outer;
+    private final String cohort;
+
+    private CohortToggle(Toggle<T> outer, String cohort) {
+      this.outer = outer;
+      this.cohort = cohort;
+    }
+
+    @Override
+    public Toggle<T> withCohort(String cohort) {
+      return outer.withCohort(cohort);
+    }
+
+    @Override
+    public boolean test(T t) {
+      return outer.test(t, cohort);
+    }
+
+    @Override
+    public boolean test(T t, String cohort) {
+      return outer.test(t, cohort);
+    }
+
+    @Override
+    public Predicate<T> resolve() {
+      return outer.resolve(cohort);
+    }
+
+    @Override
+    public Predicate<T> resolve(String cohort) {
+      return outer.resolve(cohort);
+    }
+
+    @Override
+    public Toggle<T> withCohorts(List<String> cohorts) {
+      return outer.withCohorts(cohorts);
+    }
+
+    @Override
+    public boolean testCohorts(T t, List<String> cohorts) {
+      return outer.testCohorts(t, cohorts);
+    }
+
+    @Override
+    public Predicate<T> resolveCohorts(List<String> cohorts) {
+      return outer.resolveCohorts(cohorts);
+    }
+  }
+
+  /**
+   * A {@link Toggle} composed with a fixed list of cohorts.
+   */
+  private static final class CohortsToggle<T> extends Toggle<T> {
+    private final Toggle<T> outer;
+    private final List<String> cohorts;
+
+    private CohortsToggle(Toggle<T> outer, List<String> cohorts) {
+      this.outer = outer;
+      this.cohorts = cohorts;
+    }
+
+    @Override
+    public Toggle<T> withCohort(String cohort) {
+      return outer.withCohort(cohort);
+    }
+
+    @Override
+    public Toggle<T> withCohorts(List<String> cohorts) {
+      return outer.withCohorts(cohorts);
+    }
+
+    @Override
+    public boolean test(T t) {
+      return outer.testCohorts(t, cohorts);
+    }
+
+    @Override
+    public boolean test(T t, String cohort) {
+      return outer.test(t, cohort);
+    }
+
+    @Override
+    public boolean testCohorts(T t, List<String> cohorts) {
+      return outer.testCohorts(t, cohorts);
+    }
+
+    @Override
+    public Predicate<T> resolve() {
+      return outer.resolveCohorts(cohorts);
+    }
+
+    @Override
+    public Predicate<T> resolve(String cohort) {
+      return outer.resolve(cohort);
+    }
+
+    @Override
+    public Predicate<T> resolveCohorts(List<String> cohorts) {
+      return outer.resolveCohorts(cohorts);
+    }
+  }
 }
@@ -0,0 +1,83 @@
+package com.whiskerlabs.toggle;
+
+/**
+ * A change to the toggle identified by a single key, as observed by a
+ * {@link ToggleMap} in its backing store.
+ *
+ * @param <K> The key type of a {@code ToggleMap}.
+ */
+public final class ToggleChange<K> {
+  /**
+   * The kind of a {@link ToggleChange}.
+   */
+  public enum Type {
+    /** A toggle was defined under a key which previously had none. */
+    ADDED,
+    /** The specification of an existing toggle changed. */
+    UPDATED,
+    /** A toggle was deleted. */
+    REMOVED
+  }
+
+  private final K key;
+  private final Type type;
+
+  /**
+   * Constructs a {@code ToggleChange}.
+   *
+   * @param key The key of the changed toggle.
+   * @param type The kind of change.
+   */
+  public ToggleChange(K key, Type type) {
+    this.key = key;
+    this.type = type;
+  }
+
+  public static <K> ToggleChange<K> added(K key) {
+    return new ToggleChange<>(key, Type.ADDED);
+  }
+
+  public static <K> ToggleChange<K> updated(K key) {
+    return new ToggleChange<>(key, Type.UPDATED);
+  }
+
+  public static <K> ToggleChange<K> removed(K key) {
+    return new ToggleChange<>(key, Type.REMOVED);
+  }
+
+  /**
+   * @return The key of the changed toggle.
+   */
+  public K key() {
+    return key;
+  }
+
+  /**
+   * @return The kind of change.
+   */
+  public Type type() {
+    return type;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    } else if (!(other instanceof ToggleChange)) {
+      return false;
+    }
+
+    final ToggleChange<?> that = (ToggleChange<?>) other;
+    return key.equals(that.key) && type == that.type;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * key.hashCode() + type.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + key;
+  }
+}
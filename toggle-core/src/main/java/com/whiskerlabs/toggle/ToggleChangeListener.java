@@ -0,0 +1,26 @@
+package com.whiskerlabs.toggle;
+
+import java.util.List;
+
+/**
+ * A listener notified of changes to the toggles of a {@link
+ * ToggleMap}.
+ *
+ * @param <K> The key type of a {@code ToggleMap}.
+ *
+ * @see ToggleMap#subscribe
+ */
+@FunctionalInterface
+public interface ToggleChangeListener<K> {
+  /**
+   * Handles a batch of changes observed together, e.g. by a single
+   * reload of the backing store. Each key appears at most once per
+   * batch.
+   *
+   * Listeners are run on the thread which observed the changes, and
+   * so should not block.
+   *
+   * @param changes The changes observed, in no particular order.
+   */
+  void onChange(List<ToggleChange<K>> changes);
+}
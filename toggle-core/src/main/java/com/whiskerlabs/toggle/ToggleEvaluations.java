@@ -0,0 +1,96 @@
+package com.whiskerlabs.toggle;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of evaluating a list of toggles for a single input.
+ *
+ * Results are stored in a {@link BitSet} indexed by the ordinal of
+ * each key, i.e. its position in the list of keys evaluated. Keys
+ * which identify no toggle evaluate to {@code false}.
+ *
+ * @param <K> The key type of a {@code ToggleMap}.
+ */
+public final class ToggleEvaluations<K> {
+  private final List<K> keys;
+  private final BitSet results;
+
+  /**
+   * Constructs a {@code ToggleEvaluations}.
+   *
+   * @param keys The keys evaluated, in ordinal order.
+   * @param results The result of evaluating each key, indexed by
+   *        ordinal.
+   */
+  public ToggleEvaluations(List<? extends K> keys, BitSet results) {
+    this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+    this.results = (BitSet) results.clone();
+  }
+
+  /**
+   * @return An unmodifiable list of the keys evaluated, in ordinal
+   *         order.
+   */
+  public List<K> keys() {
+    return keys;
+  }
+
+  /**
+   * @return The number of keys evaluated.
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * @param ordinal The ordinal of an evaluated key.
+   * @return The result of evaluating the key.
+   */
+  public boolean get(int ordinal) {
+    if (ordinal < 0 || ordinal >= keys.size()) {
+      throw new IndexOutOfBoundsException("Ordinal out of range: " + ordinal);
+    }
+
+    return results.get(ordinal);
+  }
+
+  /**
+   * Returns the result of evaluating the argument key.
+   *
+   * This entails a linear search of the evaluated keys; callers
+   * evaluating a fixed list of keys should prefer {@link #get(int)}.
+   *
+   * @param key An evaluated key.
+   * @return The result of evaluating {@code key}, or {@code false} if
+   *         {@code key} was not evaluated.
+   */
+  public boolean isEnabled(K key) {
+    final int ordinal = keys.indexOf(key);
+    return ordinal >= 0 && results.get(ordinal);
+  }
+
+  /**
+   * @return A copy of the results, indexed by ordinal.
+   */
+  public BitSet toBitSet() {
+    return (BitSet) results.clone();
+  }
+
+  /**
+   * @return An unmodifiable map from each evaluated key to its result.
+   */
+  public Map<K, Boolean> toMap() {
+    final Map<K, Boolean> builder = new HashMap<>();
+
+    for (int ordinal = 0; ordinal < keys.size(); ordinal++) {
+      builder.put(keys.get(ordinal), results.get(ordinal));
+    }
+
+    return Collections.unmodifiableMap(builder);
+  }
+}
@@ -0,0 +1,264 @@
+package com.whiskerlabs.toggle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An index of toggle keys supporting prefix queries, e.g. listing
+ * every toggle in the {@code /feature/} namespace.
+ *
+ * Keys are indexed by their string form, split into path segments
+ * after each {@code '/'}, in a trie whose children are kept sorted.
+ * Looking up the keys with a given prefix therefore visits only the
+ * path to the prefix and the keys below it, rather than every key in
+ * the index, and returns them in lexicographic order of their string
+ * forms. Prefixes need not end on a segment boundary.
+ *
+ * The index is updated incrementally, key by key, e.g. from a {@link
+ * ToggleMap}'s {@link ToggleChange change notifications}. Updates are
+ * serialized, while queries never block and observe each concurrent
+ * update either in its entirety or not at all.
+ *
+ * @param <K> The key type of a {@code ToggleMap}.
+ */
+public final class ToggleKeyIndex<K> {
+  private static final char SEPARATOR = '/';
+
+  private final Node<K> root = new Node<>(true);
+  private volatile int size = 0;
+
+  /**
+   * Constructs an empty {@code ToggleKeyIndex}.
+   */
+  public ToggleKeyIndex() {
+  }
+
+  /**
+   * Constructs a {@code ToggleKeyIndex} containing the argument keys.
+   *
+   * @param keys The keys to index.
+   */
+  public ToggleKeyIndex(Collection<? extends K> keys) {
+    keys.forEach(this::add);
+  }
+
+  /**
+   * Adds a key to this index.
+   *
+   * @param key The key to add.
+   * @return {@code true} if the index did not already contain {@code
+   *         key}.
+   */
+  public synchronized boolean add(K key) {
+    final String path = String.valueOf(key);
+    Node<K> node = root;
+    int start = 0;
+
+    do {
+      final int end = segmentEnd(path, start);
+      final String segment = path.substring(start, end);
+      Node<K> child = node.children.get(segment);
+
+      if (child == null) {
+        child = new Node<>(end > start && path.charAt(end - 1) == SEPARATOR);
+        node.children.put(segment, child);
+      }
+
+      node = child;
+      start = end;
+    } while (start < path.length());
+
+    if (node.key != null) {
+      return false;
+    }
+
+    node.key = key;
+    size++;
+    return true;
+  }
+
+  /**
+   * Removes a key from this index.
+   *
+   * @param key The key to remove.
+   * @return {@code true} if the index contained {@code key}.
+   */
+  public synchronized boolean remove(K key) {
+    final String path = String.valueOf(key);
+    final List<Node<K>> ancestors = new ArrayList<>();
+    final List<String> segments = new ArrayList<>();
+    Node<K> node = root;
+    int start = 0;
+
+    do {
+      final int end = segmentEnd(path, start);
+      final String segment = path.substring(start, end);
+      final Node<K> child = (node.children == null) ? null : node.children.get(segment);
+
+      if (child == null) {
+        return false;
+      }
+
+      ancestors.add(node);
+      segments.add(segment);
+      node = child;
+      start = end;
+    } while (start < path.length());
+
+    if (node.key == null) {
+      return false;
+    }
+
+    node.key = null;
+    size--;
+
+    // Prune nodes which no longer lead to any key.
+    for (int i = ancestors.size() - 1; i >= 0 && node.isEmpty(); i--) {
+      node = ancestors.get(i);
+      node.children.remove(segments.get(i));
+    }
+
+    return true;
+  }
+
+  /**
+   * Applies a batch of change notifications to this index, adding
+   * added keys and removing removed ones.
+   *
+   * @param changes The changes to apply.
+   */
+  public synchronized void apply(List<ToggleChange<K>> changes) {
+    for (final ToggleChange<K> change : changes) {
+      if (change.type() == ToggleChange.Type.ADDED) {
+        add(change.key());
+      } else if (change.type() == ToggleChange.Type.REMOVED) {
+        remove(change.key());
+      }
+    }
+  }
+
+  /**
+   * Reports whether this index contains the argument key.
+   *
+   * @param key A key.
+   * @return {@code true} if this index contains {@code key}.
+   */
+  public boolean contains(K key) {
+    final Node<K> node = find(String.valueOf(key));
+    return node != null && node.key != null;
+  }
+
+  /**
+   * Returns the keys whose string form starts with the argument
+   * prefix.
+   *
+   * @param prefix A key prefix, e.g. {@code "/feature/"}. The empty
+   *        prefix matches every key.
+   * @return An unmodifiable list of the matching keys, in
+   *         lexicographic order of their string forms.
+   */
+  public List<K> keysWithPrefix(String prefix) {
+    final List<K> keys = new ArrayList<>();
+    Node<K> node = root;
+    int start = 0;
+
+    // Descend through the whole segments of the prefix.
+    while (start < prefix.length()) {
+      final int end = segmentEnd(prefix, start);
+
+      if (end == prefix.length() && prefix.charAt(end - 1) != SEPARATOR) {
+        break;
+      }
+
+      node = (node.children == null) ? null : node.children.get(prefix.substring(start, end));
+
+      if (node == null) {
+        return Collections.emptyList();
+      }
+
+      start = end;
+    }
+
+    if (start == prefix.length()) {
+      collect(node, keys);
+    } else {
+      // The prefix ends partway through a segment, so collect every
+      // child whose segment starts with the remainder.
+      final String partial = prefix.substring(start);
+
+      if (node.children != null) {
+        for (final Map.Entry<String, Node<K>> child : node.children.tailMap(partial).entrySet()) {
+          if (!child.getKey().startsWith(partial)) {
+            break;
+          }
+
+          collect(child.getValue(), keys);
+        }
+      }
+    }
+
+    return Collections.unmodifiableList(keys);
+  }
+
+  /**
+   * @return The number of keys in this index.
+   */
+  public int size() {
+    return size;
+  }
+
+  private Node<K> find(String path) {
+    Node<K> node = root;
+    int start = 0;
+
+    do {
+      final int end = segmentEnd(path, start);
+      node = (node.children == null) ? null : node.children.get(path.substring(start, end));
+      start = end;
+    } while (node != null && start < path.length());
+
+    return node;
+  }
+
+  // A segment runs up to and including the next separator, or else to
+  // the end of the path. Segments ending in a separator are the only
+  // ones which may have children, so a depth-first walk over sorted
+  // children visits keys in lexicographic order.
+  private static int segmentEnd(String path, int start) {
+    final int separator = path.indexOf(SEPARATOR, start);
+    return (separator < 0) ? path.length() : separator + 1;
+  }
+
+  private static <K> void collect(Node<K> node, List<K> keys) {
+    final K key = node.key;
+
+    if (key != null) {
+      keys.add(key);
+    }
+
+    if (node.children != null) {
+      for (final Node<K> child : node.children.values()) {
+        collect(child, keys);
+      }
+    }
+  }
+
+  private static final class Node<K> {
+    // Null for leaf segments, which never have children.
+    private final NavigableMap<String, Node<K>> children;
+    private volatile K key;
+
+    private Node(boolean branch) {
+      this.children = branch ? new ConcurrentSkipListMap<>() : null;
+    }
+
+    private boolean isEmpty() {
+      return key == null && (children == null || children.isEmpty());
+    }
+  }
+}
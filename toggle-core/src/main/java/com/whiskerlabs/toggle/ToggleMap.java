@@ -1,6 +1,18 @@
 package com.whiskerlabs.toggle;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
@@ -10,12 +22,20 @@ import java.util.function.Function;
  * A {@code ToggleMap} serves as a function for looking up toggle
  * objects by their canonical keys.
  *
+ * Implementations which observe changes to their backing store, e.g.
+ * by watching a file or polling a table, notify the listeners
+ * registered with {@link #subscribe} of the keys which changed. By
+ * default, a {@code ToggleMap} never notifies its listeners.
+ *
  * @param <K> The key type of a {@code ToggleMap}.
  *
  * @param <T> The toggle input type. The toggle is applied to
  *            instances of type {@code T}.
  */
 public abstract class ToggleMap<K, T> implements Function<K, Toggle<T>> {
+  private final List<ToggleChangeListener<K>> changeListeners = new CopyOnWriteArrayList<>();
+  private final LongAdder listenerFailures = new LongAdder();
+
   /**
    * Returns a {@link Set} view of the keys (i.e. the feature names or
    * paths) contained in this toggle map.
@@ -23,4 +43,218 @@ public abstract class ToggleMap<K, T> implements Function<K, Toggle<T>> {
    * @return A set view of the keys contained in this toggle map
    */
   public abstract Set<K> keySet();
+
+  /**
+   * Looks up the toggle identified by the argument key as a {@link
+   * LongToggle}, which tests primitive subject IDs without boxing them.
+   *
+   * This is the hook behind {@link LongToggle#lookUp}, which only
+   * accepts toggle maps whose input type {@code T} is {@code Long};
+   * it is never called on any other map. The default implementation
+   * returns {@link #asLongToggle} the result of {@link #apply}, which
+   * is free of allocation when lookups return {@link CompiledToggle
+   * CompiledToggles}, as file-, snapshot- and DynamoDB-backed maps do.
+   * Maps which wrap another map should override it to delegate to
+   * {@link #applyLong(ToggleMap, Object)}, so that the wrapped map's
+   * implementation is used.
+   *
+   * @param key The key of the toggle to look up.
+   * @return A {@code LongToggle} equivalent to {@code apply(key)}.
+   * @throws java.util.NoSuchElementException If {@code key} identifies
+   *         no toggle.
+   */
+  protected LongToggle applyLong(K key) {
+    return asLongToggle(apply(key));
+  }
+
+  /**
+   * Looks up the toggle identified by the argument key in another
+   * toggle map as a {@link LongToggle}, as {@link #applyLong(Object)}
+   * does. Allows maps which wrap another map to call its
+   * implementation.
+   *
+   * @param <K> The key type of a {@code ToggleMap}.
+   * @param toggleMap A toggle map, whose input type must be {@code
+   *        Long} if this map's is.
+   * @param key The key of the toggle to look up.
+   * @return A {@code LongToggle} equivalent to {@code
+   *         toggleMap.apply(key)}.
+   */
+  protected static <K> LongToggle applyLong(ToggleMap<K, ?> toggleMap, K key) {
+    return toggleMap.applyLong(key);
+  }
+
+  /**
+   * Returns a {@link LongToggle} view of a toggle produced by a map
+   * being applied through {@link #applyLong(Object)}, whose input type
+   * is therefore {@code Long}.
+   *
+   * @param toggle A toggle whose input type is {@code Long}.
+   * @return A {@code LongToggle} equivalent to {@code toggle}.
+   */
+  @SuppressWarnings("unchecked")
+  protected static LongToggle asLongToggle(Toggle<?> toggle) {
+    return LongToggle.of((Toggle<Long>) toggle);
+  }
+
+  /**
+   * Returns the keys whose string form starts with the argument
+   * prefix, e.g. every toggle in the {@code /feature/} namespace.
+   *
+   * The default implementation filters {@link #keySet}, which may
+   * entail reading the whole backing store. Implementations which
+   * can maintain a {@link ToggleKeyIndex} are encouraged to override
+   * it to answer from the index instead.
+   *
+   * @param prefix A key prefix. The empty prefix matches every key.
+   * @return An unmodifiable list of the matching keys, in
+   *         lexicographic order of their string forms.
+   */
+  public List<K> keysWithPrefix(String prefix) {
+    final List<K> keys = new ArrayList<>();
+
+    for (final K key : keySet()) {
+      if (String.valueOf(key).startsWith(prefix)) {
+        keys.add(key);
+      }
+    }
+
+    keys.sort(Comparator.comparing(String::valueOf));
+    return Collections.unmodifiableList(keys);
+  }
+
+  /**
+   * Looks up the toggles identified by each of the argument keys.
+   *
+   * Keys which identify no toggle are absent from the returned
+   * map. The default implementation applies this toggle map to each
+   * key in turn. Implementations backed by a remote store are
+   * encouraged to override it with a bulk lookup.
+   *
+   * @param keys The keys of the toggles to look up.
+   * @return An unmodifiable map from each key which identifies a
+   *         toggle to that toggle.
+   */
+  public Map<K, Toggle<T>> getAll(Collection<? extends K> keys) {
+    final Map<K, Toggle<T>> builder = new HashMap<>();
+
+    for (final K key : keys) {
+      try {
+        builder.put(key, apply(key));
+      } catch (NoSuchElementException err) {
+        // Omit keys which identify no toggle.
+      }
+    }
+
+    return Collections.unmodifiableMap(builder);
+  }
+
+  /**
+   * Evaluates every toggle in this toggle map for a single input.
+   *
+   * @param t The toggle input.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return The result of evaluating each key in {@link #keySet}, in
+   *         that set's iteration order.
+   */
+  public ToggleEvaluations<K> evaluateAll(T t, String cohort) {
+    return evaluateAll(new ArrayList<>(keySet()), t, cohort);
+  }
+
+  /**
+   * Evaluates the toggles identified by each of the argument keys for
+   * a single input.
+   *
+   * Keys which identify no toggle evaluate to {@code false}. The
+   * default implementation looks the toggles up with {@link #getAll}
+   * and tests each in turn. Implementations are encouraged to
+   * override it to evaluate every toggle against a single, consistent
+   * view of the toggle specification.
+   *
+   * @param keys The keys of the toggles to evaluate. The ordinal of
+   *        each key in the result is its position in this list.
+   * @param t The toggle input.
+   * @param cohort A cohort string, or {@code null} if no cohort
+   *        applies.
+   * @return The result of evaluating each key.
+   */
+  public ToggleEvaluations<K> evaluateAll(List<? extends K> keys, T t, String cohort) {
+    final Map<K, Toggle<T>> toggles = getAll(keys);
+    final BitSet results = new BitSet(keys.size());
+
+    for (int ordinal = 0; ordinal < keys.size(); ordinal++) {
+      final Toggle<T> toggle = toggles.get(keys.get(ordinal));
+
+      if (toggle != null && toggle.test(t, cohort)) {
+        results.set(ordinal);
+      }
+    }
+
+    return new ToggleEvaluations<>(keys, results);
+  }
+
+  /**
+   * Registers a listener to be notified of changes to the toggles of
+   * this toggle map.
+   *
+   * @param listener The listener to notify.
+   * @return A {@link ToggleSubscription} which may be closed to stop
+   *         notifying {@code listener}.
+   */
+  public ToggleSubscription subscribe(ToggleChangeListener<K> listener) {
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    changeListeners.add(listener);
+
+    return () -> {
+      if (closed.compareAndSet(false, true)) {
+        changeListeners.remove(listener);
+      }
+    };
+  }
+
+  /**
+   * @return Whether any listeners are subscribed to this toggle map,
+   *         so that implementations may skip computing changes which
+   *         nobody would be notified of.
+   */
+  protected boolean hasChangeListeners() {
+    return !changeListeners.isEmpty();
+  }
+
+  /**
+   * Notifies every subscribed listener of the argument changes on the
+   * calling thread. A listener which throws does not prevent the
+   * remaining listeners from being notified; the failure is counted in
+   * {@link #listenerFailureCount()}.
+   *
+   * @param changes The changes observed. If empty, no listener is
+   *        notified.
+   */
+  protected void notifyChanges(List<ToggleChange<K>> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+
+    final List<ToggleChange<K>> unmodifiableChanges = Collections.unmodifiableList(changes);
+
+    for (final ToggleChangeListener<K> listener : changeListeners) {
+      try {
+        listener.onChange(unmodifiableChanges);
+      } catch (RuntimeException err) {
+        // Don't let one listener starve the others, or the thread which
+        // observed the changes, but count the failure.
+        listenerFailures.increment();
+      }
+    }
+  }
+
+  /**
+   * @return The number of times a subscribed listener threw while
+   *         being notified of changes. A listener which throws may
+   *         have missed the changes, e.g. leaving a cache stale.
+   */
+  public long listenerFailureCount() {
+    return listenerFailures.sum();
+  }
 }
@@ -0,0 +1,43 @@
+package com.whiskerlabs.toggle;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Thrown by a {@link ToggleMap} lookup when the backing store is
+ * consulted successfully but defines no toggle for the key.
+ *
+ * Unlike a plain {@link NoSuchElementException}, which may also signal
+ * that the backing store could not be consulted, this exception is a
+ * definitive miss and may be cached. It neither captures a stack trace
+ * nor builds its message until asked, so throwing it costs no more
+ * than allocating it.
+ */
+public class ToggleNotFoundException extends NoSuchElementException {
+  private static final long serialVersionUID = 1L;
+
+  private final transient Object key;
+
+  /**
+   * @param key The key which identifies no toggle.
+   */
+  public ToggleNotFoundException(Object key) {
+    this.key = key;
+  }
+
+  /**
+   * @return The key which identifies no toggle.
+   */
+  public Object key() {
+    return key;
+  }
+
+  @Override
+  public String getMessage() {
+    return Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key;
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
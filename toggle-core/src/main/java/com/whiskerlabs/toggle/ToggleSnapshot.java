@@ -0,0 +1,155 @@
+package com.whiskerlabs.toggle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, hash-indexed collection of {@link CompiledToggle
+ * CompiledToggles}.
+ *
+ * A {@code ToggleSnapshot} captures the state of a toggle
+ * specification at a single point in time. Looking up a toggle by
+ * key is {@code O(1)}.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public final class ToggleSnapshot<T> {
+  private static final ToggleSnapshot<?> EMPTY =
+    new ToggleSnapshot<>(Collections.emptyMap());
+
+  private final Map<String, CompiledToggle<T>> toggles;
+
+  private ToggleSnapshot(Map<String, CompiledToggle<T>> toggles) {
+    this.toggles = toggles;
+  }
+
+  /**
+   * Returns a {@code ToggleSnapshot} containing no toggles.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @return An empty {@code ToggleSnapshot}.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ToggleSnapshot<T> empty() {
+    return (ToggleSnapshot<T>) EMPTY;
+  }
+
+  /**
+   * Constructs a {@code ToggleSnapshot} from a collection of toggles.
+   *
+   * If more than one toggle shares a key, the first one encountered
+   * wins.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param toggles The toggles to index.
+   * @return A {@code ToggleSnapshot} indexing {@code toggles} by key.
+   */
+  public static <T> ToggleSnapshot<T> of(Collection<CompiledToggle<T>> toggles) {
+    final Map<String, CompiledToggle<T>> builder = new HashMap<>();
+
+    for (final CompiledToggle<T> toggle : toggles) {
+      builder.putIfAbsent(toggle.key(), toggle);
+    }
+
+    return new ToggleSnapshot<>(Collections.unmodifiableMap(builder));
+  }
+
+  /**
+   * Returns a copy of this snapshot in which the argument toggles
+   * are added, replacing any toggles which share their keys.
+   *
+   * @param updated The toggles to add or replace.
+   * @return A new {@code ToggleSnapshot} reflecting {@code updated}.
+   */
+  public ToggleSnapshot<T> with(Collection<CompiledToggle<T>> updated) {
+    if (updated.isEmpty()) {
+      return this;
+    }
+
+    final Map<String, CompiledToggle<T>> builder = new HashMap<>(toggles);
+
+    for (final CompiledToggle<T> toggle : updated) {
+      builder.put(toggle.key(), toggle);
+    }
+
+    return new ToggleSnapshot<>(Collections.unmodifiableMap(builder));
+  }
+
+  /**
+   * Returns the toggle identified by the argument key.
+   *
+   * @param key A toggle key.
+   * @return The toggle identified by {@code key}, or {@code null} if
+   *         this snapshot contains no such toggle.
+   */
+  public CompiledToggle<T> get(String key) {
+    return toggles.get(key);
+  }
+
+  /**
+   * @return An unmodifiable set of the keys contained in this snapshot.
+   */
+  public Set<String> keySet() {
+    return toggles.keySet();
+  }
+
+  /**
+   * @return An unmodifiable collection of the toggles contained in
+   *         this snapshot.
+   */
+  public Collection<CompiledToggle<T>> toggles() {
+    return toggles.values();
+  }
+
+  /**
+   * @return The number of toggles contained in this snapshot.
+   */
+  public int size() {
+    return toggles.size();
+  }
+
+  /**
+   * Computes the changes which turn the argument snapshot into this
+   * one.
+   *
+   * A toggle present in both snapshots is reported as updated only if
+   * its specification differs, per {@link CompiledToggle#equals}, so
+   * that re-reading an unchanged backing store reports no changes.
+   *
+   * @param previous The snapshot to compare against.
+   * @return The keys added, updated or removed since {@code previous}.
+   */
+  public List<ToggleChange<String>> diff(ToggleSnapshot<T> previous) {
+    final List<ToggleChange<String>> changes = new ArrayList<>();
+
+    if (previous == this) {
+      return changes;
+    }
+
+    for (final CompiledToggle<T> toggle : toggles.values()) {
+      final CompiledToggle<T> previousToggle = previous.toggles.get(toggle.key());
+
+      if (previousToggle == null) {
+        changes.add(ToggleChange.added(toggle.key()));
+      } else if (!previousToggle.equals(toggle)) {
+        changes.add(ToggleChange.updated(toggle.key()));
+      }
+    }
+
+    for (final String key : previous.toggles.keySet()) {
+      if (!toggles.containsKey(key)) {
+        changes.add(ToggleChange.removed(key));
+      }
+    }
+
+    return changes;
+  }
+}
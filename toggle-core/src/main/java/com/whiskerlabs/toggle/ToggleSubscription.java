@@ -0,0 +1,16 @@
+package com.whiskerlabs.toggle;
+
+/**
+ * A handle to a listener registered with a toggle map, e.g. a {@link
+ * ToggleChangeListener} registered with {@link ToggleMap#subscribe},
+ * which may be closed to stop notifying the listener.
+ */
+@FunctionalInterface
+public interface ToggleSubscription extends AutoCloseable {
+  /**
+   * Stops notifying the listener. Closing a subscription more than
+   * once has no further effect.
+   */
+  @Override
+  void close();
+}
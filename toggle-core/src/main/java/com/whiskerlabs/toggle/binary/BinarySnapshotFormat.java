@@ -0,0 +1,95 @@
+package com.whiskerlabs.toggle.binary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and functions shared by readers and writers of binary
+ * toggle snapshots.
+ *
+ * A binary snapshot is laid out as follows, with all integers
+ * big-endian:
+ *
+ * <pre>
+ * header:  int magic, int version, int toggleCount, int slotCount
+ * index:   int[slotCount] record offsets, 0 marking an empty slot
+ * records: int keyLength, byte[keyLength] key (UTF-8), int value,
+ *          int cohortCount,
+ *          (int cohortLength, byte[cohortLength] cohort (UTF-8),
+ *           int cohortValue)[cohortCount],
+ *          int membershipCount,
+ *          (int membershipValue, int precedingCohortFilters,
+ *           int memberCount, int tableSlots, int bloomWords,
+ *           long[tableSlots] table,
+ *           long[bloomWords] bloom)[membershipCount]
+ * </pre>
+ *
+ * The index is an open-addressed hash table of power-of-two size,
+ * keyed by the FNV-1a hash of each toggle key's UTF-8 bytes and probed
+ * linearly.
+ */
+final class BinarySnapshotFormat {
+  static final int MAGIC = 0x54474C42; // "TGLB"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 16;
+
+  private BinarySnapshotFormat() { /* singleton */ }
+
+  static int hash(byte[] bytes) {
+    int hash = 0x811C9DC5;
+
+    for (final byte b : bytes) {
+      hash ^= (b & 0xFF);
+      hash *= 0x01000193;
+    }
+
+    return hash;
+  }
+
+  /**
+   * Computes the same hash as {@link #hash(byte[])} of the UTF-8
+   * encoding of the argument string, without encoding ASCII strings.
+   */
+  static int hash(String string) {
+    int hash = 0x811C9DC5;
+
+    for (int i = 0; i < string.length(); i++) {
+      final char c = string.charAt(i);
+
+      if (c >= 0x80) {
+        return hash(string.getBytes(StandardCharsets.UTF_8));
+      }
+
+      hash ^= c;
+      hash *= 0x01000193;
+    }
+
+    return hash;
+  }
+
+  static int slotCount(int toggleCount) {
+    return Integer.highestOneBit(Math.max(1, toggleCount) * 4 - 1);
+  }
+
+  static int indexOffset(int slot) {
+    return HEADER_BYTES + slot * 4;
+  }
+
+  /**
+   * Reports whether the UTF-8 string at the argument offset of the
+   * buffer, preceded by its length, equals the argument bytes.
+   */
+  static boolean bytesEqual(ByteBuffer buffer, int offset, byte[] bytes) {
+    if (buffer.getInt(offset) != bytes.length) {
+      return false;
+    }
+
+    for (int i = 0; i < bytes.length; i++) {
+      if (buffer.get(offset + 4 + i) != bytes[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
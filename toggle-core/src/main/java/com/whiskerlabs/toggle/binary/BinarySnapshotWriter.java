@@ -0,0 +1,158 @@
+package com.whiskerlabs.toggle.binary;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Writes {@link ToggleSnapshot ToggleSnapshots} in the binary format
+ * read by {@link MappedToggleMap}.
+ */
+public class BinarySnapshotWriter {
+  private BinarySnapshotWriter() { /* singleton */ }
+
+  /**
+   * Writes the argument snapshot to a file, replacing any existing
+   * file.
+   *
+   * The snapshot is written to a temporary file in the same directory
+   * and then moved into place, so readers never observe a partially
+   * written file, and processes which have already mapped the previous
+   * file continue to read it undisturbed.
+   *
+   * @param snapshot The snapshot to write.
+   * @param path The path of the file to write.
+   * @throws IOException If the file cannot be written.
+   */
+  public static void write(ToggleSnapshot<?> snapshot, Path path) throws IOException {
+    final Path absolutePath = path.toAbsolutePath();
+    final Path temporaryPath = Files.createTempFile(
+      absolutePath.getParent(),
+      absolutePath.getFileName().toString(),
+      ".tmp"
+    );
+
+    try {
+      try (final FileChannel channel =
+             FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+        final ByteBuffer buffer = encode(snapshot);
+
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+
+        channel.force(true);
+      }
+
+      Files.move(
+        temporaryPath,
+        absolutePath,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE
+      );
+    } finally {
+      Files.deleteIfExists(temporaryPath);
+    }
+  }
+
+  /**
+   * Encodes the argument snapshot in binary snapshot format.
+   *
+   * @param snapshot The snapshot to encode.
+   * @return A buffer containing the encoded snapshot, positioned at
+   *         its start.
+   */
+  public static ByteBuffer encode(ToggleSnapshot<?> snapshot) {
+    final int slotCount = BinarySnapshotFormat.slotCount(snapshot.size());
+    final int recordsOffset = BinarySnapshotFormat.indexOffset(slotCount);
+    final int[] slots = new int[slotCount];
+    final ByteArrayOutputStream records = new ByteArrayOutputStream();
+
+    try (final DataOutputStream out = new DataOutputStream(records)) {
+      for (final CompiledToggle<?> toggle : snapshot.toggles()) {
+        final byte[] key = toggle.key().getBytes(StandardCharsets.UTF_8);
+        final long offset = (long) recordsOffset + out.size();
+
+        if (offset > Integer.MAX_VALUE) {
+          throw new IllegalArgumentException("Snapshot too large for binary format");
+        }
+
+        int slot = BinarySnapshotFormat.hash(key) & (slotCount - 1);
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & (slotCount - 1);
+        }
+        slots[slot] = (int) offset;
+
+        writeBytes(out, key);
+        out.writeInt(toggle.value());
+        out.writeInt(toggle.cohortValues().size());
+
+        for (final Map.Entry<String, Integer> cohortValue : toggle.cohortValues().entrySet()) {
+          writeBytes(out, cohortValue.getKey().getBytes(StandardCharsets.UTF_8));
+          out.writeInt(cohortValue.getValue());
+        }
+
+        out.writeInt(toggle.memberships().size());
+
+        for (final MembershipFilter membership : toggle.memberships()) {
+          final MembershipSet members = membership.members();
+          final LongBuffer table = members.table();
+          final LongBuffer bloom = members.bloomFilter();
+
+          out.writeInt(membership.value());
+          out.writeInt(membership.precedingCohortFilters());
+          out.writeInt(members.size());
+          out.writeInt(table.limit());
+          out.writeInt((bloom == null) ? 0 : bloom.limit());
+          writeLongs(out, table);
+
+          if (bloom != null) {
+            writeLongs(out, bloom);
+          }
+        }
+      }
+    } catch (IOException err) {
+      // Writing to a ByteArrayOutputStream never fails.
+      throw new IllegalStateException(err);
+    }
+
+    final ByteBuffer buffer = ByteBuffer.allocate(recordsOffset + records.size());
+    buffer.putInt(BinarySnapshotFormat.MAGIC);
+    buffer.putInt(BinarySnapshotFormat.VERSION);
+    buffer.putInt(snapshot.size());
+    buffer.putInt(slotCount);
+
+    for (final int slot : slots) {
+      buffer.putInt(slot);
+    }
+
+    buffer.put(records.toByteArray());
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void writeLongs(DataOutputStream out, LongBuffer longs) throws IOException {
+    for (int i = 0; i < longs.limit(); i++) {
+      out.writeLong(longs.get(i));
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,381 @@
+package com.whiskerlabs.toggle.binary;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link ToggleMap} backed by a memory-mapped binary toggle snapshot,
+ * as written by {@link BinarySnapshotWriter}.
+ *
+ * Opening a {@code MappedToggleMap} maps the snapshot file into memory
+ * without reading or parsing it beyond its header, so startup time does
+ * not depend on the number of toggles, and processes mapping the same
+ * file share a single copy of it in the page cache. Looking up a toggle
+ * probes the snapshot's hash index and compares keys in place in the
+ * mapped region; only the matched toggle is decoded onto the heap, and
+ * its record is bounds-checked as it is decoded. The membership sets of
+ * a decoded toggle are read in place in the mapped region rather than
+ * copied.
+ *
+ * Decoding allocates the toggle along with its cohort map, so a small,
+ * fixed number of recently decoded toggles are retained in a
+ * direct-mapped cache, and repeated lookups of a hot key usually return
+ * the retained toggle without allocating. Other lookups decode the
+ * toggle afresh; callers which look many distinct keys up repeatedly
+ * should cache the returned toggles, e.g. in a {@code
+ * CachingToggleMap}.
+ *
+ * A snapshot which is corrupt beyond its header is only detected when
+ * a corrupt record is read, at which point an {@link
+ * UncheckedIOException} is thrown.
+ *
+ * The snapshot file must not be modified in place while it is mapped.
+ * {@link BinarySnapshotWriter#write} replaces files by moving a new
+ * file into place, which is safe.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class MappedToggleMap<T> extends ToggleMap<String, T> {
+  private static final int DECODED_CACHE_SLOTS = 256;
+
+  // Only absolute reads are made against the buffer, so it may be
+  // shared across threads without synchronization.
+  private final ByteBuffer buffer;
+  private final String source;
+  private final int toggleCount;
+  private final int slotCount;
+
+  // Recently decoded toggles, by the hash of their keys.
+  private final AtomicReferenceArray<CompiledToggle<T>> decodedCache;
+
+  /**
+   * Constructs a {@code MappedToggleMap} by mapping a binary toggle
+   * snapshot file.
+   *
+   * @param path The path of a binary toggle snapshot file.
+   * @throws IOException If the file cannot be mapped, or is not a
+   *         binary toggle snapshot.
+   */
+  public MappedToggleMap(Path path) throws IOException {
+    this(map(path), path.toString());
+  }
+
+  /**
+   * Constructs a {@code MappedToggleMap} backed by a buffer containing
+   * a binary toggle snapshot.
+   *
+   * @param buffer A buffer containing a binary toggle snapshot,
+   *        starting at index {@code 0}.
+   * @throws IOException If the buffer does not contain a binary toggle
+   *         snapshot.
+   */
+  public MappedToggleMap(ByteBuffer buffer) throws IOException {
+    this(buffer.duplicate(), "buffer");
+  }
+
+  private MappedToggleMap(ByteBuffer buffer, String source) throws IOException {
+    this.buffer = checkHeader(buffer, source);
+    this.source = source;
+    this.toggleCount = buffer.getInt(8);
+    this.slotCount = buffer.getInt(12);
+    this.decodedCache = new AtomicReferenceArray<>(Math.min(slotCount, DECODED_CACHE_SLOTS));
+  }
+
+  @Override
+  public Toggle<T> apply(String key) {
+    final CompiledToggle<T> toggle = get(key);
+
+    if (toggle == null) {
+      throw new ToggleNotFoundException(key);
+    }
+
+    return toggle;
+  }
+
+  /**
+   * Returns the toggle identified by the argument key.
+   *
+   * @param key A toggle key.
+   * @return The toggle identified by {@code key}, or {@code null} if
+   *         the snapshot contains no such toggle.
+   * @throws UncheckedIOException If a record read by the lookup is
+   *         corrupt.
+   */
+  public CompiledToggle<T> get(String key) {
+    final int hash = BinarySnapshotFormat.hash(key);
+    final int cacheSlot = hash & (decodedCache.length() - 1);
+    final CompiledToggle<T> cached = decodedCache.get(cacheSlot);
+
+    if (cached != null && cached.key().equals(key)) {
+      return cached;
+    }
+
+    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    final int mask = slotCount - 1;
+    int slot = hash & mask;
+
+    for (int probes = 0; probes < slotCount; probes++) {
+      final int offset = recordOffset(slot);
+
+      if (offset == 0) {
+        return null;
+      }
+
+      if (BinarySnapshotFormat.bytesEqual(buffer, offset, keyBytes)) {
+        final CompiledToggle<T> toggle = decode(offset, key);
+        decodedCache.set(cacheSlot, toggle);
+        return toggle;
+      }
+
+      slot = (slot + 1) & mask;
+    }
+
+    return null;
+  }
+
+  @Override
+  public Set<String> keySet() {
+    final Set<String> builder = new HashSet<>();
+
+    forEachRecord(offset -> builder.add(readString(offset)));
+
+    return Collections.unmodifiableSet(builder);
+  }
+
+  /**
+   * @return The number of toggles in the snapshot.
+   */
+  public int size() {
+    return toggleCount;
+  }
+
+  /**
+   * Decodes every toggle in the snapshot onto the heap.
+   *
+   * @return A {@link ToggleSnapshot} of every toggle in the snapshot.
+   * @throws UncheckedIOException If any record is corrupt.
+   */
+  public ToggleSnapshot<T> toSnapshot() {
+    final List<CompiledToggle<T>> toggles = new ArrayList<>(toggleCount);
+
+    forEachRecord(offset -> toggles.add(decode(offset, readString(offset))));
+
+    return ToggleSnapshot.of(toggles);
+  }
+
+  private void forEachRecord(IntConsumer consumer) {
+    for (int slot = 0; slot < slotCount; slot++) {
+      final int offset = recordOffset(slot);
+
+      if (offset != 0) {
+        consumer.accept(offset);
+      }
+    }
+  }
+
+  // Reads the offset of the record in the argument index slot, or 0 if
+  // the slot is empty, checking that the record's key lies within the
+  // buffer.
+  private int recordOffset(int slot) {
+    final int offset = buffer.getInt(BinarySnapshotFormat.indexOffset(slot));
+
+    if (offset != 0) {
+      if (offset < BinarySnapshotFormat.indexOffset(slotCount)) {
+        throw corrupt();
+      }
+
+      skip(offset + 4L, readInt(offset));
+    }
+
+    return offset;
+  }
+
+  private CompiledToggle<T> decode(int offset, String key) {
+    checkRecord(offset);
+
+    int position = offset + 4 + buffer.getInt(offset);
+    final int value = buffer.getInt(position);
+    final int cohortCount = buffer.getInt(position + 4);
+    position += 8;
+
+    final Map<String, Integer> cohortValues = new LinkedHashMap<>();
+
+    for (int i = 0; i < cohortCount; i++) {
+      final String cohort = readString(position);
+      position += 4 + buffer.getInt(position);
+      cohortValues.put(cohort, buffer.getInt(position));
+      position += 4;
+    }
+
+    final int membershipCount = buffer.getInt(position);
+    final List<MembershipFilter> memberships = new ArrayList<>(membershipCount);
+    position += 4;
+
+    for (int i = 0; i < membershipCount; i++) {
+      final int membershipValue = buffer.getInt(position);
+      final int precedingCohortFilters = buffer.getInt(position + 4);
+      final int memberCount = buffer.getInt(position + 8);
+      final int tableSlots = buffer.getInt(position + 12);
+      final int bloomWords = buffer.getInt(position + 16);
+      position += 20;
+
+      final LongBuffer table = longs(position, tableSlots);
+      position += 8 * tableSlots;
+      final LongBuffer bloom = (bloomWords == 0) ? null : longs(position, bloomWords);
+      position += 8 * bloomWords;
+
+      memberships.add(new MembershipFilter(
+        MembershipSet.wrap(memberCount, table, bloom),
+        membershipValue,
+        precedingCohortFilters
+      ));
+    }
+
+    return new CompiledToggle<T>(key, value, cohortValues, memberships);
+  }
+
+  // Walks the record at the argument offset, as decode does, checking
+  // that every field lies within the buffer and that the record would
+  // decode to a valid toggle.
+  private void checkRecord(int offset) {
+    long position = skip(offset + 4L, readInt(offset));
+
+    final int cohortCount = readInt(position + 4);
+    position += 8;
+
+    if (cohortCount < 0) {
+      throw corrupt();
+    }
+
+    for (int i = 0; i < cohortCount; i++) {
+      position = skip(position + 4, readInt(position));
+      position = skip(position, 4);
+    }
+
+    final int membershipCount = readInt(position);
+    position += 4;
+
+    if (membershipCount < 0) {
+      throw corrupt();
+    }
+
+    int precedingCohortFilters = 0;
+
+    for (int i = 0; i < membershipCount; i++) {
+      final int preceding = readInt(position + 4);
+
+      if (preceding < precedingCohortFilters) {
+        throw corrupt();
+      }
+
+      precedingCohortFilters = preceding;
+      position += 8;
+
+      final int memberCount = readInt(position);
+      final int tableSlots = readInt(position + 4);
+      final int bloomWords = readInt(position + 8);
+      position += 12;
+
+      if (memberCount < 0
+          || tableSlots < 1
+          || Integer.bitCount(tableSlots) != 1
+          || memberCount >= tableSlots
+          || (bloomWords != 0 && Integer.bitCount(bloomWords) != 1)) {
+        throw corrupt();
+      }
+
+      position = skip(position, 8L * tableSlots);
+      position = skip(position, 8L * bloomWords);
+    }
+  }
+
+  private int readInt(long position) {
+    skip(position, 4);
+    return buffer.getInt((int) position);
+  }
+
+  // Returns the position after the argument number of bytes, which
+  // must lie within the buffer.
+  private long skip(long position, long bytes) {
+    if (bytes < 0 || position + bytes > buffer.limit()) {
+      throw corrupt();
+    }
+
+    return position + bytes;
+  }
+
+  private UncheckedIOException corrupt() {
+    return new UncheckedIOException(
+      new IOException("Corrupt binary toggle snapshot: " + source)
+    );
+  }
+
+  private LongBuffer longs(int offset, int count) {
+    final ByteBuffer view = buffer.duplicate();
+    view.limit(offset + 8 * count).position(offset);
+    return view.slice().asLongBuffer();
+  }
+
+  private String readString(int offset) {
+    final byte[] bytes = new byte[buffer.getInt(offset)];
+
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(offset + 4 + i);
+    }
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static ByteBuffer map(Path path) throws IOException {
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static ByteBuffer checkHeader(ByteBuffer buffer, String source) throws IOException {
+    if (buffer.limit() < BinarySnapshotFormat.HEADER_BYTES
+        || buffer.getInt(0) != BinarySnapshotFormat.MAGIC) {
+      throw new IOException("Not a binary toggle snapshot: " + source);
+    }
+
+    if (buffer.getInt(4) != BinarySnapshotFormat.VERSION) {
+      throw new IOException("Unsupported binary toggle snapshot version "
+        + buffer.getInt(4) + ": " + source);
+    }
+
+    final int slotCount = buffer.getInt(12);
+
+    if (buffer.getInt(8) < 0
+        || slotCount < 1
+        || Integer.bitCount(slotCount) != 1
+        || BinarySnapshotFormat.HEADER_BYTES + 4L * slotCount > buffer.limit()) {
+      throw new IOException("Corrupt binary toggle snapshot: " + source);
+    }
+
+    return buffer;
+  }
+}
@@ -0,0 +1,23 @@
+package com.whiskerlabs.toggle.exposure;
+
+/**
+ * Determines how an {@link ExposurePipeline} sheds events when its
+ * sink cannot keep up. Under either policy, recording an event never
+ * blocks, and shed events are counted.
+ */
+public enum BackpressurePolicy {
+  /**
+   * Records every event until the buffer is full, and then drops
+   * events until space is available.
+   */
+  DROP,
+
+  /**
+   * Records every event until the buffer is half full, and then
+   * records each event with a probability proportional to the
+   * remaining free space, so that shed events are spread uniformly
+   * across toggles and subjects rather than clustered at the point the
+   * buffer fills.
+   */
+  SAMPLE
+}
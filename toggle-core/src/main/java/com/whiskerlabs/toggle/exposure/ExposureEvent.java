@@ -0,0 +1,84 @@
+package com.whiskerlabs.toggle.exposure;
+
+/**
+ * A record of a single toggle evaluation, i.e. of a subject being
+ * exposed to one variant of a toggled feature.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public final class ExposureEvent<T> {
+  private final String key;
+  private final String cohort;
+  private final boolean result;
+  private final long timestampMillis;
+  private final T subject;
+
+  /**
+   * Constructs an {@code ExposureEvent}.
+   *
+   * @param key The key of the evaluated toggle.
+   * @param cohort The cohort the toggle was evaluated for, or {@code
+   *        null} if no cohort applied.
+   * @param result The result of the evaluation.
+   * @param timestampMillis The time of the evaluation, in milliseconds
+   *        since the epoch.
+   * @param subject The value the toggle was applied to.
+   */
+  public ExposureEvent(
+    String key,
+    String cohort,
+    boolean result,
+    long timestampMillis,
+    T subject
+  ) {
+    this.key = key;
+    this.cohort = cohort;
+    this.result = result;
+    this.timestampMillis = timestampMillis;
+    this.subject = subject;
+  }
+
+  /**
+   * @return The key of the evaluated toggle.
+   */
+  public String key() {
+    return key;
+  }
+
+  /**
+   * @return The cohort the toggle was evaluated for, or {@code null}
+   *         if no cohort applied.
+   */
+  public String cohort() {
+    return cohort;
+  }
+
+  /**
+   * @return The result of the evaluation.
+   */
+  public boolean result() {
+    return result;
+  }
+
+  /**
+   * @return The time of the evaluation, in milliseconds since the
+   *         epoch.
+   */
+  public long timestampMillis() {
+    return timestampMillis;
+  }
+
+  /**
+   * @return The value the toggle was applied to.
+   */
+  public T subject() {
+    return subject;
+  }
+
+  @Override
+  public String toString() {
+    return timestampMillis + "\t" + key + "\t" + (cohort == null ? "" : cohort)
+      + "\t" + result + "\t" + subject;
+  }
+}
@@ -0,0 +1,220 @@
+package com.whiskerlabs.toggle.exposure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers {@link ExposureEvent ExposureEvents} to an {@link
+ * ExposureSink} asynchronously and in batches.
+ *
+ * Recording an event enqueues it on a bounded, lock-free ring buffer
+ * and returns immediately. A background daemon thread drains the
+ * buffer in batches of up to {@code batchSize} events, sleeping for
+ * up to {@code flushInterval} whenever the buffer is empty. When the
+ * sink falls behind and the buffer fills, events are shed according
+ * to a {@link BackpressurePolicy} rather than blocking the caller.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class ExposurePipeline<T> implements Closeable {
+  public static final int DEFAULT_CAPACITY = 65536;
+  public static final int DEFAULT_BATCH_SIZE = 1024;
+  public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+
+  private final ExposureSink<T> sink;
+  private final RingBuffer<ExposureEvent<T>> buffer;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final BackpressurePolicy backpressurePolicy;
+  private final Thread drainerThread;
+
+  private final LongAdder droppedCount = new LongAdder();
+  private final LongAdder failedCount = new LongAdder();
+
+  // Producers between their check of the closed flag and their offer
+  // to the buffer, which close() waits out.
+  private final LongAdder recording = new LongAdder();
+
+  private volatile boolean closed = false;
+
+  /**
+   * Constructs an {@code ExposurePipeline} with default capacity,
+   * batch size and flush interval, which drops events when full.
+   *
+   * @param sink The sink to deliver events to.
+   */
+  public ExposurePipeline(ExposureSink<T> sink) {
+    this(sink, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, BackpressurePolicy.DROP);
+  }
+
+  /**
+   * Constructs an {@code ExposurePipeline} and starts its draining
+   * thread.
+   *
+   * @param sink The sink to deliver events to.
+   * @param capacity The minimum number of events which may be
+   *        buffered. Rounded up to a power of two.
+   * @param batchSize The maximum number of events delivered to {@code
+   *        sink} in a single batch.
+   * @param flushInterval The maximum delay between an event being
+   *        recorded and its delivery, when the sink is keeping up.
+   * @param backpressurePolicy How to shed events when {@code sink}
+   *        does not keep up.
+   */
+  public ExposurePipeline(
+    ExposureSink<T> sink,
+    int capacity,
+    int batchSize,
+    Duration flushInterval,
+    BackpressurePolicy backpressurePolicy
+  ) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+
+    this.sink = sink;
+    this.buffer = new RingBuffer<>(capacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.backpressurePolicy = backpressurePolicy;
+
+    this.drainerThread = new Thread(this::drain, "toggle-exposure-drainer");
+    this.drainerThread.setDaemon(true);
+    this.drainerThread.start();
+  }
+
+  /**
+   * Records the evaluation of a toggle. Never blocks.
+   *
+   * @param key The key of the evaluated toggle.
+   * @param cohort The cohort the toggle was evaluated for, or {@code
+   *        null} if no cohort applied.
+   * @param result The result of the evaluation.
+   * @param subject The value the toggle was applied to.
+   * @return {@code true} if the event was enqueued, or {@code false}
+   *         if it was shed or this pipeline is closed.
+   */
+  public boolean record(String key, String cohort, boolean result, T subject) {
+    recording.increment();
+
+    try {
+      if (closed || !admit()) {
+        droppedCount.increment();
+        return false;
+      }
+
+      final ExposureEvent<T> event =
+        new ExposureEvent<>(key, cohort, result, System.currentTimeMillis(), subject);
+
+      if (!buffer.offer(event)) {
+        droppedCount.increment();
+        return false;
+      }
+
+      return true;
+    } finally {
+      recording.decrement();
+    }
+  }
+
+  /**
+   * @return The number of events shed under backpressure or recorded
+   *         after this pipeline was closed.
+   */
+  public long droppedCount() {
+    return droppedCount.sum();
+  }
+
+  /**
+   * @return The number of events in batches which the sink failed to
+   *         write.
+   */
+  public long failedCount() {
+    return failedCount.sum();
+  }
+
+  /**
+   * Stops accepting events, delivers any events already buffered, and
+   * closes the sink. Events which producers were recording
+   * concurrently with this call are delivered as well, so every
+   * recorded event is either delivered or counted as dropped.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    LockSupport.unpark(drainerThread);
+
+    try {
+      drainerThread.join();
+    } catch (InterruptedException err) {
+      Thread.currentThread().interrupt();
+    }
+
+    // A producer which read the flag before it was set may offer after
+    // the drainer's final pass. Producers never block, so wait them out
+    // and deliver whatever they left behind from this thread.
+    while (recording.sum() != 0) {
+      Thread.yield();
+    }
+
+    drainBuffer(new ArrayList<>(batchSize));
+
+    sink.close();
+  }
+
+  private boolean admit() {
+    if (backpressurePolicy != BackpressurePolicy.SAMPLE) {
+      return true;
+    }
+
+    final int half = buffer.capacity() / 2;
+    final int free = buffer.capacity() - buffer.size();
+
+    return free >= half || ThreadLocalRandom.current().nextInt(half) < free;
+  }
+
+  private void drain() {
+    final List<ExposureEvent<T>> batch = new ArrayList<>(batchSize);
+
+    while (true) {
+      // Read the flag before draining, so that events enqueued before
+      // close() are delivered by the final pass.
+      final boolean closing = closed;
+
+      drainBuffer(batch);
+
+      if (closing) {
+        return;
+      }
+
+      LockSupport.parkNanos(this, flushIntervalNanos);
+    }
+  }
+
+  private void drainBuffer(List<ExposureEvent<T>> batch) {
+    while (buffer.drainTo(batch, batchSize) > 0) {
+      deliver(batch);
+    }
+  }
+
+  private void deliver(List<ExposureEvent<T>> batch) {
+    try {
+      sink.write(batch);
+    } catch (IOException | RuntimeException err) {
+      failedCount.add(batch.size());
+    } finally {
+      batch.clear();
+    }
+  }
+}
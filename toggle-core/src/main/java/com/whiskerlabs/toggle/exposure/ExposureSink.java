@@ -0,0 +1,35 @@
+package com.whiskerlabs.toggle.exposure;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A destination for batches of {@link ExposureEvent ExposureEvents}.
+ *
+ * Sinks are called by one thread at a time: the draining thread of an
+ * {@link ExposurePipeline}, and finally the thread which closes it. So
+ * they need not be thread-safe, and may block.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+@FunctionalInterface
+public interface ExposureSink<T> {
+  /**
+   * Writes a batch of events.
+   *
+   * @param events The events to write, in the order they were
+   *        recorded. The list is only valid for the duration of the
+   *        call.
+   * @throws IOException if the events could not be written.
+   */
+  void write(List<ExposureEvent<T>> events) throws IOException;
+
+  /**
+   * Flushes any buffered events and releases the resources held by
+   * this sink.
+   *
+   * @throws IOException if buffered events could not be flushed.
+   */
+  default void close() throws IOException {}
+}
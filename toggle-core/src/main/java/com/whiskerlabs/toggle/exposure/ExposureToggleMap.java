@@ -0,0 +1,96 @@
+package com.whiskerlabs.toggle.exposure;
+
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleChangeListener;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleSubscription;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link ToggleMap} which records an {@link ExposureEvent} to an
+ * {@link ExposurePipeline} for every evaluation of the toggles it
+ * produces.
+ *
+ * Recording an exposure only enqueues an event, so evaluations never
+ * wait on the pipeline's sink.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class ExposureToggleMap<T> extends ToggleMap<String, T> {
+  private final ToggleMap<String, T> underlying;
+  private final ExposurePipeline<T> pipeline;
+
+  public ExposureToggleMap(ToggleMap<String, T> underlying, ExposurePipeline<T> pipeline) {
+    this.underlying = underlying;
+    this.pipeline = pipeline;
+  }
+
+  @Override
+  public Toggle<T> apply(String key) {
+    final Toggle<T> toggle = underlying.apply(key);
+
+    return new Toggle<T>() {
+      @Override
+      public boolean test(T t, String cohort) {
+        final boolean result = toggle.test(t, cohort);
+        pipeline.record(key, cohort, result, t);
+        return result;
+      }
+
+      // Cohorts are recorded comma-separated.
+      @Override
+      public boolean testCohorts(T t, List<String> cohorts) {
+        final boolean result = toggle.testCohorts(t, cohorts);
+        pipeline.record(key, cohorts.isEmpty() ? null : String.join(",", cohorts), result, t);
+        return result;
+      }
+    };
+  }
+
+  // Only called when T is Long, so each ID is recorded boxed.
+  @Override
+  @SuppressWarnings("unchecked")
+  protected LongToggle applyLong(String key) {
+    final LongToggle toggle = applyLong(underlying, key);
+    final ExposurePipeline<Long> longPipeline = (ExposurePipeline<Long>) pipeline;
+
+    return new LongToggle() {
+      @Override
+      public boolean testLong(long id, String cohort) {
+        final boolean result = toggle.testLong(id, cohort);
+        longPipeline.record(key, cohort, result, id);
+        return result;
+      }
+
+      @Override
+      public boolean testLongCohorts(long id, List<String> cohorts) {
+        final boolean result = toggle.testLongCohorts(id, cohorts);
+        longPipeline.record(key, cohorts.isEmpty() ? null : String.join(",", cohorts), result, id);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return underlying.keySet();
+  }
+
+  @Override
+  public List<String> keysWithPrefix(String prefix) {
+    return underlying.keysWithPrefix(prefix);
+  }
+
+  /**
+   * Subscribes the argument listener to changes in the underlying
+   * {@code ToggleMap}.
+   */
+  @Override
+  public ToggleSubscription subscribe(ToggleChangeListener<String> listener) {
+    return underlying.subscribe(listener);
+  }
+}
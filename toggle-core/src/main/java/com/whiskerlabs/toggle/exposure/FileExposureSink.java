@@ -0,0 +1,90 @@
+package com.whiskerlabs.toggle.exposure;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * An {@link ExposureSink} which appends events to a local file, one
+ * tab-separated line per event.
+ *
+ * Each line contains the event timestamp in milliseconds, the toggle
+ * key, the cohort (empty if none applied), the result and the subject,
+ * in that order. Backslashes, tabs, carriage returns and newlines in the
+ * key, cohort and subject are escaped as {@code \\}, {@code \t},
+ * {@code \r} and {@code \n} respectively, so that every event occupies
+ * exactly one line of exactly five fields. The file is flushed after
+ * every batch.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class FileExposureSink<T> implements ExposureSink<T> {
+  private final BufferedWriter writer;
+
+  /**
+   * Constructs a {@code FileExposureSink}, creating the argument file
+   * if it does not exist.
+   *
+   * @param path The path of the file to append events to.
+   * @throws IOException if the file could not be opened.
+   */
+  public FileExposureSink(Path path) throws IOException {
+    this.writer = Files.newBufferedWriter(
+      path,
+      StandardCharsets.UTF_8,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.APPEND
+    );
+  }
+
+  @Override
+  public void write(List<ExposureEvent<T>> events) throws IOException {
+    for (final ExposureEvent<T> event : events) {
+      writer.write(Long.toString(event.timestampMillis()));
+      writer.write('\t');
+      writeEscaped(event.key());
+      writer.write('\t');
+      writeEscaped(event.cohort() == null ? "" : event.cohort());
+      writer.write('\t');
+      writer.write(Boolean.toString(event.result()));
+      writer.write('\t');
+      writeEscaped(String.valueOf(event.subject()));
+      writer.newLine();
+    }
+
+    writer.flush();
+  }
+
+  private void writeEscaped(String field) throws IOException {
+    for (int i = 0; i < field.length(); i++) {
+      final char c = field.charAt(i);
+
+      switch (c) {
+        case '\\':
+          writer.write("\\\\");
+          break;
+        case '\t':
+          writer.write("\\t");
+          break;
+        case '\r':
+          writer.write("\\r");
+          break;
+        case '\n':
+          writer.write("\\n");
+          break;
+        default:
+          writer.write(c);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+}
@@ -0,0 +1,103 @@
+package com.whiskerlabs.toggle.exposure;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue.
+ *
+ * Each slot carries a sequence number which tells producers and the
+ * consumer whether the slot is free to write or ready to read, so
+ * neither ever waits on the other. Offering to a full buffer fails
+ * immediately.
+ */
+final class RingBuffer<E> {
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+
+  // Only read and written by the single consumer, but read by
+  // producers to estimate occupancy.
+  private volatile long head = 0;
+
+  RingBuffer(int minimumCapacity) {
+    final int capacity = Integer.highestOneBit(Math.max(2, minimumCapacity) * 2 - 1);
+    this.mask = capacity - 1;
+    this.elements = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Returns an estimate of the number of elements in the buffer.
+   */
+  int size() {
+    return (int) Math.max(0, Math.min(capacity(), tail.get() - head));
+  }
+
+  /**
+   * Adds an element to the buffer unless it is full.
+   *
+   * @return {@code true} if the element was added.
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+
+    while (true) {
+      final int index = (int) position & mask;
+      final long difference = sequences.get(index) - position;
+
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.lazySet(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Moves up to {@code limit} elements from the buffer to the argument
+   * list. Must only be called from a single consumer thread.
+   *
+   * @return The number of elements moved.
+   */
+  int drainTo(List<? super E> destination, int limit) {
+    long position = head;
+    int drained = 0;
+
+    while (drained < limit) {
+      final int index = (int) position & mask;
+
+      if (sequences.get(index) != position + 1) {
+        break;
+      }
+
+      destination.add(elements.get(index));
+      elements.lazySet(index, null);
+      sequences.set(index, position + mask + 1);
+      position++;
+      drained++;
+    }
+
+    head = position;
+    return drained;
+  }
+}
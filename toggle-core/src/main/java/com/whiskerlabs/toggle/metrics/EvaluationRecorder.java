@@ -0,0 +1,19 @@
+package com.whiskerlabs.toggle.metrics;
+
+/**
+ * Records the results of evaluating a single toggle.
+ *
+ * An {@code EvaluationRecorder} is obtained once per toggle, so that
+ * recording an evaluation does not entail looking the toggle up.
+ */
+@FunctionalInterface
+public interface EvaluationRecorder {
+  EvaluationRecorder NOOP = result -> {};
+
+  /**
+   * Records a single evaluation of a toggle.
+   *
+   * @param result The result of the evaluation.
+   */
+  void record(boolean result);
+}
@@ -0,0 +1,96 @@
+package com.whiskerlabs.toggle.metrics;
+
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleChangeListener;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleSubscription;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link ToggleMap} which records the result of every evaluation of
+ * the toggles it produces to a {@link ToggleMetrics}.
+ *
+ * The {@link EvaluationRecorder} for a toggle is obtained once, when
+ * the toggle is looked up, so recording an evaluation costs a single
+ * counter increment.
+ *
+ * @param <K> The key type of a {@code ToggleMap}.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class InstrumentedToggleMap<K, T> extends ToggleMap<K, T> {
+  private final ToggleMap<K, T> underlying;
+  private final ToggleMetrics metrics;
+
+  public InstrumentedToggleMap(ToggleMap<K, T> underlying, ToggleMetrics metrics) {
+    this.underlying = underlying;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Toggle<T> apply(K key) {
+    final Toggle<T> toggle = underlying.apply(key);
+    final EvaluationRecorder recorder = metrics.evaluations(key);
+
+    return new Toggle<T>() {
+      @Override
+      public boolean test(T t, String cohort) {
+        final boolean result = toggle.test(t, cohort);
+        recorder.record(result);
+        return result;
+      }
+
+      @Override
+      public boolean testCohorts(T t, List<String> cohorts) {
+        final boolean result = toggle.testCohorts(t, cohorts);
+        recorder.record(result);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  protected LongToggle applyLong(K key) {
+    final LongToggle toggle = applyLong(underlying, key);
+    final EvaluationRecorder recorder = metrics.evaluations(key);
+
+    return new LongToggle() {
+      @Override
+      public boolean testLong(long id, String cohort) {
+        final boolean result = toggle.testLong(id, cohort);
+        recorder.record(result);
+        return result;
+      }
+
+      @Override
+      public boolean testLongCohorts(long id, List<String> cohorts) {
+        final boolean result = toggle.testLongCohorts(id, cohorts);
+        recorder.record(result);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return underlying.keySet();
+  }
+
+  @Override
+  public List<K> keysWithPrefix(String prefix) {
+    return underlying.keysWithPrefix(prefix);
+  }
+
+  /**
+   * Subscribes the argument listener to changes in the underlying
+   * {@code ToggleMap}.
+   */
+  @Override
+  public ToggleSubscription subscribe(ToggleChangeListener<K> listener) {
+    return underlying.subscribe(listener);
+  }
+}
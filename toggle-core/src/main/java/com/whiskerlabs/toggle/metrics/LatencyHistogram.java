@@ -0,0 +1,99 @@
+package com.whiskerlabs.toggle.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations with exponentially-sized
+ * buckets.
+ *
+ * Bucket {@code i} counts durations in the range {@code [2^i,
+ * 2^(i+1))} nanoseconds, with bucket {@code 0} also counting
+ * durations of zero. Recording a duration is a single striped
+ * increment and never blocks.
+ */
+public final class LatencyHistogram {
+  public static final int BUCKETS = 64;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder totalNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param durationNanos A duration in nanoseconds. Negative durations
+   *        are recorded as zero.
+   */
+  public void record(long durationNanos) {
+    final long nanos = Math.max(0, durationNanos);
+    buckets[bucketOf(nanos)].increment();
+    totalNanos.add(nanos);
+  }
+
+  /**
+   * @param bucket A bucket index.
+   * @return The number of durations recorded in the bucket.
+   */
+  public long count(int bucket) {
+    return buckets[bucket].sum();
+  }
+
+  /**
+   * @return The number of durations recorded.
+   */
+  public long count() {
+    long count = 0;
+
+    for (final LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+
+    return count;
+  }
+
+  /**
+   * @return The sum of all durations recorded, in nanoseconds.
+   */
+  public long totalNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * Returns an upper bound on the argument percentile of recorded
+   * durations.
+   *
+   * @param percentile A percentile between 0 and 100.
+   * @return The exclusive upper bound, in nanoseconds, of the bucket
+   *         containing the percentile, or {@code 0} if no durations
+   *         have been recorded.
+   */
+  public long percentileUpperBoundNanos(double percentile) {
+    final long count = count();
+
+    if (count == 0) {
+      return 0;
+    }
+
+    final long rank = (long) Math.ceil(count * percentile / 100);
+    long seen = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i].sum();
+
+      if (seen >= rank) {
+        return (i == BUCKETS - 1) ? Long.MAX_VALUE : 1L << (i + 1);
+      }
+    }
+
+    return Long.MAX_VALUE;
+  }
+
+  private static int bucketOf(long nanos) {
+    return (nanos == 0) ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+  }
+}
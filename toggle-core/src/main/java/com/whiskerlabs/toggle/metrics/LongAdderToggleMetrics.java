@@ -0,0 +1,186 @@
+package com.whiskerlabs.toggle.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ToggleMetrics} which accumulates metrics in memory using
+ * striped {@link LongAdder} counters.
+ *
+ * Counters are striped across threads, so recording a metric does not
+ * contend with concurrent recordings of the same metric.
+ *
+ * Per-key counters are retained for at most a fixed number of keys,
+ * so that lookups of arbitrary keys, e.g. keys taken from request
+ * parameters, cannot grow the counters without bound. Once the limit
+ * is reached, metrics of keys without counters of their own are
+ * accumulated in shared overflow counters. Concurrent recordings of
+ * new keys may overshoot the limit slightly.
+ */
+public class LongAdderToggleMetrics implements ToggleMetrics {
+  public static final int DEFAULT_MAX_KEYS = 10000;
+
+  private final int maxKeys;
+  private final ConcurrentMap<Object, EvaluationCounts> evaluations =
+    new ConcurrentHashMap<>();
+  private final ConcurrentMap<Object, LongAdder> fallbacks = new ConcurrentHashMap<>();
+  private final EvaluationCounts overflowEvaluations = new EvaluationCounts();
+  private final LongAdder overflowFallbacks = new LongAdder();
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder listenerFailures = new LongAdder();
+
+  /**
+   * Constructs a {@code LongAdderToggleMetrics} which retains per-key
+   * counters for up to {@link #DEFAULT_MAX_KEYS} keys.
+   */
+  public LongAdderToggleMetrics() {
+    this(DEFAULT_MAX_KEYS);
+  }
+
+  /**
+   * Constructs a {@code LongAdderToggleMetrics} which retains per-key
+   * counters for up to {@code maxKeys} keys.
+   *
+   * @param maxKeys The maximum number of keys for which to retain
+   *        evaluation counters, and separately fallback counters.
+   */
+  public LongAdderToggleMetrics(int maxKeys) {
+    this.maxKeys = maxKeys;
+  }
+
+  @Override
+  public EvaluationRecorder evaluations(Object key) {
+    final EvaluationCounts counts = evaluations.get(key);
+
+    if (counts != null) {
+      return counts;
+    } else if (evaluations.size() >= maxKeys) {
+      return overflowEvaluations;
+    }
+
+    return evaluations.computeIfAbsent(key, k -> new EvaluationCounts());
+  }
+
+  @Override
+  public void recordFallback(Object key) {
+    LongAdder count = fallbacks.get(key);
+
+    if (count == null) {
+      count = (fallbacks.size() >= maxKeys)
+        ? overflowFallbacks
+        : fallbacks.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    count.increment();
+  }
+
+  @Override
+  public void recordLoad(long durationNanos, boolean success) {
+    loadLatency.record(durationNanos);
+
+    if (!success) {
+      loadFailures.increment();
+    }
+  }
+
+  @Override
+  public void recordListenerFailure(Throwable err) {
+    listenerFailures.increment();
+  }
+
+  /**
+   * @return An unmodifiable view of the evaluation counts of each
+   *         toggle key evaluated so far.
+   */
+  public Map<Object, EvaluationCounts> evaluationCounts() {
+    return Collections.unmodifiableMap(evaluations);
+  }
+
+  /**
+   * @param key A toggle key.
+   * @return The number of times lookups of the key fell back to a
+   *         last-known-good toggle.
+   */
+  public long fallbackCount(Object key) {
+    final LongAdder count = fallbacks.get(key);
+    return (count == null) ? 0 : count.sum();
+  }
+
+  /**
+   * @return The evaluation counts of keys recorded after the per-key
+   *         limit was reached.
+   */
+  public EvaluationCounts overflowEvaluationCounts() {
+    return overflowEvaluations;
+  }
+
+  /**
+   * @return The number of fallbacks of keys recorded after the
+   *         per-key limit was reached.
+   */
+  public long overflowFallbackCount() {
+    return overflowFallbacks.sum();
+  }
+
+  /**
+   * @return A histogram of the durations of loads from a backing
+   *         store, including failed loads.
+   */
+  public LatencyHistogram loadLatency() {
+    return loadLatency;
+  }
+
+  /**
+   * @return The number of failed loads from a backing store.
+   */
+  public long loadFailureCount() {
+    return loadFailures.sum();
+  }
+
+  /**
+   * @return The number of failures to apply changes notified by a
+   *         backing store.
+   */
+  public long listenerFailureCount() {
+    return listenerFailures.sum();
+  }
+
+  /**
+   * The number of {@code true} and {@code false} results of
+   * evaluating a single toggle.
+   */
+  public static final class EvaluationCounts implements EvaluationRecorder {
+    private final LongAdder trueCount = new LongAdder();
+    private final LongAdder falseCount = new LongAdder();
+
+    @Override
+    public void record(boolean result) {
+      (result ? trueCount : falseCount).increment();
+    }
+
+    /**
+     * @return The number of evaluations which returned {@code true}.
+     */
+    public long trueCount() {
+      return trueCount.sum();
+    }
+
+    /**
+     * @return The number of evaluations which returned {@code false}.
+     */
+    public long falseCount() {
+      return falseCount.sum();
+    }
+
+    /**
+     * @return The total number of evaluations.
+     */
+    public long count() {
+      return trueCount() + falseCount();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.whiskerlabs.toggle.metrics;
+
+/**
+ * A sink for metrics pertaining to toggle lookup and evaluation.
+ *
+ * Every method has a no-op default implementation, so implementations
+ * need only override the metrics they are interested in. All methods
+ * may be called concurrently and must not block, as some are called
+ * on each toggle test.
+ */
+public interface ToggleMetrics {
+  /**
+   * A {@code ToggleMetrics} which records nothing.
+   */
+  ToggleMetrics NOOP = new ToggleMetrics() {};
+
+  /**
+   * Returns a recorder for evaluations of the toggle identified by the
+   * argument key.
+   *
+   * @param key A toggle key.
+   * @return An {@code EvaluationRecorder} for the toggle.
+   */
+  default EvaluationRecorder evaluations(Object key) {
+    return EvaluationRecorder.NOOP;
+  }
+
+  /**
+   * Records that a lookup of the argument key from a backing store
+   * failed, and that a last-known-good toggle, if any, was used in
+   * its place.
+   *
+   * @param key A toggle key.
+   */
+  default void recordFallback(Object key) {}
+
+  /**
+   * Records the duration of a load of toggles from a backing store.
+   *
+   * @param durationNanos The duration of the load, in nanoseconds.
+   * @param success {@code true} if the load succeeded.
+   */
+  default void recordLoad(long durationNanos, boolean success) {}
+
+  /**
+   * Records that applying changes notified by a backing store failed,
+   * so that toggles derived from it may be stale.
+   *
+   * @param err The failure.
+   */
+  default void recordListenerFailure(Throwable err) {}
+}
@@ -0,0 +1,89 @@
+package com.whiskerlabs.toggle;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class AsyncToggleMapTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+  private static final String brokenKey = "/feature/broken";
+
+  private final AsyncToggleMap<String, Integer> toggleMap = new AsyncToggleMap<String, Integer>() {
+    @Override
+    public CompletableFuture<Toggle<Integer>> apply(String key) {
+      final CompletableFuture<Toggle<Integer>> toggle = new CompletableFuture<>();
+
+      if (key.equals(onKey)) {
+        toggle.complete(Toggle.alwaysTrue());
+      } else if (key.equals(brokenKey)) {
+        toggle.completeExceptionally(new IllegalStateException("Backend unavailable"));
+      } else {
+        toggle.completeExceptionally(
+          new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key)
+        );
+      }
+
+      return toggle;
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> keySet() {
+      return CompletableFuture.completedFuture(Collections.singleton(onKey));
+    }
+  };
+
+  @Test
+  public void testGetAllOmitsNonexistentKeys() {
+    final Map<String, Toggle<Integer>> toggles =
+      toggleMap.getAll(Arrays.asList(onKey, offKey)).join();
+
+    assertThat(toggles).containsOnlyKeys(onKey);
+    assertThat(toggles.get(onKey).test(1)).isTrue();
+  }
+
+  @Test
+  public void testGetAllFailsIfAnyLookupFails() {
+    try {
+      toggleMap.getAll(Arrays.asList(onKey, brokenKey)).join();
+      fail("Expected the lookup of " + brokenKey + " to fail");
+    } catch (CompletionException err) {
+      assertThat(err.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  public void testFromBlocking() {
+    final ToggleMap<String, Integer> blocking = new ToggleMap<String, Integer>() {
+      @Override
+      public Toggle<Integer> apply(String key) {
+        if (key.equals(onKey)) {
+          return Toggle.alwaysTrue();
+        } else {
+          throw new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key);
+        }
+      }
+
+      @Override
+      public Set<String> keySet() {
+        return Collections.singleton(onKey);
+      }
+    };
+
+    final AsyncToggleMap<String, Integer> adapted =
+      AsyncToggleMap.fromBlocking(blocking, Runnable::run);
+
+    assertThat(adapted.apply(onKey).join().test(1)).isTrue();
+    assertThat(adapted.apply(offKey).isCompletedExceptionally()).isTrue();
+    assertThat(adapted.keySet().join()).containsOnly(onKey);
+  }
+}
@@ -0,0 +1,77 @@
+package com.whiskerlabs.toggle;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LayeredToggleMapTest {
+  private static final String overriddenKey = "/feature/overridden";
+  private static final String sharedKey = "/feature/shared";
+  private static final String localKey = "/feature/local";
+
+  private final SnapshotToggleMap<Integer> overrides = new SnapshotToggleMap<Integer>(
+    ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(overriddenKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(localKey, 10000, Collections.emptyMap())
+    ))
+  );
+
+  private final SnapshotToggleMap<Integer> shared = new SnapshotToggleMap<Integer>(
+    ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(overriddenKey, 0, Collections.emptyMap()),
+      new CompiledToggle<Integer>(sharedKey, 10000, Collections.emptyMap())
+    ))
+  );
+
+  @Test
+  public void testHigherPriorityLayersWin() {
+    final LayeredToggleMap<Integer> toggleMap = LayeredToggleMap.of(Arrays.asList(overrides, shared));
+
+    assertThat(toggleMap.keySet()).containsOnly(overriddenKey, sharedKey, localKey);
+    assertThat(toggleMap.apply(overriddenKey).test(1)).isTrue();
+    assertThat(toggleMap.apply(sharedKey).test(1)).isTrue();
+    assertThat(toggleMap.apply(localKey).test(1)).isTrue();
+  }
+
+  @Test
+  public void testRebuildsWhenALayerPublishes() {
+    final LayeredToggleMap<Integer> toggleMap = LayeredToggleMap.of(Arrays.asList(overrides, shared));
+    final ToggleSnapshot<Integer> merged = toggleMap.snapshot();
+
+    overrides.publish(ToggleSnapshot.of(Collections.singletonList(
+      new CompiledToggle<Integer>(localKey, 10000, Collections.emptyMap())
+    )));
+
+    assertThat(toggleMap.snapshot()).isNotSameAs(merged);
+    assertThat(toggleMap.apply(overriddenKey).test(1)).isFalse();
+    assertThat(toggleMap.keySet()).containsOnly(overriddenKey, sharedKey, localKey);
+
+    shared.publish(ToggleSnapshot.empty());
+
+    assertThat(toggleMap.keySet()).containsOnly(localKey);
+  }
+
+  @Test
+  public void testNestedLayers() {
+    final LayeredToggleMap<Integer> inner = LayeredToggleMap.of(Collections.singletonList(shared));
+    final LayeredToggleMap<Integer> outer = LayeredToggleMap.of(Arrays.asList(overrides, inner));
+
+    shared.publish(ToggleSnapshot.empty());
+
+    assertThat(outer.keySet()).containsOnly(overriddenKey, localKey);
+  }
+
+  @Test
+  public void testStopsRebuildingOnceClosed() {
+    final LayeredToggleMap<Integer> toggleMap = LayeredToggleMap.of(Arrays.asList(overrides, shared));
+    final ToggleSnapshot<Integer> merged = toggleMap.snapshot();
+
+    toggleMap.close();
+    shared.publish(ToggleSnapshot.empty());
+
+    assertThat(toggleMap.snapshot()).isSameAs(merged);
+  }
+}
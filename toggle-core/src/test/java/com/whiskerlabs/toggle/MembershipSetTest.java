@@ -0,0 +1,100 @@
+package com.whiskerlabs.toggle;
+
+import org.junit.Test;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MembershipSetTest {
+  private static final int MEMBERS = 10000;
+
+  @Test
+  public void testContainsExactlyItsMembers() {
+    assertContainsExactlyMembers(MembershipSet.of(accounts(0, MEMBERS)));
+  }
+
+  @Test
+  public void testContainsExactlyItsMembersWithBloomFilter() {
+    final MembershipSet set = MembershipSet.of(accounts(0, MEMBERS), true);
+
+    assertThat(set.bloomFilter()).isNotNull();
+    assertContainsExactlyMembers(set);
+  }
+
+  @Test
+  public void testIgnoresDuplicateMembers() {
+    final MembershipSet set = MembershipSet.of(Arrays.asList("a", "b", "a"));
+
+    assertThat(set.size()).isEqualTo(2);
+    assertThat(set.contains("a")).isTrue();
+    assertThat(set.contains(null)).isFalse();
+    assertThat(MembershipSet.of(Collections.emptyList()).contains("a")).isFalse();
+  }
+
+  @Test
+  public void testWrapsSerializedTables() {
+    final MembershipSet set = MembershipSet.of(accounts(0, MEMBERS), true);
+
+    assertContainsExactlyMembers(
+      MembershipSet.wrap(set.size(), set.table(), set.bloomFilter())
+    );
+    assertThatThrownBy(() -> MembershipSet.wrap(1, LongBuffer.wrap(new long[3]), null))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testTerminatesOnWrappedTableWithoutEmptySlot() {
+    final MembershipSet set = MembershipSet.wrap(0, LongBuffer.wrap(new long[] {1, 2, 3, 4}), null);
+
+    assertThat(set.contains("a")).isFalse();
+  }
+
+  @Test
+  public void testCompiledToggleConsultsMembershipsAfterCohorts() {
+    final CompiledToggle<Integer> toggle = new CompiledToggle<>(
+      "/feature/allow_listed",
+      0,
+      Collections.singletonMap("account-1", 0),
+      Arrays.asList(
+        new MembershipFilter(MembershipSet.of(accounts(0, 100)), 10000),
+        new MembershipFilter(MembershipSet.of(accounts(50, 150)), 5000)
+      )
+    );
+
+    assertThat(toggle.valueFor("account-1")).isEqualTo(0);
+    assertThat(toggle.valueFor("account-2")).isEqualTo(10000);
+    assertThat(toggle.valueFor("account-75")).isEqualTo(10000);
+    assertThat(toggle.valueFor("account-125")).isEqualTo(5000);
+    assertThat(toggle.valueFor("account-175")).isEqualTo(0);
+    assertThat(toggle.valueFor(null)).isEqualTo(0);
+    assertThat(toggle.test(1, "account-2")).isTrue();
+  }
+
+  private static void assertContainsExactlyMembers(MembershipSet set) {
+    assertThat(set.size()).isEqualTo(MEMBERS);
+
+    for (final String member : accounts(0, MEMBERS)) {
+      assertThat(set.contains(member)).isTrue();
+    }
+
+    for (final String nonMember : accounts(MEMBERS, 2 * MEMBERS)) {
+      assertThat(set.contains(nonMember)).isFalse();
+    }
+  }
+
+  private static List<String> accounts(int from, int to) {
+    final List<String> accounts = new ArrayList<>(to - from);
+
+    for (int i = from; i < to; i++) {
+      accounts.add("account-" + i);
+    }
+
+    return accounts;
+  }
+}
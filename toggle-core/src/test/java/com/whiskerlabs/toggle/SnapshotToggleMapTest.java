@@ -0,0 +1,110 @@
+package com.whiskerlabs.toggle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class SnapshotToggleMapTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+  private static final String cohortKey = "/feature/beta_only";
+
+  @Test
+  public void testEvaluateAllAgainstSingleSnapshot() {
+    final SnapshotToggleMap<Integer> toggleMap = new SnapshotToggleMap<Integer>(ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(offKey, 0, Collections.emptyMap()),
+      new CompiledToggle<Integer>(cohortKey, 0, Collections.singletonMap("beta_tester", 10000))
+    )));
+
+    final ToggleEvaluations<String> evaluations = toggleMap.evaluateAll(
+      Arrays.asList(onKey, offKey, cohortKey, "/feature/nonexistent"),
+      1,
+      "beta_tester"
+    );
+
+    assertThat(evaluations.size()).isEqualTo(4);
+    assertThat(evaluations.get(0)).isTrue();
+    assertThat(evaluations.get(1)).isFalse();
+    assertThat(evaluations.get(2)).isTrue();
+    assertThat(evaluations.get(3)).isFalse();
+
+    final ToggleEvaluations<String> all = toggleMap.evaluateAll(1, null);
+
+    assertThat(all.keys()).containsOnly(onKey, offKey, cohortKey);
+    assertThat(all.toMap())
+      .containsEntry(onKey, true)
+      .containsEntry(offKey, false)
+      .containsEntry(cohortKey, false);
+  }
+
+  @Test
+  public void testNonexistentKeyThrowsStacklessToggleNotFoundException() {
+    final SnapshotToggleMap<Integer> toggleMap =
+      new SnapshotToggleMap<Integer>(ToggleSnapshot.of(Collections.emptyList()));
+
+    try {
+      toggleMap.apply(offKey);
+      fail("Expected a ToggleNotFoundException");
+    } catch (ToggleNotFoundException err) {
+      assertThat(err.key()).isEqualTo(offKey);
+      assertThat(err.getMessage()).isEqualTo(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + offKey);
+      assertThat(err.getStackTrace()).isEmpty();
+    }
+  }
+
+  @Test
+  public void testPublishNotifiesListenersOfChangedKeys() {
+    final SnapshotToggleMap<Integer> toggleMap = new SnapshotToggleMap<Integer>(ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(offKey, 0, Collections.emptyMap())
+    )));
+    final List<ToggleChange<String>> changes = new ArrayList<>();
+    final ToggleSubscription subscription = toggleMap.subscribe(changes::addAll);
+
+    toggleMap.publish(ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(offKey, 5000, Collections.emptyMap()),
+      new CompiledToggle<Integer>(cohortKey, 0, Collections.singletonMap("beta_tester", 10000))
+    )));
+
+    assertThat(changes).containsOnly(ToggleChange.updated(offKey), ToggleChange.added(cohortKey));
+
+    changes.clear();
+    toggleMap.publish(ToggleSnapshot.of(Collections.singletonList(
+      new CompiledToggle<Integer>(cohortKey, 0, Collections.singletonMap("beta_tester", 10000))
+    )));
+
+    assertThat(changes).containsOnly(ToggleChange.removed(onKey), ToggleChange.removed(offKey));
+
+    changes.clear();
+    subscription.close();
+    toggleMap.publish(ToggleSnapshot.empty());
+
+    assertThat(changes).isEmpty();
+  }
+
+  @Test
+  public void testKeysWithPrefixReflectsPublishedSnapshots() {
+    final SnapshotToggleMap<Integer> toggleMap = new SnapshotToggleMap<Integer>(ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(onKey, 10000, Collections.emptyMap()),
+      new CompiledToggle<Integer>("/ops/kill_switch", 0, Collections.emptyMap())
+    )));
+
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(onKey);
+
+    toggleMap.publish(ToggleSnapshot.of(Arrays.asList(
+      new CompiledToggle<Integer>(offKey, 0, Collections.emptyMap()),
+      new CompiledToggle<Integer>(cohortKey, 0, Collections.emptyMap())
+    )));
+
+    assertThat(toggleMap.keysWithPrefix("/feature/")).containsExactly(offKey, cohortKey);
+    assertThat(toggleMap.keysWithPrefix("/ops/")).isEmpty();
+  }
+}
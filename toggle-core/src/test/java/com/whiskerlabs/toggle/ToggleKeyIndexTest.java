@@ -0,0 +1,87 @@
+package com.whiskerlabs.toggle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ToggleKeyIndexTest {
+  private static final List<String> keys = Arrays.asList(
+    "/feature/admin_widget",
+    "/feature/admin",
+    "/feature-flags/legacy",
+    "/feature/",
+    "/feature/billing/invoices",
+    "/ops/kill_switch",
+    "unrooted"
+  );
+
+  @Test
+  public void testKeysWithPrefixInLexicographicOrder() {
+    final ToggleKeyIndex<String> index = new ToggleKeyIndex<>(keys);
+
+    assertThat(index.size()).isEqualTo(keys.size());
+    assertThat(index.keysWithPrefix("/feature/")).containsExactly(
+      "/feature/",
+      "/feature/admin",
+      "/feature/admin_widget",
+      "/feature/billing/invoices"
+    );
+    assertThat(index.keysWithPrefix("/feature/admin")).containsExactly(
+      "/feature/admin",
+      "/feature/admin_widget"
+    );
+    assertThat(index.keysWithPrefix("/feat")).containsExactly(
+      "/feature-flags/legacy",
+      "/feature/",
+      "/feature/admin",
+      "/feature/admin_widget",
+      "/feature/billing/invoices"
+    );
+    assertThat(index.keysWithPrefix("/nonexistent/")).isEmpty();
+
+    final List<String> sorted = new ArrayList<>(keys);
+    Collections.sort(sorted);
+    assertThat(index.keysWithPrefix("")).isEqualTo(sorted);
+  }
+
+  @Test
+  public void testAddAndRemove() {
+    final ToggleKeyIndex<String> index = new ToggleKeyIndex<>(keys);
+
+    assertThat(index.add("/feature/admin")).isFalse();
+    assertThat(index.remove("/feature/billing/invoices")).isTrue();
+    assertThat(index.remove("/feature/billing/invoices")).isFalse();
+    assertThat(index.remove("/feature/billing/")).isFalse();
+    assertThat(index.remove("/feature")).isFalse();
+    assertThat(index.contains("/feature/billing/invoices")).isFalse();
+    assertThat(index.contains("/feature/admin")).isTrue();
+    assertThat(index.keysWithPrefix("/feature/b")).isEmpty();
+
+    assertThat(index.add("")).isTrue();
+    assertThat(index.contains("")).isTrue();
+    assertThat(index.size()).isEqualTo(keys.size());
+  }
+
+  @Test
+  public void testApplyChanges() {
+    final ToggleKeyIndex<String> index = new ToggleKeyIndex<>(keys);
+
+    index.apply(Arrays.asList(
+      ToggleChange.added("/feature/new_hotness"),
+      ToggleChange.updated("/feature/admin"),
+      ToggleChange.removed("/feature/admin_widget")
+    ));
+
+    assertThat(index.keysWithPrefix("/feature/")).containsExactly(
+      "/feature/",
+      "/feature/admin",
+      "/feature/billing/invoices",
+      "/feature/new_hotness"
+    );
+  }
+}
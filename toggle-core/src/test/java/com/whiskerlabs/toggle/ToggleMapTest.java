@@ -0,0 +1,90 @@
+package com.whiskerlabs.toggle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ToggleMapTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+
+  private final ToggleMap<String, Integer> toggleMap = new ToggleMap<String, Integer>() {
+    @Override
+    public Toggle<Integer> apply(String key) {
+      if (key.equals(onKey)) {
+        return Toggle.alwaysTrue();
+      } else {
+        throw new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key);
+      }
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return Collections.singleton(onKey);
+    }
+  };
+
+  @Test
+  public void testGetAllOmitsNonexistentKeys() {
+    final Map<String, Toggle<Integer>> toggles = toggleMap.getAll(Arrays.asList(onKey, offKey));
+
+    assertThat(toggles).containsOnlyKeys(onKey);
+    assertThat(toggles.get(onKey).test(1)).isTrue();
+  }
+
+  @Test
+  public void testEvaluateAllEvaluatesNonexistentKeysToFalse() {
+    final ToggleEvaluations<String> evaluations =
+      toggleMap.evaluateAll(Arrays.asList(offKey, onKey), 1, null);
+
+    assertThat(evaluations.keys()).containsExactly(offKey, onKey);
+    assertThat(evaluations.get(0)).isFalse();
+    assertThat(evaluations.get(1)).isTrue();
+    assertThat(evaluations.isEnabled(onKey)).isTrue();
+    assertThat(evaluations.isEnabled("/feature/unevaluated")).isFalse();
+    assertThat(evaluations.toBitSet().cardinality()).isEqualTo(1);
+    assertThat(evaluations.toMap()).containsEntry(onKey, true).containsEntry(offKey, false);
+  }
+
+  @Test
+  public void testEvaluateAllKeys() {
+    final ToggleEvaluations<String> evaluations = toggleMap.evaluateAll(1, null);
+
+    assertThat(evaluations.keys()).containsExactly(onKey);
+    assertThat(evaluations.get(0)).isTrue();
+  }
+
+  @Test
+  public void testClosingSubscriptionTwiceRemovesOneRegistration() {
+    final List<ToggleChange<String>> changes = new ArrayList<>();
+    final ToggleChangeListener<String> listener = changes::addAll;
+    final ToggleSubscription first = toggleMap.subscribe(listener);
+    toggleMap.subscribe(listener);
+
+    first.close();
+    first.close();
+    toggleMap.notifyChanges(Collections.singletonList(ToggleChange.added(onKey)));
+
+    assertThat(changes).containsExactly(ToggleChange.added(onKey));
+  }
+
+  @Test
+  public void testCountsListenerFailuresAndNotifiesRemainingListeners() {
+    final List<ToggleChange<String>> changes = new ArrayList<>();
+    toggleMap.subscribe(c -> { throw new IllegalStateException(); });
+    toggleMap.subscribe(changes::addAll);
+
+    toggleMap.notifyChanges(Collections.singletonList(ToggleChange.added(onKey)));
+
+    assertThat(toggleMap.listenerFailureCount()).isEqualTo(1);
+    assertThat(changes).containsExactly(ToggleChange.added(onKey));
+  }
+}
@@ -2,6 +2,15 @@ package com.whiskerlabs.toggle;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -20,4 +29,178 @@ public class ToggleTest {
     assertThat(p.test("")).isFalse();
     assertThat(p.test("hi")).isFalse();
   }
+
+  @Test
+  public void testWithCohortPassesCohortThrough() {
+    final Toggle<String> toggle = new Toggle<String>() {
+      @Override
+      public boolean test(String t, String cohort) {
+        return "admin".equals(cohort);
+      }
+    };
+
+    assertThat(toggle.test("hi")).isFalse();
+    assertThat(toggle.test("hi", "admin")).isTrue();
+    assertThat(toggle.withCohort("admin").test("hi")).isTrue();
+    assertThat(toggle.withCohort("admin").withCohort("na").test("hi")).isFalse();
+  }
+
+  @Test
+  public void testCohortsAppliesFilterWhichComesFirstInSpecification() {
+    final Map<String, Integer> cohortValues = new LinkedHashMap<>();
+    cohortValues.put("employee", 10000);
+    cohortValues.put("eu", 0);
+    final CompiledToggle<String> toggle = new CompiledToggle<>(
+      "/feature/multi_cohort",
+      0,
+      cohortValues,
+      Collections.singletonList(
+        new MembershipFilter(MembershipSet.of(Collections.singletonList("acct-1")), 10000)
+      )
+    );
+
+    assertThat(toggle.valueForCohorts(Arrays.asList("eu", "employee"))).isEqualTo(10000);
+    assertThat(toggle.valueForCohorts(Arrays.asList("employee", "eu"))).isEqualTo(10000);
+    assertThat(toggle.valueForCohorts(Arrays.asList("eu", "acct-1"))).isEqualTo(0);
+    assertThat(toggle.valueForCohorts(Arrays.asList("na", "acct-1"))).isEqualTo(10000);
+    assertThat(toggle.valueForCohorts(Collections.emptyList())).isEqualTo(0);
+
+    assertThat(toggle.testCohorts("hi", Arrays.asList("eu", "employee"))).isTrue();
+    assertThat(toggle.withCohorts("eu", "employee").test("hi")).isTrue();
+    assertThat(toggle.withCohorts("eu", "na").test("hi")).isFalse();
+    assertThat(toggle.withCohorts("eu", "employee").withCohort("eu").test("hi")).isFalse();
+    assertThat(toggle.withCohorts("eu", "employee").testAll(Arrays.asList("a", "b")).cardinality())
+      .isEqualTo(2);
+    assertThat(toggle.resolveCohorts(Arrays.asList("na")).test("hi")).isFalse();
+  }
+
+  @Test
+  public void testMembershipFilterListedBeforeCohortFilterTakesPrecedence() {
+    final Map<String, Integer> cohortValues = new LinkedHashMap<>();
+    cohortValues.put("employee", 0);
+    cohortValues.put("eu", 0);
+    final CompiledToggle<String> toggle = new CompiledToggle<>(
+      "/feature/allow_list",
+      0,
+      cohortValues,
+      Arrays.asList(
+        new MembershipFilter(MembershipSet.of(Arrays.asList("acct-1", "eu")), 10000, 0),
+        new MembershipFilter(MembershipSet.of(Arrays.asList("acct-2", "employee")), 5000, 1)
+      )
+    );
+
+    // Listed before every cohort filter.
+    assertThat(toggle.valueFor("acct-1")).isEqualTo(10000);
+    assertThat(toggle.valueForCohorts(Arrays.asList("employee", "acct-1"))).isEqualTo(10000);
+    assertThat(toggle.valueFor("eu")).isEqualTo(10000);
+
+    // Listed after the "employee" cohort filter, but before "eu".
+    assertThat(toggle.valueFor("employee")).isEqualTo(0);
+    assertThat(toggle.valueForCohorts(Arrays.asList("employee", "acct-2"))).isEqualTo(0);
+    assertThat(toggle.valueForCohorts(Arrays.asList("eu", "acct-2"))).isEqualTo(10000);
+    assertThat(toggle.valueForCohorts(Arrays.asList("na", "acct-2"))).isEqualTo(5000);
+    assertThat(toggle.asLongToggle().testLong(1L, "acct-1")).isTrue();
+  }
+
+  @Test
+  public void testAllTestsEachInput() {
+    final Toggle<Integer> evenToggle = new Toggle<Integer>() {
+      @Override
+      public boolean test(Integer t, String cohort) {
+        return t % 2 == 0 || "admin".equals(cohort);
+      }
+    };
+    final List<Integer> inputs = Arrays.asList(0, 1, 2, 3, 4);
+
+    assertThat(evenToggle.testAll(inputs)).isEqualTo(bits(0, 2, 4));
+    assertThat(evenToggle.testAll(new LinkedList<>(inputs))).isEqualTo(bits(0, 2, 4));
+    assertThat(evenToggle.testAll(inputs, "admin")).isEqualTo(bits(0, 1, 2, 3, 4));
+    assertThat(evenToggle.withCohort("admin").testAll(inputs)).isEqualTo(bits(0, 1, 2, 3, 4));
+    assertThat(evenToggle.testAll(new Integer[] {3, 4}, null)).isEqualTo(bits(1));
+  }
+
+  @Test
+  public void testAllResolvesCohortWeightOnce() {
+    final CompiledToggle<Long> toggle = new CompiledToggle<>(
+      "/feature/beta_only",
+      0,
+      Collections.singletonMap("beta_tester", 10000)
+    );
+    final long[] subjectIds = {1, 2, 3};
+
+    assertThat(Toggle.testAll(toggle, subjectIds, null).cardinality()).isZero();
+    assertThat(Toggle.testAll(toggle, subjectIds, "beta_tester")).isEqualTo(bits(0, 1, 2));
+    assertThat(toggle.withCohort("beta_tester").testAll(Arrays.asList(1L, 2L))).isEqualTo(bits(0, 1));
+  }
+
+  @Test
+  public void testAllParallelMatchesSequential() {
+    final Toggle<Integer> multipleOfThree = new Toggle<Integer>() {
+      @Override
+      public boolean test(Integer t, String cohort) {
+        return t % 3 == 0;
+      }
+    };
+    final List<Integer> inputs = new ArrayList<>();
+
+    for (int i = 0; i < 100003; i++) {
+      inputs.add(i);
+    }
+
+    final BitSet expected = multipleOfThree.testAll(inputs);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      assertThat(multipleOfThree.testAllParallel(inputs, null, pool)).isEqualTo(expected);
+      assertThat(multipleOfThree.testAllParallel(new LinkedList<>(inputs), null)).isEqualTo(expected);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertThat(expected.cardinality()).isEqualTo(33335);
+  }
+
+  private static BitSet bits(int... indices) {
+    final BitSet bitSet = new BitSet();
+
+    for (final int index : indices) {
+      bitSet.set(index);
+    }
+
+    return bitSet;
+  }
+
+  @Test
+  public void testLongToggleOfCompiledToggleIsRetained() {
+    final CompiledToggle<Long> toggle = new CompiledToggle<>(
+      "/feature/beta_only",
+      0,
+      Collections.singletonMap("beta_tester", 10000)
+    );
+    final LongToggle longToggle = LongToggle.of(toggle);
+
+    assertThat(LongToggle.of(toggle)).isSameAs(longToggle);
+    assertThat(longToggle.testLong(42L)).isFalse();
+    assertThat(longToggle.testLong(42L, "beta_tester")).isTrue();
+    assertThat(longToggle.withCohort("beta_tester").test(42)).isTrue();
+    assertThat(longToggle.testLongCohorts(42L, Arrays.asList("employee", "beta_tester"))).isTrue();
+    assertThat(longToggle.resolve("employee").test(42L)).isFalse();
+    assertThat(longToggle.testAll(new long[] {1L, 2L, 3L}, "beta_tester").cardinality()).isEqualTo(3);
+  }
+
+  @Test
+  public void testLongToggleOfUncompiledToggleBoxes() {
+    final List<Long> ids = new ArrayList<>();
+    final LongToggle longToggle = LongToggle.of(new Toggle<Long>() {
+      @Override
+      public boolean test(Long id, String cohort) {
+        ids.add(id);
+        return "admin".equals(cohort);
+      }
+    });
+
+    assertThat(longToggle.testLong(7L)).isFalse();
+    assertThat(longToggle.withCohort("admin").testLong(8L)).isTrue();
+    assertThat(ids).containsExactly(7L, 8L);
+  }
 }
@@ -0,0 +1,195 @@
+package com.whiskerlabs.toggle.binary;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MappedToggleMapTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+  private static final String cohortKey = "/feature/ab_test/été";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testRoundTripsSnapshotThroughMappedFile() throws IOException {
+    final Path path = temporaryFolder.getRoot().toPath().resolve("toggles.bin");
+    BinarySnapshotWriter.write(snapshot(), path);
+
+    final MappedToggleMap<Integer> toggleMap = new MappedToggleMap<>(path);
+
+    assertThat(toggleMap.size()).isEqualTo(3);
+    assertThat(toggleMap.keySet()).containsOnly(onKey, offKey, cohortKey);
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    assertThat(toggleMap.apply(offKey).test(1)).isFalse();
+    assertThat(toggleMap.apply(cohortKey).test(1)).isFalse();
+    assertThat(toggleMap.apply(cohortKey).test(1, "beta_tester")).isTrue();
+    assertThat(toggleMap.get(cohortKey).cohortValues())
+      .containsOnlyKeys("beta_tester", "employé");
+    assertThat(toggleMap.get("/feature/nonexistent")).isNull();
+    assertThatThrownBy(() -> toggleMap.apply("/feature/nonexistent"))
+      .isInstanceOf(NoSuchElementException.class);
+    assertThat(toggleMap.toSnapshot().keySet()).containsOnly(onKey, offKey, cohortKey);
+  }
+
+  @Test
+  public void testFindsEveryKeyInLargeSnapshot() throws IOException {
+    final List<CompiledToggle<Integer>> toggles = new ArrayList<>();
+
+    for (int i = 0; i < 5000; i++) {
+      toggles.add(new CompiledToggle<>("/feature/" + i, i, Collections.emptyMap()));
+    }
+
+    final MappedToggleMap<Integer> toggleMap =
+      new MappedToggleMap<>(BinarySnapshotWriter.encode(ToggleSnapshot.of(toggles)));
+
+    for (int i = 0; i < 5000; i++) {
+      assertThat(toggleMap.get("/feature/" + i).value()).isEqualTo(i);
+    }
+    assertThat(toggleMap.get("/feature/5000")).isNull();
+  }
+
+  @Test
+  public void testReadsMembershipFiltersInPlace() throws IOException {
+    final CompiledToggle<Integer> toggle = new CompiledToggle<>(
+      onKey,
+      0,
+      Collections.emptyMap(),
+      Arrays.asList(
+        new MembershipFilter(MembershipSet.of(Arrays.asList("a", "b"), true), 10000, 0),
+        new MembershipFilter(MembershipSet.of(Arrays.asList("c")), 5000)
+      )
+    );
+
+    final MappedToggleMap<Integer> toggleMap = new MappedToggleMap<>(
+      BinarySnapshotWriter.encode(ToggleSnapshot.of(Collections.singletonList(toggle)))
+    );
+    final CompiledToggle<Integer> decoded = toggleMap.get(onKey);
+
+    assertThat(decoded.memberships()).hasSize(2);
+    assertThat(decoded.memberships().get(0).members().bloomFilter()).isNotNull();
+    assertThat(decoded.memberships().get(0).precedingCohortFilters()).isEqualTo(0);
+    assertThat(decoded.memberships().get(1).precedingCohortFilters()).isEqualTo(Integer.MAX_VALUE);
+    assertThat(decoded.valueFor("b")).isEqualTo(10000);
+    assertThat(decoded.valueFor("c")).isEqualTo(5000);
+    assertThat(decoded.valueFor("d")).isEqualTo(0);
+  }
+
+  @Test
+  public void testEmptySnapshot() throws IOException {
+    final MappedToggleMap<Integer> toggleMap =
+      new MappedToggleMap<>(BinarySnapshotWriter.encode(ToggleSnapshot.empty()));
+
+    assertThat(toggleMap.size()).isZero();
+    assertThat(toggleMap.keySet()).isEmpty();
+    assertThat(toggleMap.get(onKey)).isNull();
+  }
+
+  @Test
+  public void testRejectsFilesWhichAreNotBinarySnapshots() throws IOException {
+    final Path path = temporaryFolder.newFile("toggle_spec.json").toPath();
+    Files.write(path, "[{\"key\": \"/feature/always_on\"}]".getBytes(StandardCharsets.UTF_8));
+
+    assertThatThrownBy(() -> new MappedToggleMap<Integer>(path))
+      .isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> new MappedToggleMap<Integer>(ByteBuffer.allocate(4)))
+      .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void testRejectsOtherFormatVersions() {
+    final ByteBuffer encoded = BinarySnapshotWriter.encode(snapshot());
+    encoded.putInt(4, BinarySnapshotFormat.VERSION + 1);
+
+    assertThatThrownBy(() -> new MappedToggleMap<Integer>(encoded))
+      .isInstanceOf(IOException.class)
+      .hasMessageContaining("version");
+  }
+
+  @Test
+  public void testRetainsRecentlyDecodedToggles() throws IOException {
+    final MappedToggleMap<Integer> toggleMap =
+      new MappedToggleMap<>(BinarySnapshotWriter.encode(snapshot()));
+
+    final CompiledToggle<Integer> onToggle = toggleMap.get(onKey);
+
+    assertThat(toggleMap.get(onKey)).isSameAs(onToggle);
+    assertThat(toggleMap.get(cohortKey)).isSameAs(toggleMap.get(cohortKey));
+  }
+
+  @Test
+  public void testRejectsCorruptRecordsOnLookup() throws IOException {
+    final ByteBuffer encoded = BinarySnapshotWriter.encode(snapshot());
+    final int slot = BinarySnapshotFormat.hash(onKey) & (encoded.getInt(12) - 1);
+    final int indexOffset = BinarySnapshotFormat.indexOffset(slot);
+    final int recordOffset = encoded.getInt(indexOffset);
+    final int cohortCountOffset = recordOffset + 4 + encoded.getInt(recordOffset) + 4;
+
+    final ByteBuffer outOfBounds = copy(encoded);
+    outOfBounds.putInt(indexOffset, encoded.limit() - 2);
+    assertThatThrownBy(() -> new MappedToggleMap<Integer>(outOfBounds).get(onKey))
+      .isInstanceOf(UncheckedIOException.class)
+      .hasMessageContaining("Corrupt");
+
+    final ByteBuffer insideIndex = copy(encoded);
+    insideIndex.putInt(indexOffset, BinarySnapshotFormat.indexOffset(0));
+    assertThatThrownBy(() -> new MappedToggleMap<Integer>(insideIndex).get(onKey))
+      .isInstanceOf(UncheckedIOException.class);
+
+    final ByteBuffer hugeCohortCount = copy(encoded);
+    hugeCohortCount.putInt(cohortCountOffset, Integer.MAX_VALUE);
+    final MappedToggleMap<Integer> toggleMap = new MappedToggleMap<>(hugeCohortCount);
+    assertThatThrownBy(() -> toggleMap.get(onKey)).isInstanceOf(UncheckedIOException.class);
+    assertThatThrownBy(toggleMap::toSnapshot).isInstanceOf(UncheckedIOException.class);
+    assertThat(toggleMap.get(offKey).key()).isEqualTo(offKey);
+  }
+
+  @Test
+  public void testRejectsTruncatedIndexOnOpen() {
+    final ByteBuffer truncated = BinarySnapshotWriter.encode(snapshot());
+    truncated.limit(BinarySnapshotFormat.indexOffset(truncated.getInt(12)) - 1);
+
+    assertThatThrownBy(() -> new MappedToggleMap<Integer>(truncated))
+      .isInstanceOf(IOException.class);
+  }
+
+  private static ByteBuffer copy(ByteBuffer buffer) {
+    final ByteBuffer copy = ByteBuffer.allocate(buffer.limit());
+    copy.put(buffer.duplicate()).flip();
+    return copy;
+  }
+
+  private static ToggleSnapshot<Integer> snapshot() {
+    final Map<String, Integer> cohortValues = new HashMap<>();
+    cohortValues.put("beta_tester", 10000);
+    cohortValues.put("employé", 5000);
+
+    final List<CompiledToggle<Integer>> toggles = new ArrayList<>();
+    toggles.add(new CompiledToggle<>(onKey, 10000, Collections.emptyMap()));
+    toggles.add(new CompiledToggle<>(offKey, 0, Collections.emptyMap()));
+    toggles.add(new CompiledToggle<>(cohortKey, 0, cohortValues));
+    return ToggleSnapshot.of(toggles);
+  }
+}
@@ -0,0 +1,180 @@
+package com.whiskerlabs.toggle.exposure;
+
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleMap;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExposurePipelineTest {
+  private static final String onKey = "/feature/always_on";
+
+  private final ToggleMap<String, Integer> toggleMap = new ToggleMap<String, Integer>() {
+    @Override
+    public Toggle<Integer> apply(String key) {
+      return Toggle.alwaysTrue();
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return Collections.singleton(onKey);
+    }
+  };
+
+  @Test
+  public void testDeliversExposuresOnClose() throws Exception {
+    final List<ExposureEvent<Integer>> delivered = new ArrayList<>();
+    final ExposurePipeline<Integer> pipeline = new ExposurePipeline<>(delivered::addAll);
+    final ToggleMap<String, Integer> exposureToggleMap = new ExposureToggleMap<>(toggleMap, pipeline);
+
+    assertThat(exposureToggleMap.apply(onKey).test(1)).isTrue();
+    assertThat(exposureToggleMap.apply(onKey).withCohort("beta_tester").test(2)).isTrue();
+    pipeline.close();
+
+    assertThat(delivered).hasSize(2);
+    assertThat(delivered.get(0).key()).isEqualTo(onKey);
+    assertThat(delivered.get(0).cohort()).isNull();
+    assertThat(delivered.get(0).result()).isTrue();
+    assertThat(delivered.get(0).subject()).isEqualTo(1);
+    assertThat(delivered.get(1).cohort()).isEqualTo("beta_tester");
+    assertThat(delivered.get(1).subject()).isEqualTo(2);
+    assertThat(pipeline.droppedCount()).isEqualTo(0);
+    assertThat(pipeline.record(onKey, null, true, 3)).isFalse();
+  }
+
+  @Test
+  public void testDropsWithoutBlockingWhenSinkFallsBehind() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<ExposureEvent<Integer>> delivered = Collections.synchronizedList(new ArrayList<>());
+    final ExposurePipeline<Integer> pipeline = new ExposurePipeline<>(
+      events -> {
+        try {
+          release.await();
+        } catch (InterruptedException err) {
+          Thread.currentThread().interrupt();
+        }
+        delivered.addAll(events);
+      },
+      8,
+      4,
+      Duration.ofMillis(1),
+      BackpressurePolicy.DROP
+    );
+
+    int recorded = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (pipeline.record(onKey, null, true, i)) {
+        recorded++;
+      }
+    }
+
+    assertThat(pipeline.droppedCount()).isEqualTo(1000 - recorded);
+    assertThat(pipeline.droppedCount()).isGreaterThan(0);
+
+    release.countDown();
+    pipeline.close();
+
+    assertThat(delivered).hasSize(recorded);
+  }
+
+  @Test
+  public void testSamplesUnderBackpressure() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExposurePipeline<Integer> pipeline = new ExposurePipeline<>(
+      events -> {
+        try {
+          release.await();
+        } catch (InterruptedException err) {
+          Thread.currentThread().interrupt();
+        }
+      },
+      1024,
+      1,
+      Duration.ofMillis(1),
+      BackpressurePolicy.SAMPLE
+    );
+
+    for (int i = 0; i < 1024; i++) {
+      pipeline.record(onKey, null, true, i);
+    }
+
+    // Dropping would admit every event, as they all fit in the buffer.
+    assertThat(pipeline.droppedCount()).isGreaterThan(0);
+
+    release.countDown();
+    pipeline.close();
+  }
+
+  @Test
+  public void testConcurrentProducersLoseNoAdmittedEvents() throws Exception {
+    final List<ExposureEvent<Integer>> delivered = new ArrayList<>();
+    final ExposurePipeline<Integer> pipeline = new ExposurePipeline<>(
+      delivered::addAll,
+      64,
+      16,
+      Duration.ofMillis(1),
+      BackpressurePolicy.DROP
+    );
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      for (int p = 0; p < 4; p++) {
+        executor.execute(() -> {
+          for (int i = 0; i < 10000; i++) {
+            pipeline.record(onKey, null, true, i);
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    pipeline.close();
+
+    assertThat(delivered.size() + pipeline.droppedCount()).isEqualTo(40000);
+  }
+
+  @Test
+  public void testAccountsForEventsRecordedConcurrentlyWithClose() throws Exception {
+    final List<ExposureEvent<Integer>> delivered = Collections.synchronizedList(new ArrayList<>());
+    final ExposurePipeline<Integer> pipeline = new ExposurePipeline<>(
+      delivered::addAll,
+      1024,
+      16,
+      Duration.ofMillis(1),
+      BackpressurePolicy.DROP
+    );
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final CountDownLatch started = new CountDownLatch(4);
+
+    try {
+      for (int p = 0; p < 4; p++) {
+        executor.execute(() -> {
+          started.countDown();
+          for (int i = 0; i < 10000; i++) {
+            pipeline.record(onKey, null, true, i);
+          }
+        });
+      }
+
+      started.await();
+      pipeline.close();
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(delivered.size() + pipeline.droppedCount()).isEqualTo(40000);
+  }
+}
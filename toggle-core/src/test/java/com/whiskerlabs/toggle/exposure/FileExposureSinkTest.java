@@ -0,0 +1,39 @@
+package com.whiskerlabs.toggle.exposure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileExposureSinkTest {
+  private static final String onKey = "/feature/always_on";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testEscapesSeparatorsInFields() throws Exception {
+    final Path path = temporaryFolder.getRoot().toPath().resolve("exposures.tsv");
+
+    final FileExposureSink<String> sink = new FileExposureSink<>(path);
+    sink.write(Arrays.asList(
+      new ExposureEvent<>(onKey, null, true, 1L, "user\t1\nuser\\2"),
+      new ExposureEvent<>(onKey, "beta\r\ntester", false, 2L, null)
+    ));
+    sink.close();
+
+    final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+
+    assertThat(lines).containsExactly(
+      "1\t/feature/always_on\t\ttrue\tuser\\t1\\nuser\\\\2",
+      "2\t/feature/always_on\tbeta\\r\\ntester\tfalse\tnull"
+    );
+  }
+}
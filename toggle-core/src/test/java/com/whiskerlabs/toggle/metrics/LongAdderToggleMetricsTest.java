@@ -0,0 +1,117 @@
+package com.whiskerlabs.toggle.metrics;
+
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.SnapshotToggleMap;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongAdderToggleMetricsTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+
+  private final ToggleMap<String, Integer> toggleMap = new ToggleMap<String, Integer>() {
+    @Override
+    public Toggle<Integer> apply(String key) {
+      return key.equals(onKey) ? Toggle.alwaysTrue() : Toggle.alwaysFalse();
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return Collections.singleton(onKey);
+    }
+  };
+
+  @Test
+  public void testInstrumentedToggleMapCountsEvaluationsPerKey() {
+    final LongAdderToggleMetrics metrics = new LongAdderToggleMetrics();
+    final ToggleMap<String, Integer> instrumented = new InstrumentedToggleMap<>(toggleMap, metrics);
+
+    final Toggle<Integer> on = instrumented.apply(onKey);
+    assertThat(on.test(1)).isTrue();
+    assertThat(on.withCohort("foo").test(1)).isTrue();
+    assertThat(instrumented.apply(offKey).test(1)).isFalse();
+
+    assertThat(metrics.evaluationCounts()).containsOnlyKeys(onKey, offKey);
+    assertThat(metrics.evaluationCounts().get(onKey).trueCount()).isEqualTo(2);
+    assertThat(metrics.evaluationCounts().get(onKey).falseCount()).isEqualTo(0);
+    assertThat(metrics.evaluationCounts().get(offKey).falseCount()).isEqualTo(1);
+    assertThat(instrumented.keySet()).containsOnly(onKey);
+  }
+
+  @Test
+  public void testInstrumentedToggleMapCountsLongToggleEvaluations() {
+    final LongAdderToggleMetrics metrics = new LongAdderToggleMetrics();
+    final ToggleMap<String, Long> instrumented = new InstrumentedToggleMap<>(
+      new SnapshotToggleMap<Long>(ToggleSnapshot.of(Collections.singletonList(
+        new CompiledToggle<Long>(onKey, 10000, Collections.emptyMap())
+      ))),
+      metrics
+    );
+
+    final LongToggle on = LongToggle.lookUp(instrumented, onKey);
+    assertThat(on.testLong(1L)).isTrue();
+    assertThat(on.testLong(2L, "foo")).isTrue();
+
+    assertThat(metrics.evaluationCounts().get(onKey).trueCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testRecordsFallbacksAndLoads() {
+    final LongAdderToggleMetrics metrics = new LongAdderToggleMetrics();
+
+    metrics.recordFallback(onKey);
+    metrics.recordFallback(onKey);
+    metrics.recordLoad(1000, true);
+    metrics.recordLoad(3000, false);
+    metrics.recordListenerFailure(new IllegalStateException());
+
+    assertThat(metrics.fallbackCount(onKey)).isEqualTo(2);
+    assertThat(metrics.fallbackCount(offKey)).isEqualTo(0);
+    assertThat(metrics.loadFailureCount()).isEqualTo(1);
+    assertThat(metrics.listenerFailureCount()).isEqualTo(1);
+    assertThat(metrics.loadLatency().count()).isEqualTo(2);
+    assertThat(metrics.loadLatency().totalNanos()).isEqualTo(4000);
+  }
+
+  @Test
+  public void testAccumulatesKeysBeyondLimitInOverflowCounters() {
+    final LongAdderToggleMetrics metrics = new LongAdderToggleMetrics(1);
+
+    metrics.evaluations(onKey).record(true);
+    metrics.evaluations(offKey).record(false);
+    metrics.evaluations(onKey).record(true);
+    metrics.recordFallback(onKey);
+    metrics.recordFallback(offKey);
+
+    assertThat(metrics.evaluationCounts()).containsOnlyKeys(onKey);
+    assertThat(metrics.evaluationCounts().get(onKey).trueCount()).isEqualTo(2);
+    assertThat(metrics.overflowEvaluationCounts().falseCount()).isEqualTo(1);
+    assertThat(metrics.fallbackCount(onKey)).isEqualTo(1);
+    assertThat(metrics.fallbackCount(offKey)).isEqualTo(0);
+    assertThat(metrics.overflowFallbackCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testLatencyHistogramPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.percentileUpperBoundNanos(50)).isEqualTo(0);
+
+    for (int i = 0; i < 99; i++) {
+      histogram.record(100);
+    }
+    histogram.record(1000000);
+
+    assertThat(histogram.count(6)).isEqualTo(99);
+    assertThat(histogram.percentileUpperBoundNanos(50)).isEqualTo(128);
+    assertThat(histogram.percentileUpperBoundNanos(99)).isEqualTo(128);
+    assertThat(histogram.percentileUpperBoundNanos(100)).isEqualTo(1L << 20);
+  }
+}
@@ -0,0 +1,238 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.whiskerlabs.toggle.AsyncToggleMap;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link AsyncToggleMap} backed by an Amazon DynamoDB table.
+ *
+ * Lookups are issued through an {@link AmazonDynamoDBAsync} client and
+ * complete on the client's own executor, so the calling thread is
+ * never occupied while a request is in flight. Items are decoded
+ * exactly as by {@link DynamoDbToggleMap}.
+ *
+ * {@link #getAll} fetches keys using BatchGetItem in requests of up to
+ * 100 keys. Keys which DynamoDB leaves unprocessed, e.g. because the
+ * table is throttled, are then fetched with one GetItem request each,
+ * relying on the client's retry policy to back off.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class AsyncDynamoDbToggleMap<T> extends AsyncToggleMap<String, T> {
+  // BatchGetItem accepts at most 100 keys per request.
+  private static final int BATCH_GET_MAX_KEYS = 100;
+
+  private final AmazonDynamoDBAsync dynamoDb;
+  private final String tableName;
+
+  /**
+   * Constructs an {@code AsyncDynamoDbToggleMap}.
+   *
+   * @param dynamoDb An asynchronous DynamoDB client.
+   * @param tableName The name of the DynamoDB table defining toggles.
+   */
+  public AsyncDynamoDbToggleMap(AmazonDynamoDBAsync dynamoDb, String tableName) {
+    this.dynamoDb = dynamoDb;
+    this.tableName = tableName;
+  }
+
+  @Override
+  public CompletableFuture<Toggle<T>> apply(String key) {
+    final GetItemRequest request = new GetItemRequest()
+      .withTableName(tableName)
+      .withKey(Collections.singletonMap(
+        ToggleItems.KEY_ATTRIBUTE,
+        new AttributeValue().withS(key)
+      ));
+
+    final CompletableFuture<GetItemResult> result = new CompletableFuture<>();
+    send(result, () -> dynamoDb.getItemAsync(request, completing(result)));
+
+    return result.thenApply(getItemResult -> {
+      final Map<String, AttributeValue> item = getItemResult.getItem();
+      final Toggle<T> toggle = (item == null || item.isEmpty())
+        ? null
+        : ToggleItems.<T>decode(ItemUtils.toItem(item));
+
+      if (toggle == null) {
+        throw new ToggleNotFoundException(key);
+      }
+
+      return toggle;
+    });
+  }
+
+  /**
+   * Looks up the toggles identified by each of the argument keys using
+   * BatchGetItem, issuing requests for up to 100 keys concurrently.
+   */
+  @Override
+  public CompletableFuture<Map<String, Toggle<T>>> getAll(Collection<? extends String> keys) {
+    final List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+    final List<CompletableFuture<Map<String, Toggle<T>>>> batches = new ArrayList<>();
+
+    for (int i = 0; i < distinctKeys.size(); i += BATCH_GET_MAX_KEYS) {
+      batches.add(batchGet(
+        distinctKeys.subList(i, Math.min(i + BATCH_GET_MAX_KEYS, distinctKeys.size()))
+      ));
+    }
+
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      final Map<String, Toggle<T>> builder = new HashMap<>();
+
+      for (final CompletableFuture<Map<String, Toggle<T>>> batch : batches) {
+        builder.putAll(batch.join());
+      }
+
+      return Collections.unmodifiableMap(builder);
+    });
+  }
+
+  private CompletableFuture<Map<String, Toggle<T>>> batchGet(List<String> keys) {
+    final List<Map<String, AttributeValue>> keyAttributes = new ArrayList<>(keys.size());
+
+    for (final String key : keys) {
+      keyAttributes.add(Collections.singletonMap(
+        ToggleItems.KEY_ATTRIBUTE,
+        new AttributeValue().withS(key)
+      ));
+    }
+
+    final BatchGetItemRequest request = new BatchGetItemRequest()
+      .withRequestItems(Collections.singletonMap(
+        tableName,
+        new KeysAndAttributes().withKeys(keyAttributes)
+      ));
+
+    final CompletableFuture<BatchGetItemResult> result = new CompletableFuture<>();
+    send(result, () -> dynamoDb.batchGetItemAsync(request, completing(result)));
+
+    return result.thenCompose(batchGetItemResult -> {
+      final Map<String, Toggle<T>> toggles = new HashMap<>();
+      final List<Map<String, AttributeValue>> items = (batchGetItemResult.getResponses() == null)
+        ? Collections.emptyList()
+        : batchGetItemResult.getResponses().getOrDefault(tableName, Collections.emptyList());
+
+      for (final Map<String, AttributeValue> item : items) {
+        final Toggle<T> toggle = ToggleItems.<T>decode(ItemUtils.toItem(item));
+
+        if (toggle != null) {
+          toggles.put(item.get(ToggleItems.KEY_ATTRIBUTE).getS(), toggle);
+        }
+      }
+
+      final Map<String, KeysAndAttributes> unprocessedKeys = batchGetItemResult.getUnprocessedKeys();
+      final List<String> unprocessed = (unprocessedKeys == null)
+        ? Collections.emptyList()
+        : DynamoDbToggleMap.keysOf(unprocessedKeys.get(tableName));
+
+      if (unprocessed.isEmpty()) {
+        return CompletableFuture.completedFuture(toggles);
+      }
+
+      // Look the rest up one at a time, rather than backing off here.
+      return super.getAll(unprocessed).thenApply(rest -> {
+        toggles.putAll(rest);
+        return toggles;
+      });
+    });
+  }
+
+  @Override
+  public CompletableFuture<Set<String>> keySet() {
+    final CompletableFuture<Set<String>> keys = new CompletableFuture<>();
+    scanKeys(null, new HashSet<>(), keys);
+    return keys;
+  }
+
+  // Scans one page of keys, then chains the scan of the next page off
+  // of its completion rather than blocking on it.
+  private void scanKeys(
+    Map<String, AttributeValue> exclusiveStartKey,
+    Set<String> builder,
+    CompletableFuture<Set<String>> keys
+  ) {
+    final ScanRequest request = new ScanRequest()
+      .withTableName(tableName)
+      .withProjectionExpression(ToggleItems.KEY_ATTRIBUTE)
+      .withExclusiveStartKey(exclusiveStartKey);
+
+    final CompletableFuture<ScanResult> page = new CompletableFuture<>();
+    send(page, () -> dynamoDb.scanAsync(request, completing(page)));
+
+    page.whenComplete((scanResult, err) -> {
+      if (err != null) {
+        keys.completeExceptionally(err);
+        return;
+      }
+
+      for (final Map<String, AttributeValue> item : scanResult.getItems()) {
+        final AttributeValue key = item.get(ToggleItems.KEY_ATTRIBUTE);
+
+        if (key != null && key.getS() != null) {
+          builder.add(key.getS());
+        }
+      }
+
+      final Map<String, AttributeValue> lastEvaluatedKey = scanResult.getLastEvaluatedKey();
+
+      if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+        keys.complete(Collections.unmodifiableSet(builder));
+      } else {
+        scanKeys(lastEvaluatedKey, builder, keys);
+      }
+    });
+  }
+
+  // The client may throw instead of calling back, e.g. once it has been
+  // shut down, in which case the argument future is failed rather than
+  // the exception escaping to the caller.
+  private static void send(CompletableFuture<?> future, Runnable request) {
+    try {
+      request.run();
+    } catch (RuntimeException err) {
+      future.completeExceptionally(err);
+    }
+  }
+
+  private static <REQ extends AmazonWebServiceRequest, RES> AsyncHandler<REQ, RES> completing(
+    CompletableFuture<RES> future
+  ) {
+    return new AsyncHandler<REQ, RES>() {
+      @Override
+      public void onError(Exception err) {
+        future.completeExceptionally(err);
+      }
+
+      @Override
+      public void onSuccess(REQ request, RES result) {
+        future.complete(result);
+      }
+    };
+  }
+}
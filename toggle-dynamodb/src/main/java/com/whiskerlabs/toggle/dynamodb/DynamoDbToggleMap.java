@@ -1,20 +1,34 @@
 package com.whiskerlabs.toggle.dynamodb;
 
+import com.amazonaws.services.dynamodbv2.document.BatchGetItemOutcome;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.Table;
-import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.amazonaws.services.dynamodbv2.document.TableKeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.whiskerlabs.toggle.CompiledToggle;
 import com.whiskerlabs.toggle.Toggle;
 import com.whiskerlabs.toggle.ToggleMap;
-import com.whiskerlabs.toggle.json.ToggleJsonNode;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import com.whiskerlabs.toggle.ToggleSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link ToggleMap} backed by an Amazon DynamoDB table.
@@ -23,25 +37,82 @@ import java.util.Set;
  * table. There is a one-to-one correspondence between toggles and
  * items in the table.
  *
- * The DynamoDB table is consulted on each toggle test, meaning that
- * toggle application entails a network call. Users are advised to
+ * The DynamoDB table is consulted on each toggle lookup, meaning that
+ * toggle application entails a network call. Fetched items are
+ * decoded directly into {@link CompiledToggle CompiledToggles}, so
+ * testing a toggle does not consult the item. Users are advised to
  * wrap a {@code DynamoDbToggleMap} in a {@code CachingToggleMap} in
- * order to limit the frequency with which the underlying {@code
- * JsonNode} is consulted.
+ * order to limit the frequency with which the underlying table is
+ * consulted.
+ *
+ * DynamoDB doesn't push changes to readers, so subscribed listeners
+ * are only notified while the table is being polled for changes; see
+ * {@link #pollChanges}.
  *
  * @param <T> The toggle input type. The toggle is applied to
  *            instances of type {@code T}.
  */
 public class DynamoDbToggleMap<T> extends ToggleMap<String, T> {
-  private static final ScanSpec KEY_SET_SCAN_SPEC = new ScanSpec()
-    .withProjectionExpression("toggle_key");
+  // BatchGetItem accepts at most 100 keys per request.
+  private static final int BATCH_GET_MAX_KEYS = 100;
+  private static final int BATCH_GET_MAX_RETRIES = 8;
+  private static final long BATCH_GET_INITIAL_BACKOFF_MILLIS = 50;
 
   private static final Logger logger = LoggerFactory.getLogger(DynamoDbToggleMap.class);
 
+  private final DynamoDB dynamoDb;
   private final Table dynamoDbTable;
+  private final ParallelScan parallelScan;
 
+  /**
+   * Constructs a {@code DynamoDbToggleMap} backed by the argument
+   * table.
+   *
+   * A {@code Table} doesn't expose its client, so toggle maps
+   * constructed this way can't use BatchGetItem: {@link #getAll}
+   * issues one GetItem request per key. Construct the map from a
+   * {@code DynamoDB} client instead in order to look toggles up in
+   * bulk.
+   *
+   * @param dynamoDbTable The DynamoDB table defining toggles.
+   */
   public DynamoDbToggleMap(Table dynamoDbTable) {
+    this.dynamoDb = null;
     this.dynamoDbTable = dynamoDbTable;
+    this.parallelScan = new ParallelScan(dynamoDbTable);
+  }
+
+  /**
+   * Constructs a {@code DynamoDbToggleMap} which looks up toggles in
+   * bulk using BatchGetItem.
+   *
+   * @param dynamoDb A {@code DynamoDB} client.
+   * @param tableName The name of the DynamoDB table defining toggles.
+   */
+  public DynamoDbToggleMap(DynamoDB dynamoDb, String tableName) {
+    this(dynamoDb, tableName, Runnable::run, 1);
+  }
+
+  /**
+   * Constructs a {@code DynamoDbToggleMap} which looks up toggles in
+   * bulk using BatchGetItem and reads the whole table using a
+   * parallel scan.
+   *
+   * @param dynamoDb A {@code DynamoDB} client.
+   * @param tableName The name of the DynamoDB table defining toggles.
+   * @param scanExecutor The executor on which to scan table segments.
+   * @param scanSegments The number of segments to divide table scans
+   *        into.
+   */
+  public DynamoDbToggleMap(
+    DynamoDB dynamoDb,
+    String tableName,
+    Executor scanExecutor,
+    int scanSegments
+  ) {
+    this.dynamoDb = dynamoDb;
+    this.dynamoDbTable = dynamoDb.getTable(tableName);
+    this.parallelScan = new ParallelScan(dynamoDbTable, scanExecutor, scanSegments);
   }
 
   @Override
@@ -50,40 +121,167 @@ public class DynamoDbToggleMap<T> extends ToggleMap<String, T> {
 
     if (item == null) {
       // TODO: Log the error.
-      throw new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key);
+      throw new ToggleNotFoundException(key);
+    }
+
+    final Toggle<T> toggle = ToggleItems.<T>decode(item);
+
+    if (toggle == null) {
+      throw new ToggleNotFoundException(key);
     }
 
-    final JsonNode toggleNode = ToggleJsonNode.fromString(item.toJSON());
+    return toggle;
+  }
 
-     if (toggleNode.isMissingNode()) {
-       throw new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key);
-     }
+  /**
+   * Looks up the toggles identified by each of the argument keys.
+   *
+   * If this toggle map was constructed with a {@code DynamoDB}
+   * client, keys are fetched using BatchGetItem in requests of up to
+   * 100 keys. Unprocessed keys are retried with exponential backoff.
+   * Otherwise, each key is fetched with its own GetItem request.
+   *
+   * @param keys The keys of the toggles to look up.
+   * @return An unmodifiable map from each key which identifies a
+   *         toggle to that toggle.
+   * @throws UnprocessedKeysException If any keys remain unprocessed
+   *         after retrying, or the calling thread is interrupted while
+   *         backing off, so that callers can tell keys whose toggles
+   *         are unknown from keys which identify no toggle.
+   */
+  @Override
+  public Map<String, Toggle<T>> getAll(Collection<? extends String> keys) {
+    if (dynamoDb == null) {
+      return super.getAll(keys);
+    }
 
-    return new Toggle<T>() {
-      @Override
-      protected boolean test(T t, Optional<String> cohortOpt) {
-        final JsonNode filterNode =
-          ToggleJsonNode.findByCohort(toggleNode.path("filter"), cohortOpt);
-
-        if (filterNode.isMissingNode()) {
-          // No filter found for cohort. Weight result by default value.
-          return nextBoolean(toggleNode.path("toggle_value").intValue());
-        } else {
-          // Filter found for cohort. Weight result by the filter's value.
-          return nextBoolean(filterNode.path("toggle_value").intValue());
+    final Map<String, Toggle<T>> builder = new HashMap<>();
+    final List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+
+    for (int i = 0; i < distinctKeys.size(); i += BATCH_GET_MAX_KEYS) {
+      final List<String> chunk =
+        distinctKeys.subList(i, Math.min(i + BATCH_GET_MAX_KEYS, distinctKeys.size()));
+
+      for (final Item item : batchGetItems(chunk)) {
+        final Toggle<T> toggle = ToggleItems.<T>decode(item);
+
+        if (toggle != null) {
+          builder.put(item.getString("toggle_key"), toggle);
         }
       }
-    };
+    }
+
+    return Collections.unmodifiableMap(builder);
+  }
+
+  private List<Item> batchGetItems(List<String> keys) {
+    final String tableName = dynamoDbTable.getTableName();
+    final List<Item> items = new ArrayList<>();
+
+    BatchGetItemOutcome outcome = dynamoDb.batchGetItem(
+      new TableKeysAndAttributes(tableName)
+        .addHashOnlyPrimaryKeys("toggle_key", keys.toArray())
+    );
+    long backoffMillis = BATCH_GET_INITIAL_BACKOFF_MILLIS;
+
+    for (int retries = 0; ; retries++) {
+      items.addAll(outcome.getTableItems().getOrDefault(tableName, Collections.emptyList()));
+
+      final Map<String, KeysAndAttributes> unprocessedKeys = outcome.getUnprocessedKeys();
+
+      if (unprocessedKeys == null || unprocessedKeys.isEmpty()) {
+        return items;
+      } else if (retries == BATCH_GET_MAX_RETRIES) {
+        logger.warn("Giving up on unprocessed keys in table {} after {} retries", tableName, retries);
+        throw new UnprocessedKeysException(tableName, keysOf(unprocessedKeys.get(tableName)));
+      }
+
+      try {
+        backOff(backoffMillis);
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+        throw new UnprocessedKeysException(tableName, keysOf(unprocessedKeys.get(tableName)));
+      }
+
+      backoffMillis *= 2;
+      outcome = dynamoDb.batchGetItemUnprocessed(unprocessedKeys);
+    }
+  }
+
+  /**
+   * Waits for the argument number of milliseconds before unprocessed
+   * keys are retried.
+   */
+  void backOff(long millis) throws InterruptedException {
+    Thread.sleep(millis);
+  }
+
+  static List<String> keysOf(KeysAndAttributes keysAndAttributes) {
+    final List<String> keys = new ArrayList<>();
+
+    if (keysAndAttributes != null && keysAndAttributes.getKeys() != null) {
+      for (final Map<String, AttributeValue> key : keysAndAttributes.getKeys()) {
+        keys.add(key.get("toggle_key").getS());
+      }
+    }
+
+    return keys;
   }
 
   @Override
   public Set<String> keySet() {
-    final HashSet<String> builder = new HashSet<>();
+    return Collections.unmodifiableSet(new HashSet<>(
+      parallelScan.scan("toggle_key", item -> item.getString("toggle_key"))
+    ));
+  }
 
-    for (final Item item : dynamoDbTable.scan(KEY_SET_SCAN_SPEC)) {
-      builder.add(item.getString("toggle_key"));
-    }
+  /**
+   * Reads every toggle in the backing table in a single pass.
+   *
+   * The table is scanned in parallel if this toggle map was
+   * constructed with more than one scan segment, making this suitable
+   * for warming caches on startup.
+   *
+   * @return A {@code ToggleSnapshot} of every toggle in the table.
+   */
+  public ToggleSnapshot<T> scanAll() {
+    return ToggleSnapshot.of(parallelScan.scan(null, ToggleItems::<T>decode));
+  }
+
+  /**
+   * Schedules periodic scans of the backing table on the argument
+   * executor, notifying subscribed listeners of the toggles which
+   * changed between consecutive scans.
+   *
+   * The first scan runs immediately and establishes the baseline
+   * against which the next is compared, so it notifies no
+   * listeners. Failed scans are logged and retried at the next
+   * scheduled poll, and are compared against the last successful
+   * scan.
+   *
+   * @param executor The executor on which to scan the table.
+   * @param interval The delay between scans.
+   * @return A {@link ScheduledFuture} which may be cancelled to stop
+   *         polling.
+   */
+  public ScheduledFuture<?> pollChanges(ScheduledExecutorService executor, Duration interval) {
+    return executor.scheduleWithFixedDelay(new Runnable() {
+      private ToggleSnapshot<T> previous = null;
 
-    return Collections.unmodifiableSet(builder);
+      @Override
+      public void run() {
+        try {
+          final ToggleSnapshot<T> current = scanAll();
+
+          if (previous != null) {
+            notifyChanges(current.diff(previous));
+          }
+
+          previous = current;
+        } catch (RuntimeException err) {
+          logger.warn("Failed to poll toggles from table {}", dynamoDbTable.getTableName(), err);
+        }
+      }
+    }, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
   }
 }
@@ -0,0 +1,128 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Scans a whole DynamoDB table, optionally dividing the scan into
+ * segments which are scanned in parallel.
+ *
+ * With {@code n} segments, the table is read by {@code n} concurrent
+ * {@code Scan} requests, each covering a disjoint {@code 1/n} of the
+ * table, so that the time taken to read a large table scales down with
+ * the number of segments.
+ */
+public class ParallelScan {
+  private final Table dynamoDbTable;
+  private final Executor executor;
+  private final int totalSegments;
+
+  /**
+   * Constructs a {@code ParallelScan} which scans sequentially on the
+   * calling thread.
+   *
+   * @param dynamoDbTable The DynamoDB table to scan.
+   */
+  public ParallelScan(Table dynamoDbTable) {
+    this(dynamoDbTable, Runnable::run, 1);
+  }
+
+  /**
+   * Constructs a {@code ParallelScan}.
+   *
+   * @param dynamoDbTable The DynamoDB table to scan.
+   * @param executor The executor on which to scan segments.
+   * @param totalSegments The number of segments to divide each scan
+   *        into.
+   */
+  public ParallelScan(Table dynamoDbTable, Executor executor, int totalSegments) {
+    if (totalSegments < 1) {
+      throw new IllegalArgumentException("totalSegments must be positive: " + totalSegments);
+    }
+
+    this.dynamoDbTable = dynamoDbTable;
+    this.executor = executor;
+    this.totalSegments = totalSegments;
+  }
+
+  /**
+   * @return The number of segments each scan is divided into.
+   */
+  public int totalSegments() {
+    return totalSegments;
+  }
+
+  /**
+   * Scans the whole table, mapping each item with the argument
+   * function.
+   *
+   * @param <R> The type of the values produced from items.
+   * @param projectionExpression A projection expression limiting the
+   *        attributes read from each item, or {@code null} to read
+   *        every attribute.
+   * @param mapper A function mapping each item to a value, or to
+   *        {@code null} if the item should be skipped.
+   * @return The non-null values produced from every item in the
+   *         table, in no particular order.
+   */
+  public <R> List<R> scan(String projectionExpression, Function<Item, R> mapper) {
+    if (totalSegments == 1) {
+      return scanSegment(newScanSpec(projectionExpression), mapper);
+    }
+
+    final List<CompletableFuture<List<R>>> futures = new ArrayList<>(totalSegments);
+
+    for (int segment = 0; segment < totalSegments; segment++) {
+      final ScanSpec scanSpec = newScanSpec(projectionExpression)
+        .withSegment(segment)
+        .withTotalSegments(totalSegments);
+
+      futures.add(CompletableFuture.supplyAsync(() -> scanSegment(scanSpec, mapper), executor));
+    }
+
+    final List<R> results = new ArrayList<>();
+
+    try {
+      for (final CompletableFuture<List<R>> future : futures) {
+        results.addAll(future.join());
+      }
+    } catch (CompletionException err) {
+      if (err.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) err.getCause();
+      }
+
+      throw err;
+    }
+
+    return results;
+  }
+
+  private <R> List<R> scanSegment(ScanSpec scanSpec, Function<Item, R> mapper) {
+    final List<R> results = new ArrayList<>();
+
+    for (final Item item : dynamoDbTable.scan(scanSpec)) {
+      final R result = mapper.apply(item);
+
+      if (result != null) {
+        results.add(result);
+      }
+    }
+
+    return results;
+  }
+
+  private static ScanSpec newScanSpec(String projectionExpression) {
+    final ScanSpec scanSpec = new ScanSpec();
+    return (projectionExpression == null)
+      ? scanSpec
+      : scanSpec.withProjectionExpression(projectionExpression);
+  }
+}
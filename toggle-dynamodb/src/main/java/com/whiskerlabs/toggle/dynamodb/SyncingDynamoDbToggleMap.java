@@ -0,0 +1,328 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.SnapshotToggleMap;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SnapshotToggleMap} which is kept in sync with an Amazon
+ * DynamoDB table incrementally.
+ *
+ * Each item in the backing table is expected to carry a numeric
+ * version attribute, e.g. a monotonically increasing counter or an
+ * updated-at timestamp in milliseconds, which increases whenever the
+ * item is written. The map remembers the highest version it has
+ * observed, its <em>watermark</em>, and each incremental sync only
+ * fetches items whose version is at least the watermark. Fetched items
+ * are applied to a copy of the in-memory snapshot, which then
+ * replaces the current snapshot.
+ *
+ * Incremental syncs cannot observe deleted items, so the whole table
+ * is periodically re-read and the snapshot rebuilt from scratch.
+ * Subscribed listeners are notified of the toggles which each sync
+ * added, updated or, for full syncs, removed.
+ *
+ * Incremental syncs query a global secondary index on the version
+ * attribute, so that each costs read capacity in proportion to the
+ * items changed since the watermark rather than to the size of the
+ * table. A query must name a single partition, so every toggle item
+ * carries a partition attribute with the same value, e.g. {@code
+ * toggle_partition = "toggles"}, which is the index's partition key;
+ * the version attribute is its sort key. The index must project every
+ * toggle attribute, e.g. with projection type {@code ALL}.
+ *
+ * Index queries and scans are eventually consistent reads, so an
+ * incremental sync may not observe an item written just before it. If
+ * such an item's version is below the watermark by the next sync, no
+ * later incremental sync fetches it; only the periodic full sync
+ * recovers it.
+ *
+ * Maps constructed without an index fall back to a filtered {@code
+ * Scan}. DynamoDB charges read capacity for every item a scan
+ * examines, so each incremental sync then costs as much as a full
+ * sync; this is only suitable for small tables. Overriding {@link
+ * #fetchChangedItems} and {@link #fetchAllItems} allows the sync logic
+ * to be exercised against an in-memory stand-in for the table.
+ *
+ * Constructing a map reads nothing from the table. Call {@link
+ * #fullSync} or {@link #schedule} to load it.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class SyncingDynamoDbToggleMap<T> extends SnapshotToggleMap<T> {
+  private static final Logger logger = LoggerFactory.getLogger(SyncingDynamoDbToggleMap.class);
+
+  private final Table dynamoDbTable;
+  private final ParallelScan parallelScan;
+  private final String versionAttribute;
+  private final String versionIndexName;
+  private final String partitionAttribute;
+  private final String partitionValue;
+
+  private long watermark = Long.MIN_VALUE;
+
+  /**
+   * Constructs a {@code SyncingDynamoDbToggleMap} whose incremental
+   * syncs scan the whole backing table.
+   *
+   * @param dynamoDbTable The DynamoDB table defining toggles.
+   * @param versionAttribute The name of the numeric item attribute
+   *        which increases whenever an item is written.
+   */
+  public SyncingDynamoDbToggleMap(Table dynamoDbTable, String versionAttribute) {
+    this(dynamoDbTable, new ParallelScan(dynamoDbTable), versionAttribute);
+  }
+
+  /**
+   * Constructs a {@code SyncingDynamoDbToggleMap} whose full syncs
+   * read the backing table using the argument {@link ParallelScan},
+   * and whose incremental syncs scan the whole backing table.
+   *
+   * @param dynamoDbTable The DynamoDB table defining toggles.
+   * @param parallelScan The scan with which to read the whole table.
+   * @param versionAttribute The name of the numeric item attribute
+   *        which increases whenever an item is written.
+   */
+  public SyncingDynamoDbToggleMap(
+    Table dynamoDbTable,
+    ParallelScan parallelScan,
+    String versionAttribute
+  ) {
+    this(dynamoDbTable, parallelScan, versionAttribute, null, null, null);
+  }
+
+  /**
+   * Constructs a {@code SyncingDynamoDbToggleMap} whose incremental
+   * syncs query a global secondary index on the version attribute.
+   *
+   * @param dynamoDbTable The DynamoDB table defining toggles.
+   * @param versionAttribute The name of the numeric item attribute
+   *        which increases whenever an item is written, and the sort
+   *        key of the index.
+   * @param versionIndexName The name of the index.
+   * @param partitionAttribute The name of the partition key of the
+   *        index.
+   * @param partitionValue The value of {@code partitionAttribute}
+   *        shared by every toggle item.
+   */
+  public SyncingDynamoDbToggleMap(
+    Table dynamoDbTable,
+    String versionAttribute,
+    String versionIndexName,
+    String partitionAttribute,
+    String partitionValue
+  ) {
+    this(
+      dynamoDbTable,
+      new ParallelScan(dynamoDbTable),
+      versionAttribute,
+      versionIndexName,
+      partitionAttribute,
+      partitionValue
+    );
+  }
+
+  /**
+   * Constructs a {@code SyncingDynamoDbToggleMap} whose full syncs
+   * read the backing table using the argument {@link ParallelScan},
+   * and whose incremental syncs query a global secondary index on the
+   * version attribute.
+   *
+   * @param dynamoDbTable The DynamoDB table defining toggles.
+   * @param parallelScan The scan with which to read the whole table.
+   * @param versionAttribute The name of the numeric item attribute
+   *        which increases whenever an item is written, and the sort
+   *        key of the index.
+   * @param versionIndexName The name of the index, or {@code null} to
+   *        scan the table instead.
+   * @param partitionAttribute The name of the partition key of the
+   *        index.
+   * @param partitionValue The value of {@code partitionAttribute}
+   *        shared by every toggle item.
+   */
+  public SyncingDynamoDbToggleMap(
+    Table dynamoDbTable,
+    ParallelScan parallelScan,
+    String versionAttribute,
+    String versionIndexName,
+    String partitionAttribute,
+    String partitionValue
+  ) {
+    super(ToggleSnapshot.<T>empty());
+    this.dynamoDbTable = dynamoDbTable;
+    this.parallelScan = parallelScan;
+    this.versionAttribute = versionAttribute;
+    this.versionIndexName = versionIndexName;
+    this.partitionAttribute = partitionAttribute;
+    this.partitionValue = partitionValue;
+  }
+
+  /**
+   * @return The highest item version observed so far.
+   */
+  public synchronized long watermark() {
+    return watermark;
+  }
+
+  /**
+   * Fetches items changed since the last sync and applies them to the
+   * current snapshot. Fetched toggles equal to those already in the
+   * snapshot are ignored, and if no toggle changed, the snapshot is
+   * not replaced.
+   */
+  public synchronized void sync() {
+    final ToggleSnapshot<T> current = snapshot();
+    final List<CompiledToggle<T>> changed = new ArrayList<>();
+    long newWatermark = watermark;
+
+    for (final Item item : fetchChangedItems(versionAttribute, watermark)) {
+      final CompiledToggle<T> toggle = ToggleItems.<T>decode(item);
+
+      if (toggle != null) {
+        newWatermark = Math.max(newWatermark, versionOf(item));
+
+        // Items at the watermark are re-fetched on every sync, and are
+        // usually unchanged.
+        if (!toggle.equals(current.get(toggle.key()))) {
+          changed.add(toggle);
+        }
+      }
+    }
+
+    if (!changed.isEmpty()) {
+      publish(current.with(changed));
+    }
+
+    watermark = newWatermark;
+  }
+
+  /**
+   * Reads the whole backing table and replaces the current snapshot
+   * with its contents, dropping toggles whose items were deleted.
+   */
+  public synchronized void fullSync() {
+    final List<CompiledToggle<T>> toggles = new ArrayList<>();
+    long newWatermark = Long.MIN_VALUE;
+
+    for (final Item item : fetchAllItems()) {
+      final CompiledToggle<T> toggle = ToggleItems.<T>decode(item);
+
+      if (toggle != null) {
+        toggles.add(toggle);
+        newWatermark = Math.max(newWatermark, versionOf(item));
+      }
+    }
+
+    publish(ToggleSnapshot.of(toggles));
+    watermark = newWatermark;
+  }
+
+  /**
+   * Performs a full sync on the calling thread, then schedules
+   * incremental and full syncs on the argument executor.
+   *
+   * Failed scheduled syncs are logged and retried at the next
+   * scheduled sync; the current snapshot continues to be served in the
+   * meantime.
+   *
+   * @param executor The executor on which to run syncs.
+   * @param syncInterval The delay between incremental syncs.
+   * @param fullSyncInterval The delay between full syncs.
+   * @return A {@link ScheduledFuture} which may be cancelled to stop
+   *         syncing.
+   * @throws RuntimeException If the initial full sync fails, in which
+   *         case nothing is scheduled.
+   */
+  public ScheduledFuture<?> schedule(
+    ScheduledExecutorService executor,
+    Duration syncInterval,
+    Duration fullSyncInterval
+  ) {
+    final long fullSyncEvery =
+      Math.max(1, fullSyncInterval.toNanos() / syncInterval.toNanos());
+
+    fullSync();
+
+    return executor.scheduleWithFixedDelay(new Runnable() {
+      private long syncs = 0;
+
+      @Override
+      public void run() {
+        try {
+          if (++syncs % fullSyncEvery == 0) {
+            fullSync();
+          } else {
+            sync();
+          }
+        } catch (RuntimeException err) {
+          logger.warn("Failed to sync toggles from table {}", dynamoDbTable.getTableName(), err);
+        }
+      }
+    }, syncInterval.toNanos(), syncInterval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Fetches the items whose version is at least the argument
+   * watermark.
+   *
+   * Items at exactly the watermark are re-fetched so that writes
+   * which share a version with the last observed write are not
+   * missed.
+   *
+   * @param versionAttribute The name of the item version attribute.
+   * @param watermark The highest item version observed so far.
+   * @return The items written since the watermark was observed.
+   */
+  protected Iterable<Item> fetchChangedItems(String versionAttribute, long watermark) {
+    final Map<String, String> names = new HashMap<>();
+    final Map<String, Object> values = new HashMap<>();
+    names.put("#version", versionAttribute);
+    values.put(":watermark", watermark);
+
+    if (versionIndexName == null) {
+      return dynamoDbTable.scan(new ScanSpec()
+        .withFilterExpression("#version >= :watermark")
+        .withNameMap(names)
+        .withValueMap(values));
+    }
+
+    names.put("#partition", partitionAttribute);
+    values.put(":partition", partitionValue);
+
+    return dynamoDbTable.getIndex(versionIndexName).query(new QuerySpec()
+      .withKeyConditionExpression("#partition = :partition AND #version >= :watermark")
+      .withNameMap(names)
+      .withValueMap(values));
+  }
+
+  /**
+   * Fetches every item in the backing table.
+   *
+   * @return Every item in the backing table.
+   */
+  protected Iterable<Item> fetchAllItems() {
+    return parallelScan.scan(null, item -> item);
+  }
+
+  private long versionOf(Item item) {
+    final BigDecimal version = item.getNumber(versionAttribute);
+    return (version == null) ? Long.MIN_VALUE : version.longValue();
+  }
+}
@@ -0,0 +1,112 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A collection of functions which decode DynamoDB {@link Item Items}
+ * that define toggles.
+ *
+ * Items are decoded directly from their attributes, without first
+ * being serialized to and re-parsed from JSON.
+ */
+public class ToggleItems {
+  public static final String KEY_ATTRIBUTE = "toggle_key";
+  public static final String VALUE_ATTRIBUTE = "toggle_value";
+  public static final String FILTER_ATTRIBUTE = "filter";
+
+  private ToggleItems() { /* singleton */ }
+
+  /**
+   * Decodes the argument {@link Item} into a {@link CompiledToggle}.
+   *
+   * Follows the same rules as {@code ToggleJsonNode.compile}: a
+   * missing or non-numeric weight is treated as zero, and the first
+   * filter matching a given cohort takes precedence, whether it is a
+   * cohort or a membership filter. The
+   * {@code targets} of a membership filter may be a list or a string
+   * or number set.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param item A DynamoDB item defining a toggle.
+   * @return A {@code CompiledToggle} equivalent to {@code item}, or
+   *         else {@code null} if {@code item} has no string key.
+   */
+  public static <T> CompiledToggle<T> decode(Item item) {
+    final Object key = item.get(KEY_ATTRIBUTE);
+
+    if (!(key instanceof String)) {
+      return null;
+    }
+
+    final Map<String, Integer> cohortValues = new LinkedHashMap<>();
+    final List<MembershipFilter> memberships = new ArrayList<>();
+    final Object filter = item.get(FILTER_ATTRIBUTE);
+
+    if (filter instanceof List) {
+      for (final Object containedFilter : (List<?>) filter) {
+        putFilter(cohortValues, memberships, containedFilter);
+      }
+    } else {
+      putFilter(cohortValues, memberships, filter);
+    }
+
+    return new CompiledToggle<T>(
+      (String) key,
+      intValue(item.get(VALUE_ATTRIBUTE)),
+      cohortValues,
+      memberships
+    );
+  }
+
+  private static void putFilter(
+    Map<String, Integer> cohortValues,
+    List<MembershipFilter> memberships,
+    Object filter
+  ) {
+    if (!(filter instanceof Map)) {
+      return;
+    }
+
+    final Map<?, ?> filterMap = (Map<?, ?>) filter;
+    final Object target = filterMap.get("target");
+    final Object targets = filterMap.get("targets");
+
+    if ("cohort".equals(filterMap.get("type")) && target instanceof String) {
+      cohortValues.putIfAbsent((String) target, intValue(filterMap.get(VALUE_ATTRIBUTE)));
+    } else if ("membership".equals(filterMap.get("type")) && targets instanceof Collection) {
+      final List<String> members = new ArrayList<>(((Collection<?>) targets).size());
+
+      for (final Object member : (Collection<?>) targets) {
+        if (member instanceof String) {
+          members.add((String) member);
+        } else if (member instanceof BigDecimal) {
+          // Numbers are decoded as BigDecimals; match their JSON text.
+          members.add(((BigDecimal) member).toPlainString());
+        } else if (member instanceof Number) {
+          members.add(member.toString());
+        }
+      }
+
+      memberships.add(new MembershipFilter(
+        MembershipSet.of(members, Boolean.TRUE.equals(filterMap.get("bloom"))),
+        intValue(filterMap.get(VALUE_ATTRIBUTE)),
+        cohortValues.size()
+      ));
+    }
+  }
+
+  private static int intValue(Object value) {
+    return (value instanceof Number) ? ((Number) value).intValue() : 0;
+  }
+}
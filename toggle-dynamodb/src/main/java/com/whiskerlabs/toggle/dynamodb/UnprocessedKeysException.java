@@ -0,0 +1,36 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a bulk lookup couldn't fetch every requested key, e.g.
+ * because DynamoDB kept throttling a BatchGetItem request.
+ *
+ * Unlike a key which identifies no toggle, an unprocessed key's toggle
+ * is unknown, so callers should fall back to a last-known-good toggle
+ * rather than treat it as undefined.
+ */
+public class UnprocessedKeysException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final List<String> keys;
+
+  /**
+   * Constructs an {@code UnprocessedKeysException}.
+   *
+   * @param tableName The name of the table being read.
+   * @param keys The keys which were not fetched.
+   */
+  public UnprocessedKeysException(String tableName, List<String> keys) {
+    super(keys.size() + " keys in table " + tableName + " were left unprocessed");
+    this.keys = Collections.unmodifiableList(keys);
+  }
+
+  /**
+   * @return The keys which were not fetched.
+   */
+  public List<String> keys() {
+    return keys;
+  }
+}
@@ -0,0 +1,156 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class AsyncDynamoDbToggleMapTest {
+  private static final String tableName = "toggles";
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+
+  private final AmazonDynamoDBAsync dynamoDb = mock(AmazonDynamoDBAsync.class);
+  private final AsyncDynamoDbToggleMap<Integer> toggleMap = new AsyncDynamoDbToggleMap<>(dynamoDb, tableName);
+
+  // An in-memory stand-in for the contents of a DynamoDB table.
+  private final Map<String, Map<String, AttributeValue>> items = new HashMap<>();
+
+  @Test
+  public void testDecodesFetchedItem() throws Exception {
+    items.put(onKey, toggleItem(onKey, 10000));
+    answerGetItems();
+
+    assertThat(toggleMap.apply(onKey).get().test(1)).isTrue();
+    assertThatThrownBy(() -> toggleMap.apply(offKey).get())
+      .isInstanceOf(ExecutionException.class)
+      .hasCauseInstanceOf(ToggleNotFoundException.class);
+  }
+
+  @Test
+  public void testFailsFutureWhenClientThrows() {
+    when(dynamoDb.getItemAsync(any(GetItemRequest.class), any()))
+      .thenThrow(new IllegalStateException("Client has been shut down"));
+
+    final CompletableFuture<Toggle<Integer>> toggle = toggleMap.apply(onKey);
+
+    assertThat(toggle).isCompletedExceptionally();
+    assertThatThrownBy(toggle::get).hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void testGetAllBatchesKeysAndFetchesUnprocessedKeysIndividually() throws Exception {
+    final List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      final String key = "/feature/" + i;
+      keys.add(key);
+      items.put(key, toggleItem(key, 10000));
+    }
+    answerGetItems();
+
+    // The first batch leaves its last key unprocessed.
+    final List<Integer> batchSizes = new ArrayList<>();
+    doAnswer(invocation -> {
+      final BatchGetItemRequest request = invocation.getArgument(0);
+      final List<Map<String, AttributeValue>> requested =
+        request.getRequestItems().get(tableName).getKeys();
+      final List<Map<String, AttributeValue>> found = new ArrayList<>();
+      final boolean first = batchSizes.isEmpty();
+      batchSizes.add(requested.size());
+
+      for (final Map<String, AttributeValue> key : requested.subList(0, requested.size() - (first ? 1 : 0))) {
+        final Map<String, AttributeValue> item = items.get(key.get("toggle_key").getS());
+
+        if (item != null) {
+          found.add(item);
+        }
+      }
+
+      final BatchGetItemResult result = new BatchGetItemResult()
+        .withResponses(Collections.singletonMap(tableName, found));
+
+      if (first) {
+        result.withUnprocessedKeys(Collections.singletonMap(
+          tableName,
+          new KeysAndAttributes().withKeys(Collections.singletonList(requested.get(requested.size() - 1)))
+        ));
+      }
+
+      final AsyncHandler<BatchGetItemRequest, BatchGetItemResult> handler = invocation.getArgument(1);
+      handler.onSuccess(request, result);
+      return null;
+    }).when(dynamoDb).batchGetItemAsync(any(BatchGetItemRequest.class), any());
+
+    final List<String> requested = new ArrayList<>(keys);
+    requested.add("/feature/nonexistent");
+    requested.add(keys.get(0));
+
+    final Map<String, Toggle<Integer>> toggles = toggleMap.getAll(requested).get();
+
+    assertThat(toggles).containsOnlyKeys(keys.toArray(new String[0]));
+    assertThat(batchSizes).containsExactly(100, 51);
+    verify(dynamoDb, times(1)).getItemAsync(any(GetItemRequest.class), any());
+  }
+
+  @Test
+  public void testScansKeysPageByPage() throws Exception {
+    final Map<String, AttributeValue> lastEvaluatedKey =
+      Collections.singletonMap("toggle_key", new AttributeValue().withS(onKey));
+
+    doAnswer(invocation -> {
+      final ScanRequest request = invocation.getArgument(0);
+      final ScanResult result = (request.getExclusiveStartKey() == null)
+        ? new ScanResult()
+            .withItems(Collections.singletonList(toggleItem(onKey, 10000)))
+            .withLastEvaluatedKey(lastEvaluatedKey)
+        : new ScanResult().withItems(Collections.singletonList(toggleItem(offKey, 0)));
+
+      final AsyncHandler<ScanRequest, ScanResult> handler = invocation.getArgument(1);
+      handler.onSuccess(request, result);
+      return null;
+    }).when(dynamoDb).scanAsync(any(ScanRequest.class), any());
+
+    assertThat(toggleMap.keySet().get()).containsOnly(onKey, offKey);
+    verify(dynamoDb, times(2)).scanAsync(any(ScanRequest.class), any());
+  }
+
+  private void answerGetItems() {
+    doAnswer(invocation -> {
+      final GetItemRequest request = invocation.getArgument(0);
+      final AsyncHandler<GetItemRequest, GetItemResult> handler = invocation.getArgument(1);
+      handler.onSuccess(request, new GetItemResult().withItem(
+        items.get(request.getKey().get("toggle_key").getS())
+      ));
+      return null;
+    }).when(dynamoDb).getItemAsync(any(GetItemRequest.class), any());
+  }
+
+  private static Map<String, AttributeValue> toggleItem(String key, int value) {
+    final Map<String, AttributeValue> item = new HashMap<>();
+    item.put("toggle_key", new AttributeValue().withS(key));
+    item.put("toggle_value", new AttributeValue().withN(Integer.toString(value)));
+    return item;
+  }
+}
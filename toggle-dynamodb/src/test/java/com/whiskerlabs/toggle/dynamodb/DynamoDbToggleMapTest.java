@@ -0,0 +1,228 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.BatchGetItemOutcome;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.PrimaryKey;
+import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.TableKeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.whiskerlabs.toggle.Toggle;
+import com.whiskerlabs.toggle.ToggleChange;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class DynamoDbToggleMapTest {
+  private static final String tableName = "toggles";
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+  private static final String newKey = "/feature/new_hotness";
+
+  private final DynamoDB dynamoDb = mock(DynamoDB.class);
+  private final Table dynamoDbTable = mock(Table.class);
+
+  // Backoffs requested by the toggle map under test, in milliseconds.
+  private final List<Long> backoffs = new ArrayList<>();
+
+  public DynamoDbToggleMapTest() {
+    when(dynamoDb.getTable(tableName)).thenReturn(dynamoDbTable);
+    when(dynamoDbTable.getTableName()).thenReturn(tableName);
+  }
+
+  @Test
+  public void testGetAllBatchesDistinctKeysInChunksOf100() {
+    final List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      keys.add("/feature/" + i);
+    }
+    final List<String> requested = new ArrayList<>(keys);
+    requested.addAll(keys.subList(0, 50));
+
+    final List<List<String>> batches = new ArrayList<>();
+    when(dynamoDb.batchGetItem(any(TableKeysAndAttributes.class))).thenAnswer(invocation -> {
+      final List<String> batch = keysOf(invocation.getArgument(0));
+      batches.add(batch);
+      return outcome(batch.stream().map(key -> toggleItem(key, 10000)).collect(Collectors.toList()), null);
+    });
+
+    final Map<String, Toggle<Integer>> toggles = newToggleMap().getAll(requested);
+
+    assertThat(toggles).containsOnlyKeys(keys.toArray(new String[0]));
+    assertThat(batches).extracting(List::size).containsExactly(100, 100, 50);
+    assertThat(batches.stream().flatMap(List::stream).collect(Collectors.toList()))
+      .containsExactlyElementsOf(keys);
+    verify(dynamoDbTable, never()).getItem(anyString(), any());
+  }
+
+  @Test
+  public void testGetAllRetriesUnprocessedKeysWithBackoff() {
+    final Map<String, KeysAndAttributes> unprocessed = unprocessedKeys(offKey);
+    final BatchGetItemOutcome first = outcome(Collections.singletonList(toggleItem(onKey, 10000)), unprocessed);
+    final BatchGetItemOutcome second = outcome(Collections.emptyList(), unprocessed);
+    final BatchGetItemOutcome third = outcome(Collections.singletonList(toggleItem(offKey, 0)), null);
+    when(dynamoDb.batchGetItem(any(TableKeysAndAttributes.class))).thenReturn(first);
+    when(dynamoDb.batchGetItemUnprocessed(unprocessed)).thenReturn(second, third);
+
+    final Map<String, Toggle<Integer>> toggles = newToggleMap().getAll(Arrays.asList(onKey, offKey));
+
+    assertThat(toggles).containsOnlyKeys(onKey, offKey);
+    assertThat(toggles.get(onKey).test(1)).isTrue();
+    assertThat(toggles.get(offKey).test(1)).isFalse();
+    assertThat(backoffs).containsExactly(50L, 100L);
+  }
+
+  @Test
+  public void testGetAllGivesUpOnKeysLeftUnprocessed() {
+    final Map<String, KeysAndAttributes> unprocessed = unprocessedKeys(offKey);
+    final BatchGetItemOutcome outcome = outcome(Collections.emptyList(), unprocessed);
+    when(dynamoDb.batchGetItem(any(TableKeysAndAttributes.class))).thenReturn(outcome);
+    when(dynamoDb.batchGetItemUnprocessed(unprocessed)).thenReturn(outcome);
+
+    assertThatThrownBy(() -> newToggleMap().getAll(Collections.singletonList(offKey)))
+      .isInstanceOf(UnprocessedKeysException.class)
+      .matches(err -> ((UnprocessedKeysException) err).keys().equals(Collections.singletonList(offKey)));
+    assertThat(backoffs).containsExactly(50L, 100L, 200L, 400L, 800L, 1600L, 3200L, 6400L);
+  }
+
+  @Test
+  public void testGetAllGivesUpWhenInterruptedWhileBackingOff() {
+    final BatchGetItemOutcome outcome = outcome(Collections.emptyList(), unprocessedKeys(offKey));
+    when(dynamoDb.batchGetItem(any(TableKeysAndAttributes.class))).thenReturn(outcome);
+
+    final DynamoDbToggleMap<Integer> toggleMap = new DynamoDbToggleMap<Integer>(dynamoDb, tableName) {
+      @Override
+      void backOff(long millis) throws InterruptedException {
+        throw new InterruptedException();
+      }
+    };
+
+    try {
+      assertThatThrownBy(() -> toggleMap.getAll(Collections.singletonList(offKey)))
+        .isInstanceOf(UnprocessedKeysException.class);
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+      verify(dynamoDb, never()).batchGetItemUnprocessed(any());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testPollChangesNotifiesDiffsAgainstPreviousScan() {
+    final ItemCollection<ScanOutcome> baseline =
+      ItemCollections.of(toggleItem(onKey, 10000), toggleItem(offKey, 0));
+    final ItemCollection<ScanOutcome> changed =
+      ItemCollections.of(toggleItem(onKey, 0), toggleItem(newKey, 10000));
+    when(dynamoDbTable.scan(any(ScanSpec.class))).thenReturn(baseline).thenReturn(changed);
+
+    final List<List<ToggleChange<String>>> notifications = new ArrayList<>();
+    final DynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+    toggleMap.subscribe(notifications::add);
+    final Runnable poll = schedulePoll(toggleMap);
+
+    poll.run();
+    assertThat(notifications).isEmpty();
+
+    poll.run();
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0)).containsOnly(
+      ToggleChange.updated(onKey),
+      ToggleChange.added(newKey),
+      ToggleChange.removed(offKey)
+    );
+  }
+
+  @Test
+  public void testFailedPollKeepsPreviousScanAsBaseline() {
+    final ItemCollection<ScanOutcome> baseline = ItemCollections.of(toggleItem(onKey, 10000));
+    final ItemCollection<ScanOutcome> changed =
+      ItemCollections.of(toggleItem(onKey, 10000), toggleItem(offKey, 0));
+    when(dynamoDbTable.scan(any(ScanSpec.class)))
+      .thenReturn(baseline)
+      .thenThrow(new IllegalStateException("Throttled"))
+      .thenReturn(changed);
+
+    final List<List<ToggleChange<String>>> notifications = new ArrayList<>();
+    final DynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+    toggleMap.subscribe(notifications::add);
+    final Runnable poll = schedulePoll(toggleMap);
+
+    poll.run();
+    poll.run();
+    assertThat(notifications).isEmpty();
+
+    poll.run();
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0)).containsExactly(ToggleChange.added(offKey));
+  }
+
+  private DynamoDbToggleMap<Integer> newToggleMap() {
+    return new DynamoDbToggleMap<Integer>(dynamoDb, tableName) {
+      @Override
+      void backOff(long millis) {
+        backoffs.add(millis);
+      }
+    };
+  }
+
+  /**
+   * Schedules polling on a mocked executor, returning the scheduled
+   * poll so that tests can run it on demand.
+   */
+  private static Runnable schedulePoll(DynamoDbToggleMap<Integer> toggleMap) {
+    final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    toggleMap.pollChanges(executor, Duration.ofSeconds(30));
+
+    final ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor).scheduleWithFixedDelay(
+      poll.capture(), eq(0L), eq(Duration.ofSeconds(30).toNanos()), eq(TimeUnit.NANOSECONDS)
+    );
+    return poll.getValue();
+  }
+
+  private static List<String> keysOf(TableKeysAndAttributes keysAndAttributes) {
+    final List<String> keys = new ArrayList<>();
+
+    for (final PrimaryKey primaryKey : keysAndAttributes.getPrimaryKeys()) {
+      keys.add((String) primaryKey.getComponents().iterator().next().getValue());
+    }
+
+    return keys;
+  }
+
+  private static BatchGetItemOutcome outcome(List<Item> items, Map<String, KeysAndAttributes> unprocessed) {
+    final BatchGetItemOutcome outcome = mock(BatchGetItemOutcome.class);
+    when(outcome.getTableItems()).thenReturn(Collections.singletonMap(tableName, items));
+    when(outcome.getUnprocessedKeys()).thenReturn(unprocessed);
+    return outcome;
+  }
+
+  private static Map<String, KeysAndAttributes> unprocessedKeys(String key) {
+    return Collections.singletonMap(tableName, new KeysAndAttributes().withKeys(Collections.singletonList(
+      Collections.singletonMap("toggle_key", new AttributeValue().withS(key))
+    )));
+  }
+
+  private static Item toggleItem(String key, int value) {
+    return new Item()
+      .withPrimaryKey("toggle_key", key)
+      .withInt("toggle_value", value);
+  }
+}
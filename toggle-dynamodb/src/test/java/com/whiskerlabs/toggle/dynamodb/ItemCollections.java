@@ -0,0 +1,36 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.internal.IteratorSupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class ItemCollections {
+  private ItemCollections () { /* singleton */ }
+
+  /**
+   * Returns an {@link ItemCollection} which iterates over the argument
+   * items, as if they had been returned by a query or scan.
+   */
+  @SuppressWarnings("unchecked")
+  public static <R> ItemCollection<R> of(Item... items) {
+    final List<Item> itemList = new ArrayList<>(Arrays.asList(items));
+    final ItemCollection<R> collection = mock(ItemCollection.class);
+
+    when(collection.iterator()).thenAnswer(invocation -> {
+      final Iterator<Item> iterator = itemList.iterator();
+      final IteratorSupport<Item, R> support = mock(IteratorSupport.class);
+      when(support.hasNext()).thenAnswer(hasNext -> iterator.hasNext());
+      when(support.next()).thenAnswer(next -> iterator.next());
+      return support;
+    });
+
+    return collection;
+  }
+}
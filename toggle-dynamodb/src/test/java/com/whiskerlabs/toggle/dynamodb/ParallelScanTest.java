@@ -0,0 +1,106 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class ParallelScanTest {
+  private final Table dynamoDbTable = mock(Table.class);
+
+  @Test
+  public void testScansEachSegmentAndMergesResults() {
+    final List<ItemCollection<ScanOutcome>> segments = new ArrayList<>();
+
+    for (int segment = 0; segment < 3; segment++) {
+      segments.add(ItemCollections.of(item("/segment/" + segment + "/a"), item("/segment/" + segment + "/b")));
+    }
+
+    when(dynamoDbTable.scan(any(ScanSpec.class))).thenAnswer(invocation -> {
+      final ScanSpec scanSpec = invocation.getArgument(0);
+      return segments.get(scanSpec.getSegment());
+    });
+
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    try {
+      final List<String> keys = new ParallelScan(dynamoDbTable, executor, 3).scan(
+        "toggle_key",
+        item -> item.getString("toggle_key").endsWith("/b") ? null : item.getString("toggle_key")
+      );
+
+      assertThat(keys).containsOnly("/segment/0/a", "/segment/1/a", "/segment/2/a");
+    } finally {
+      executor.shutdown();
+    }
+
+    final ArgumentCaptor<ScanSpec> scanSpecs = ArgumentCaptor.forClass(ScanSpec.class);
+    verify(dynamoDbTable, times(3)).scan(scanSpecs.capture());
+
+    assertThat(scanSpecs.getAllValues())
+      .extracting(ScanSpec::getSegment)
+      .containsOnly(0, 1, 2);
+    assertThat(scanSpecs.getAllValues())
+      .extracting(ScanSpec::getTotalSegments)
+      .containsOnly(3);
+    assertThat(scanSpecs.getAllValues())
+      .extracting(ScanSpec::getProjectionExpression)
+      .containsOnly("toggle_key");
+  }
+
+  @Test
+  public void testScansWithoutSegmentsOnCallingThread() {
+    final ItemCollection<ScanOutcome> items = ItemCollections.of(item("/feature/a"));
+    when(dynamoDbTable.scan(any(ScanSpec.class))).thenReturn(items);
+
+    assertThat(new ParallelScan(dynamoDbTable).scan(null, item -> item.getString("toggle_key")))
+      .containsExactly("/feature/a");
+
+    final ArgumentCaptor<ScanSpec> scanSpec = ArgumentCaptor.forClass(ScanSpec.class);
+    verify(dynamoDbTable).scan(scanSpec.capture());
+    assertThat(scanSpec.getValue().getSegment()).isNull();
+    assertThat(scanSpec.getValue().getProjectionExpression()).isNull();
+  }
+
+  @Test
+  public void testFailsIfAnySegmentFails() {
+    final ItemCollection<ScanOutcome> items = ItemCollections.of(item("/feature/a"));
+    final IllegalStateException failure = new IllegalStateException("Throttled");
+
+    when(dynamoDbTable.scan(any(ScanSpec.class))).thenAnswer(invocation -> {
+      final ScanSpec scanSpec = invocation.getArgument(0);
+
+      if (scanSpec.getSegment() == 1) {
+        throw failure;
+      }
+
+      return items;
+    });
+
+    final ParallelScan parallelScan = new ParallelScan(dynamoDbTable, Runnable::run, 3);
+
+    assertThatThrownBy(() -> parallelScan.scan(null, item -> item)).isSameAs(failure);
+  }
+
+  @Test
+  public void testRejectsNonPositiveSegments() {
+    assertThatThrownBy(() -> new ParallelScan(dynamoDbTable, Runnable::run, 0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Item item(String key) {
+    return new Item().withPrimaryKey("toggle_key", key);
+  }
+}
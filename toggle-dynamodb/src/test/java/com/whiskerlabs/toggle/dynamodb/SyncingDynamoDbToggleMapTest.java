@@ -0,0 +1,198 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Index;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
+import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
+import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class SyncingDynamoDbToggleMapTest {
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+
+  // An in-memory stand-in for the contents of a DynamoDB table.
+  private final List<Item> items = new ArrayList<>();
+
+  private final Table dynamoDbTable = mock(Table.class);
+
+  @Test
+  public void testLoadsNothingOnConstruction() {
+    items.add(toggleItem(onKey, 10000, 1));
+
+    final SyncingDynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+
+    assertThat(toggleMap.keySet()).isEmpty();
+    assertThat(toggleMap.watermark()).isEqualTo(Long.MIN_VALUE);
+  }
+
+  @Test
+  public void testLoadsWholeTableOnFullSync() {
+    items.add(toggleItem(onKey, 10000, 1));
+
+    final SyncingDynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+    toggleMap.fullSync();
+
+    assertThat(toggleMap.keySet()).containsOnly(onKey);
+    assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    assertThat(toggleMap.watermark()).isEqualTo(1);
+  }
+
+  @Test
+  public void testAppliesChangedItemsOnSync() {
+    items.add(toggleItem(onKey, 10000, 1));
+    final SyncingDynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+    toggleMap.fullSync();
+
+    items.set(0, toggleItem(onKey, 0, 2));
+    items.add(toggleItem(offKey, 0, 3));
+    toggleMap.sync();
+
+    assertThat(toggleMap.keySet()).containsOnly(onKey, offKey);
+    assertThat(toggleMap.apply(onKey).test(1)).isFalse();
+    assertThat(toggleMap.watermark()).isEqualTo(3);
+  }
+
+  @Test
+  public void testKeepsSnapshotWhenSyncFindsNoChanges() {
+    items.add(toggleItem(onKey, 10000, 1));
+    final SyncingDynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+    toggleMap.fullSync();
+    final ToggleSnapshot<Integer> synced = toggleMap.snapshot();
+
+    // The item at the watermark is re-fetched, but is unchanged.
+    toggleMap.sync();
+
+    assertThat(toggleMap.snapshot()).isSameAs(synced);
+    assertThat(toggleMap.watermark()).isEqualTo(1);
+  }
+
+  @Test
+  public void testDropsDeletedItemsOnFullSync() {
+    items.add(toggleItem(onKey, 10000, 1));
+    items.add(toggleItem(offKey, 0, 2));
+    final SyncingDynamoDbToggleMap<Integer> toggleMap = newToggleMap();
+    toggleMap.fullSync();
+
+    items.remove(1);
+    toggleMap.sync();
+    assertThat(toggleMap.keySet()).containsOnly(onKey, offKey);
+
+    toggleMap.fullSync();
+    assertThat(toggleMap.keySet()).containsOnly(onKey);
+  }
+
+  @Test
+  public void testQueriesVersionIndexOnSync() {
+    final Index versionIndex = mock(Index.class);
+    final ItemCollection<ScanOutcome> allItems = ItemCollections.of(toggleItem(onKey, 10000, 1));
+    final ItemCollection<QueryOutcome> changedItems =
+      ItemCollections.of(toggleItem(onKey, 0, 2), toggleItem(offKey, 0, 3));
+    final ItemCollection<QueryOutcome> noItems = ItemCollections.of();
+
+    when(dynamoDbTable.getIndex("toggle_version-index")).thenReturn(versionIndex);
+    when(dynamoDbTable.scan(any(ScanSpec.class))).thenReturn(allItems);
+    when(versionIndex.query(any(QuerySpec.class))).thenReturn(changedItems).thenReturn(noItems);
+
+    final SyncingDynamoDbToggleMap<Integer> toggleMap = new SyncingDynamoDbToggleMap<>(
+      dynamoDbTable,
+      "toggle_version",
+      "toggle_version-index",
+      "toggle_partition",
+      "toggles"
+    );
+
+    toggleMap.fullSync();
+    assertThat(toggleMap.watermark()).isEqualTo(1);
+
+    toggleMap.sync();
+    assertThat(toggleMap.keySet()).containsOnly(onKey, offKey);
+    assertThat(toggleMap.apply(onKey).test(1)).isFalse();
+    assertThat(toggleMap.watermark()).isEqualTo(3);
+
+    // A sync which observes no changes keeps the watermark.
+    toggleMap.sync();
+    assertThat(toggleMap.watermark()).isEqualTo(3);
+
+    final ArgumentCaptor<QuerySpec> querySpecs = ArgumentCaptor.forClass(QuerySpec.class);
+    verify(versionIndex, times(2)).query(querySpecs.capture());
+
+    final QuerySpec first = querySpecs.getAllValues().get(0);
+    assertThat(first.getKeyConditionExpression())
+      .isEqualTo("#partition = :partition AND #version >= :watermark");
+    assertThat(first.getNameMap())
+      .containsEntry("#partition", "toggle_partition")
+      .containsEntry("#version", "toggle_version");
+    assertThat(first.getValueMap())
+      .containsEntry(":partition", "toggles")
+      .containsEntry(":watermark", 1L);
+    assertThat(querySpecs.getAllValues().get(1).getValueMap()).containsEntry(":watermark", 3L);
+
+    // The full sync alone scans the table.
+    verify(dynamoDbTable, times(1)).scan(any(ScanSpec.class));
+  }
+
+  @Test
+  public void testScansWithVersionFilterWithoutIndex() {
+    final ItemCollection<ScanOutcome> allItems = ItemCollections.of(toggleItem(onKey, 10000, 1));
+    final ItemCollection<ScanOutcome> changedItems = ItemCollections.of(toggleItem(offKey, 0, 2));
+
+    when(dynamoDbTable.scan(any(ScanSpec.class))).thenAnswer(invocation -> {
+      final ScanSpec scanSpec = invocation.getArgument(0);
+      return (scanSpec.getFilterExpression() == null) ? allItems : changedItems;
+    });
+
+    final SyncingDynamoDbToggleMap<Integer> toggleMap =
+      new SyncingDynamoDbToggleMap<>(dynamoDbTable, "toggle_version");
+
+    toggleMap.fullSync();
+    toggleMap.sync();
+
+    assertThat(toggleMap.keySet()).containsOnly(onKey, offKey);
+    assertThat(toggleMap.watermark()).isEqualTo(2);
+
+    final ArgumentCaptor<ScanSpec> scanSpecs = ArgumentCaptor.forClass(ScanSpec.class);
+    verify(dynamoDbTable, times(2)).scan(scanSpecs.capture());
+
+    final ScanSpec filtered = scanSpecs.getAllValues().get(1);
+    assertThat(filtered.getFilterExpression()).isEqualTo("#version >= :watermark");
+    assertThat(filtered.getNameMap()).containsEntry("#version", "toggle_version");
+    assertThat(filtered.getValueMap()).containsEntry(":watermark", 1L);
+    verify(dynamoDbTable, never()).getIndex(anyString());
+  }
+
+  private SyncingDynamoDbToggleMap<Integer> newToggleMap() {
+    return new SyncingDynamoDbToggleMap<Integer>(dynamoDbTable, "toggle_version") {
+      @Override
+      protected Iterable<Item> fetchChangedItems(String versionAttribute, long watermark) {
+        return items.stream()
+          .filter(item -> item.getLong(versionAttribute) >= watermark)
+          .collect(Collectors.toList());
+      }
+
+      @Override
+      protected Iterable<Item> fetchAllItems() {
+        return new ArrayList<>(items);
+      }
+    };
+  }
+
+  private static Item toggleItem(String key, int value, long version) {
+    return new Item()
+      .withPrimaryKey("toggle_key", key)
+      .withInt("toggle_value", value)
+      .withLong("toggle_version", version);
+  }
+}
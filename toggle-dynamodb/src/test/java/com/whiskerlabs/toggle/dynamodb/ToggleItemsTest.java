@@ -0,0 +1,85 @@
+package com.whiskerlabs.toggle.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.whiskerlabs.toggle.CompiledToggle;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ToggleItemsTest {
+  @Test
+  public void decodesItemWithFilters() {
+    final Item item = new Item()
+      .withPrimaryKey("toggle_key", "/feature/admin_widget")
+      .withInt("toggle_value", 100)
+      .withList("filter", Arrays.asList(
+        filter("cohort", "employee", 10000),
+        filter("cohort", "employee", 0),
+        filter("random", null, 5000)
+      ));
+
+    final CompiledToggle<Integer> toggle = ToggleItems.decode(item);
+    assertThat(toggle.key()).isEqualTo("/feature/admin_widget");
+    assertThat(toggle.value()).isEqualTo(100);
+    assertThat(toggle.cohortValues()).containsOnlyKeys("employee");
+    assertThat(toggle.valueFor("employee")).isEqualTo(10000);
+    assertThat(toggle.valueFor("na")).isEqualTo(100);
+  }
+
+  @Test
+  public void decodesItemWithSingleFilter() {
+    final Item item = new Item()
+      .withPrimaryKey("toggle_key", "/feature/admin_widget")
+      .withMap("filter", filter("cohort", "admin", 10000));
+
+    final CompiledToggle<Integer> toggle = ToggleItems.decode(item);
+    assertThat(toggle.value()).isEqualTo(0);
+    assertThat(toggle.valueFor("admin")).isEqualTo(10000);
+  }
+
+  @Test
+  public void decodesItemWithMembershipFilter() {
+    final Map<String, Object> membership = new HashMap<>();
+    membership.put("type", "membership");
+    membership.put("targets", new HashSet<>(Arrays.asList("acct-1", "acct-2")));
+    membership.put("toggle_value", 10000);
+    membership.put("bloom", true);
+
+    final Map<String, Object> numericMembership = new HashMap<>();
+    numericMembership.put("type", "membership");
+    numericMembership.put("targets", Arrays.asList(new BigDecimal("42")));
+    numericMembership.put("toggle_value", 5000);
+
+    final Item item = new Item()
+      .withPrimaryKey("toggle_key", "/feature/allow_listed")
+      .withList("filter", Arrays.asList(membership, numericMembership));
+
+    final CompiledToggle<Integer> toggle = ToggleItems.decode(item);
+    assertThat(toggle.memberships()).hasSize(2);
+    assertThat(toggle.valueFor("acct-2")).isEqualTo(10000);
+    assertThat(toggle.valueFor("42")).isEqualTo(5000);
+    assertThat(toggle.valueFor("acct-3")).isEqualTo(0);
+  }
+
+  @Test
+  public void returnsNullForItemWithoutKey() {
+    final Item item = new Item().withInt("toggle_value", 100);
+    assertThat(ToggleItems.<Integer>decode(item)).isNull();
+  }
+
+  private static Map<String, Object> filter(String type, String target, int value) {
+    final Map<String, Object> filter = new HashMap<>();
+    filter.put("type", type);
+    if (target != null) {
+      filter.put("target", target);
+    }
+    filter.put("toggle_value", value);
+    return filter;
+  }
+}
@@ -0,0 +1,38 @@
+package com.whiskerlabs.toggle.json;
+
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import com.whiskerlabs.toggle.binary.BinarySnapshotWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A command-line tool which compiles a JSON or YAML toggle
+ * specification file into a binary toggle snapshot, to be served by a
+ * {@code MappedToggleMap}.
+ *
+ * Usage: {@code BinarySnapshotTool <toggle spec file> <snapshot file>}
+ */
+public class BinarySnapshotTool {
+  private BinarySnapshotTool() { /* singleton */ }
+
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.err.println("Usage: BinarySnapshotTool <toggle spec file> <snapshot file>");
+      System.exit(2);
+    }
+
+    final Path specPath = Paths.get(args[0]);
+    final Path snapshotPath = Paths.get(args[1]);
+
+    try {
+      final ToggleSnapshot<Object> snapshot = StreamingToggleSpecLoader.load(specPath);
+      BinarySnapshotWriter.write(snapshot, snapshotPath);
+      System.out.println("Wrote " + snapshot.size() + " toggles to " + snapshotPath);
+    } catch (IOException err) {
+      System.err.println("Failed to compile " + specPath + ": " + err.getMessage());
+      System.exit(1);
+    }
+  }
+}
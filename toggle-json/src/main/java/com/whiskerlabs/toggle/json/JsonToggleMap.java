@@ -5,19 +5,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
+import com.whiskerlabs.toggle.SnapshotToggleMap;
 import com.whiskerlabs.toggle.Toggle;
 import com.whiskerlabs.toggle.ToggleMap;
+import com.whiskerlabs.toggle.ToggleNotFoundException;
+import com.whiskerlabs.toggle.ToggleSnapshot;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.Set;
 import java.util.Iterator;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
 /**
@@ -26,11 +26,14 @@ import java.util.function.Supplier;
  * A JSON toggle specification is provided as a thunk producing an
  * iterator of {@link JsonNode JsonNodes} (i.e. a {@link
  * Supplier}{@code <Iterator<JsonNode>>}). This JSON tree is consulted
- * on each toggle test, meaning that toggle complexity is {@code O(n)}
- * for a toggle spec containing {@code n} toggles. Users are advised
- * to wrap a {@code JsonToggleMap} in a {@code CachingToggleMap} in
- * order to limit the frequency with which the underlying {@code
- * JsonNode} is consulted.
+ * on each toggle lookup, meaning that lookup complexity is {@code
+ * O(n)} for a toggle spec containing {@code n} toggles. Toggles are
+ * compiled as they are looked up, so testing a toggle does not
+ * traverse the JSON tree. Users are advised to wrap a {@code
+ * JsonToggleMap} in a {@code CachingToggleMap} in order to limit the
+ * frequency with which the underlying {@code JsonNode} is consulted,
+ * or to use {@link #snapshotFromPath} if the toggle specification is
+ * static.
  *
  * @param <T> The toggle input type. The toggle is applied to
  *            instances of type {@code T}.
@@ -56,14 +59,75 @@ public class JsonToggleMap<T> extends ToggleMap<String, T> {
    *         drawn from the given local file.
    */
   public static <T> JsonToggleMap<T> fromPath(Path path) {
-    return new JsonToggleMap<T>(() -> {
-      try {
-        final YAMLParser yamlParser = DEFAULT_YAML_FACTORY.createParser(path.toFile());
-        return DEFAULT_OBJECT_READER.<JsonNode>readTree(yamlParser).elements();
-      } catch (IOException err) {
-        return DEFAULT_OBJECT_READER.createArrayNode().elements();
-      }
-    });
+    return new JsonToggleMap<T>(() -> readElements(path));
+  }
+
+  /**
+   * Constructs a {@link SnapshotToggleMap} from a {@link Path}
+   * representing a toggle specification file.
+   *
+   * Unlike {@link #fromPath}, the toggle specification file is parsed
+   * exactly once, in a single streaming pass, and its toggles are
+   * compiled into a hash-indexed {@link ToggleSnapshot}. Toggle
+   * lookups are {@code O(1)}, but subsequent changes to the file are
+   * not observed.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   * @return A {@code SnapshotToggleMap} backed by a toggle
+   *         specification drawn from the given local file.
+   */
+  public static <T> SnapshotToggleMap<T> snapshotFromPath(Path path) {
+    return new SnapshotToggleMap<T>(readSnapshot(path));
+  }
+
+  /**
+   * Parses a toggle specification file and compiles its toggles into
+   * a {@link ToggleSnapshot}.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   * @return A {@code ToggleSnapshot} of the toggles defined in the
+   *         given local file, or an empty snapshot if the file cannot
+   *         be read.
+   */
+  public static <T> ToggleSnapshot<T> readSnapshot(Path path) {
+    try {
+      return parseSnapshot(path);
+    } catch (IOException err) {
+      return ToggleSnapshot.empty();
+    }
+  }
+
+  /**
+   * Parses a toggle specification file and compiles its toggles into
+   * a {@link ToggleSnapshot}, failing if the file cannot be read or
+   * does not contain a toggle specification.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   * @return A {@code ToggleSnapshot} of the toggles defined in the
+   *         given local file.
+   * @throws IOException If the file cannot be read, or if its root
+   *         element is not an array of toggles.
+   */
+  public static <T> ToggleSnapshot<T> parseSnapshot(Path path) throws IOException {
+    return StreamingToggleSpecLoader.load(path);
+  }
+
+  private static Iterator<JsonNode> readElements(Path path) {
+    try {
+      final YAMLParser yamlParser = DEFAULT_YAML_FACTORY.createParser(path.toFile());
+      return DEFAULT_OBJECT_READER.<JsonNode>readTree(yamlParser).elements();
+    } catch (IOException err) {
+      return DEFAULT_OBJECT_READER.createArrayNode().elements();
+    }
   }
 
   public JsonToggleMap(Supplier<Iterator<JsonNode>> jsonNodeSupplier) {
@@ -77,24 +141,10 @@ public class JsonToggleMap<T> extends ToggleMap<String, T> {
 
     if (toggleNode.isMissingNode()) {
       // TODO: Log the error.
-      throw new NoSuchElementException(Toggle.UNABLE_TO_LOOK_UP_KEY_PREFIX + key);
+      throw new ToggleNotFoundException(key);
     }
 
-    return new Toggle<T>() {
-      @Override
-      protected boolean test(T t, Optional<String> cohortOpt) {
-        final JsonNode filterNode =
-        ToggleJsonNode.findByCohort(toggleNode.path("filter"), cohortOpt);
-
-        if (filterNode.isMissingNode()) {
-          // No filter found for cohort. Weight result by default value.
-          return nextBoolean(toggleNode.path("value").intValue());
-        } else {
-          // Filter found for cohort. Weight result by the filter's value.
-          return nextBoolean(filterNode.path("value").intValue());
-        }
-      }
-    };
+    return ToggleJsonNode.compile(toggleNode, "key", "value");
   }
 
   /**
@@ -0,0 +1,261 @@
+package com.whiskerlabs.toggle.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.format.DataFormatDetector;
+import com.fasterxml.jackson.core.format.DataFormatMatcher;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A collection of functions which compile toggle specifications into
+ * {@link ToggleSnapshot ToggleSnapshots} in a single streaming pass.
+ *
+ * Unlike {@link ToggleJsonNode#compileAll}, no {@code JsonNode} tree is
+ * built: toggles are compiled directly from the parser's token stream,
+ * so peak memory while loading is proportional to the compiled
+ * toggles rather than to the size of the specification document.
+ *
+ * The compiled toggles are equivalent to those produced by {@link
+ * ToggleJsonNode#compile}: a missing or non-numeric weight is treated
+ * as zero, the first cohort filter matching a given cohort takes
+ * precedence, membership filters are compiled into {@link
+ * MembershipSet MembershipSets}, and elements without a textual key
+ * are skipped.
+ */
+public class StreamingToggleSpecLoader {
+  public static final JsonFactory DEFAULT_JSON_FACTORY = new JsonFactory();
+
+  private static final DataFormatDetector FORMAT_DETECTOR =
+    new DataFormatDetector(DEFAULT_JSON_FACTORY);
+
+  private StreamingToggleSpecLoader() { /* singleton */ }
+
+  /**
+   * Compiles the toggles defined in a toggle specification file.
+   *
+   * The file's format is detected from its content: documents which
+   * begin with a JSON array or object are parsed as JSON, and all
+   * others as YAML.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   * @return A {@code ToggleSnapshot} of the toggles defined in the
+   *         given local file.
+   * @throws IOException If the file cannot be read, or if its root
+   *         element is not an array of toggles.
+   */
+  public static <T> ToggleSnapshot<T> load(Path path) throws IOException {
+    return load(path, "key", "value");
+  }
+
+  /**
+   * Compiles the toggles defined in a toggle specification file.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   * @param keyField The name of the field holding the toggle key.
+   * @param valueField The name of the field holding toggle weights.
+   * @return A {@code ToggleSnapshot} of the toggles defined in the
+   *         given local file.
+   * @throws IOException If the file cannot be read, or if its root
+   *         element is not an array of toggles.
+   */
+  public static <T> ToggleSnapshot<T> load(
+    Path path,
+    String keyField,
+    String valueField
+  ) throws IOException {
+    try (final InputStream in = Files.newInputStream(path);
+         final JsonParser parser = createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Not a toggle specification: " + path);
+      }
+
+      return compileAll(parser, keyField, valueField);
+    }
+  }
+
+  /**
+   * Compiles each toggle in the array at the argument parser's current
+   * position into a {@link ToggleSnapshot}, leaving the parser
+   * positioned at the end of the array.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param parser A {@code JsonParser} positioned at the start of an
+   *        array of toggles.
+   * @param keyField The name of the field holding the toggle key.
+   * @param valueField The name of the field holding toggle weights.
+   * @return A {@code ToggleSnapshot} of the compiled toggles.
+   * @throws IOException If the array cannot be parsed.
+   */
+  public static <T> ToggleSnapshot<T> compileAll(
+    JsonParser parser,
+    String keyField,
+    String valueField
+  ) throws IOException {
+    final List<CompiledToggle<T>> toggles = new ArrayList<>();
+    JsonToken token;
+
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == null) {
+        throw new IOException("Unterminated toggle specification");
+      }
+
+      final CompiledToggle<T> toggle = (token == JsonToken.START_OBJECT)
+        ? compile(parser, keyField, valueField)
+        : skip(parser);
+
+      if (toggle != null) {
+        toggles.add(toggle);
+      }
+    }
+
+    return ToggleSnapshot.of(toggles);
+  }
+
+  private static JsonParser createParser(InputStream in) throws IOException {
+    final DataFormatMatcher match = FORMAT_DETECTOR.findFormat(in);
+
+    return match.hasMatch()
+      ? match.createParserWithMatch()
+      : JsonToggleMap.DEFAULT_YAML_FACTORY.createParser(match.getDataStream());
+  }
+
+  private static <T> CompiledToggle<T> compile(
+    JsonParser parser,
+    String keyField,
+    String valueField
+  ) throws IOException {
+    final Map<String, Integer> cohortValues = new LinkedHashMap<>();
+    final List<MembershipFilter> memberships = new ArrayList<>();
+    String key = null;
+    int value = 0;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken token = parser.nextToken();
+
+      if (field.equals(keyField)) {
+        key = (token == JsonToken.VALUE_STRING) ? parser.getText() : null;
+        parser.skipChildren();
+      } else if (field.equals(valueField)) {
+        value = intValue(parser);
+      } else if (field.equals("filter") && token == JsonToken.START_ARRAY) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          putFilter(cohortValues, memberships, parser, valueField);
+        }
+      } else if (field.equals("filter")) {
+        putFilter(cohortValues, memberships, parser, valueField);
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    return (key == null) ? null : new CompiledToggle<T>(key, value, cohortValues, memberships);
+  }
+
+  /**
+   * Reads the value at the parser's current position and, if it is a
+   * cohort filter, records its weight, or if it is a membership filter,
+   * compiles it. Leaves the parser positioned at the end of the value.
+   */
+  private static void putFilter(
+    Map<String, Integer> cohortValues,
+    List<MembershipFilter> memberships,
+    JsonParser parser,
+    String valueField
+  ) throws IOException {
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+
+    String type = null;
+    String target = null;
+    List<String> targets = null;
+    boolean bloom = false;
+    int value = 0;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      final JsonToken token = parser.nextToken();
+
+      if (field.equals("type")) {
+        type = (token == JsonToken.VALUE_STRING) ? parser.getText() : null;
+      } else if (field.equals("target")) {
+        target = (token == JsonToken.VALUE_STRING) ? parser.getText() : null;
+      } else if (field.equals("targets") && token == JsonToken.START_ARRAY) {
+        targets = readTargets(parser);
+        continue;
+      } else if (field.equals("bloom")) {
+        bloom = (token == JsonToken.VALUE_TRUE);
+      } else if (field.equals(valueField)) {
+        value = intValue(parser);
+        continue;
+      }
+
+      parser.skipChildren();
+    }
+
+    if ("cohort".equals(type) && target != null) {
+      cohortValues.putIfAbsent(target, value);
+    } else if ("membership".equals(type) && targets != null) {
+      memberships.add(
+        new MembershipFilter(MembershipSet.of(targets, bloom), value, cohortValues.size())
+      );
+    }
+  }
+
+  /**
+   * Reads the string and integer elements of the array at the parser's
+   * current position as strings, skipping any others. Leaves the
+   * parser positioned at the end of the array.
+   */
+  private static List<String> readTargets(JsonParser parser) throws IOException {
+    final List<String> targets = new ArrayList<>();
+    JsonToken token;
+
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token == JsonToken.VALUE_STRING || token == JsonToken.VALUE_NUMBER_INT) {
+        targets.add(parser.getText());
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    return targets;
+  }
+
+  private static int intValue(JsonParser parser) throws IOException {
+    if (parser.getCurrentToken().isNumeric()) {
+      // Truncate out-of-range weights as JsonNode.intValue() does.
+      return parser.getNumberValue().intValue();
+    }
+
+    parser.skipChildren();
+    return 0;
+  }
+
+  private static <T> CompiledToggle<T> skip(JsonParser parser) throws IOException {
+    parser.skipChildren();
+    return null;
+  }
+}
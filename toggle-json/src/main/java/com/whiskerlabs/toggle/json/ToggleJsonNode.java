@@ -4,9 +4,17 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.MissingNode;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.MembershipFilter;
+import com.whiskerlabs.toggle.MembershipSet;
+import com.whiskerlabs.toggle.ToggleSnapshot;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -69,14 +77,49 @@ public class ToggleJsonNode {
    *         present.
    */
   public static boolean matchesCohort(JsonNode node, Optional<String> cohortOpt) {
+    return matchesNullableCohort(node, cohortOpt.orElse(null));
+  }
+
+  /**
+   * Returns true if the argument {@link JsonNode} is an object and
+   * has a cohort field which matches the argument cohort, if
+   * non-null. Equivalent to {@link #matchesCohort}, without wrapping
+   * the cohort in an {@link Optional}.
+   *
+   * Membership filters, whose {@code targets} field holds an array of
+   * cohort strings or integers, match any of their targets. They are scanned linearly
+   * here; use {@link #compile} to test them in constant time.
+   *
+   * @param node A {@code JsonNode} to scan for cohort information.
+   * @param cohort A cohort string to match against the argument
+   *        {@code JsonNode}, or {@code null}.
+   * @return {@code true} if the {@code JsonNode} is an object and has
+   *         a cohort field which matches the argument cohort, if
+   *         non-null.
+   */
+  public static boolean matchesNullableCohort(JsonNode node, String cohort) {
+    if (node.isObject()
+        && cohort != null
+        && node.path("type").isTextual()
+        && node.path("type").textValue().equals("membership")
+        && node.path("targets").isArray()) {
+      for (final JsonNode target : node.path("targets")) {
+        if ((target.isTextual() || target.isIntegralNumber()) && target.asText().equals(cohort)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
     return node.isObject()
       && node.hasNonNull("type")
       && node.path("type").isTextual()
       && node.path("type").textValue().equals("cohort")
-      && cohortOpt.isPresent()
+      && cohort != null
       && node.hasNonNull("target")
       && node.path("target").isTextual()
-      && node.path("target").textValue().equals(cohortOpt.get());
+      && node.path("target").textValue().equals(cohort);
   }
 
   /**
@@ -96,14 +139,31 @@ public class ToggleJsonNode {
    *         {@link MissingNode}.
    */
   public static JsonNode findByCohort(JsonNode node, Optional<String> cohortOpt) {
-    if (node.isObject() && ToggleJsonNode.matchesCohort(node, cohortOpt)) {
+    return findByNullableCohort(node, cohortOpt.orElse(null));
+  }
+
+  /**
+   * Traverses the argument {@link JsonNode} to find any contained
+   * {@code JsonNode JsonNodes} which match the argument cohort, if
+   * non-null. Equivalent to {@link #findByCohort}, without wrapping
+   * the cohort in an {@link Optional}.
+   *
+   * @param node A {@code JsonNode} to traverse in search of cohort
+   *        information.
+   * @param cohort A cohort string to match against the argument
+   *        {@code JsonNode}, or {@code null}.
+   * @return A {@code JsonNode} matching the specified cohort, or else
+   *         {@link MissingNode}.
+   */
+  public static JsonNode findByNullableCohort(JsonNode node, String cohort) {
+    if (node.isObject() && ToggleJsonNode.matchesNullableCohort(node, cohort)) {
       return node;
     } else if (node.isArray()) {
       final Iterator<JsonNode> iterator = node.elements();
 
       while (iterator.hasNext()) {
         final JsonNode containedNode = iterator.next();
-        if (containedNode.isObject() && ToggleJsonNode.matchesCohort(containedNode, cohortOpt)) {
+        if (containedNode.isObject() && ToggleJsonNode.matchesNullableCohort(containedNode, cohort)) {
           return containedNode;
         }
       }
@@ -113,4 +173,118 @@ public class ToggleJsonNode {
       return MissingNode.getInstance();
     }
   }
+
+  /**
+   * Compiles the argument toggle {@link JsonNode} into a {@link
+   * CompiledToggle}.
+   *
+   * The default weight and the weight of each cohort filter are
+   * extracted once, so that testing the resulting toggle does not
+   * traverse the JSON tree. As with {@link #findByCohort}, the first
+   * filter matching a given cohort takes precedence, whether it is a
+   * cohort or a membership filter. The targets of each membership
+   * filter are compiled into a {@link MembershipSet}, fronted by a
+   * Bloom filter if the filter's {@code bloom} field is {@code true}.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param node A {@code JsonNode} defining a toggle.
+   * @param keyField The name of the field holding the toggle key.
+   * @param valueField The name of the field holding toggle weights.
+   * @return A {@code CompiledToggle} equivalent to {@code node}, or
+   *         else {@code null} if {@code node} has no textual key.
+   */
+  public static <T> CompiledToggle<T> compile(JsonNode node, String keyField, String valueField) {
+    final JsonNode keyNode = node.path(keyField);
+
+    if (!keyNode.isTextual()) {
+      return null;
+    }
+
+    final Map<String, Integer> cohortValues = new LinkedHashMap<>();
+    final List<MembershipFilter> memberships = new ArrayList<>();
+    final JsonNode filterNode = node.path("filter");
+
+    if (filterNode.isArray()) {
+      final Iterator<JsonNode> iterator = filterNode.elements();
+
+      while (iterator.hasNext()) {
+        putFilter(cohortValues, memberships, iterator.next(), valueField);
+      }
+    } else {
+      putFilter(cohortValues, memberships, filterNode, valueField);
+    }
+
+    return new CompiledToggle<T>(
+      keyNode.textValue(),
+      node.path(valueField).intValue(),
+      cohortValues,
+      memberships
+    );
+  }
+
+  /**
+   * Compiles each toggle {@link JsonNode} produced by the argument
+   * {@link Iterator} into a {@link ToggleSnapshot}.
+   *
+   * Nodes which do not define a toggle are skipped.
+   *
+   * @param <T> The toggle input type. The toggle is applied to
+   *            instances of type {@code T}.
+   * @param iterator An {@code Iterator<JsonNode>} to traverse
+   * @param keyField The name of the field holding the toggle key.
+   * @param valueField The name of the field holding toggle weights.
+   * @return A {@code ToggleSnapshot} of the compiled toggles.
+   */
+  public static <T> ToggleSnapshot<T> compileAll(
+    Iterator<JsonNode> iterator,
+    String keyField,
+    String valueField
+  ) {
+    final List<CompiledToggle<T>> toggles = new ArrayList<>();
+
+    while (iterator.hasNext()) {
+      final CompiledToggle<T> toggle = compile(iterator.next(), keyField, valueField);
+
+      if (toggle != null) {
+        toggles.add(toggle);
+      }
+    }
+
+    return ToggleSnapshot.of(toggles);
+  }
+
+  private static void putFilter(
+    Map<String, Integer> cohortValues,
+    List<MembershipFilter> memberships,
+    JsonNode filterNode,
+    String valueField
+  ) {
+    if (filterNode.isObject()
+        && filterNode.path("type").isTextual()
+        && filterNode.path("type").textValue().equals("membership")
+        && filterNode.path("targets").isArray()) {
+      final List<String> targets = new ArrayList<>(filterNode.path("targets").size());
+
+      for (final JsonNode target : filterNode.path("targets")) {
+        if (target.isTextual() || target.isIntegralNumber()) {
+          targets.add(target.asText());
+        }
+      }
+
+      memberships.add(new MembershipFilter(
+        MembershipSet.of(targets, filterNode.path("bloom").booleanValue()),
+        filterNode.path(valueField).intValue(),
+        cohortValues.size()
+      ));
+    } else if (filterNode.isObject()
+        && filterNode.path("type").isTextual()
+        && filterNode.path("type").textValue().equals("cohort")
+        && filterNode.path("target").isTextual()) {
+      cohortValues.putIfAbsent(
+        filterNode.path("target").textValue(),
+        filterNode.path(valueField).intValue()
+      );
+    }
+  }
 }
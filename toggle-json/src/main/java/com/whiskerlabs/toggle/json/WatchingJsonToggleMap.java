@@ -0,0 +1,230 @@
+package com.whiskerlabs.toggle.json;
+
+import com.whiskerlabs.toggle.SnapshotToggleMap;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SnapshotToggleMap} backed by a toggle specification file
+ * which is reloaded whenever the file changes.
+ *
+ * Once {@link #start started}, the file is watched by a background
+ * thread using a {@link WatchService}. Changes are debounced: the file is only re-parsed
+ * once no further changes have been observed for the configured
+ * debounce interval, so that editors which write files
+ * non-atomically are not observed mid-write. Once parsed, the new
+ * snapshot replaces the previous one in a single reference swap, so
+ * toggle lookups never block on a reload.
+ *
+ * Only the file's parent directory is watched. The file may be a
+ * symbolic link, and replacing a link in that directory, including a
+ * link to a directory through which the file resolves, is observed as
+ * a change to the file; this is how e.g. Kubernetes atomically updates
+ * files projected from a ConfigMap. However, a change made in place to
+ * the target of a link, in some other directory, is not observed.
+ *
+ * If the file cannot be parsed, e.g. because it has been deleted or
+ * is malformed, the last successfully-loaded snapshot continues to
+ * be served.
+ *
+ * Each reload notifies subscribed listeners of the toggles it added,
+ * updated or removed, so that e.g. a {@code CachingToggleMap} may
+ * invalidate exactly the changed keys.
+ *
+ * Toggles returned by {@link #apply} reflect the snapshot current at
+ * the time of lookup. Users are advised to wrap a {@code
+ * WatchingJsonToggleMap} in a {@code CachingToggleMap}, or to look
+ * toggles up on each use, in order to observe reloads.
+ *
+ * @param <T> The toggle input type. The toggle is applied to
+ *            instances of type {@code T}.
+ */
+public class WatchingJsonToggleMap<T> extends SnapshotToggleMap<T> implements Closeable {
+  public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+
+  private final Path path;
+  private final Duration debounce;
+
+  // Guarded by this.
+  private WatchService watchService;
+  private boolean closed = false;
+
+  // The file the path resolved to when it was last checked, or null if
+  // it did not resolve. Set by start(), then only accessed by the
+  // watcher thread.
+  private Path target;
+
+  /**
+   * Constructs a {@code WatchingJsonToggleMap} with the default
+   * debounce interval.
+   *
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   */
+  public WatchingJsonToggleMap(Path path) {
+    this(path, DEFAULT_DEBOUNCE);
+  }
+
+  /**
+   * Constructs a {@code WatchingJsonToggleMap}.
+   *
+   * The toggle specification file is loaded synchronously before the
+   * constructor returns. If it cannot be parsed, the map starts out
+   * empty. The file is not watched until {@link #start} is called.
+   *
+   * @param path A {@code Path} to a toggle specification file on the
+   *        local file system.
+   * @param debounce The interval of inactivity to wait for after a
+   *        change to the file before reloading it.
+   */
+  public WatchingJsonToggleMap(Path path, Duration debounce) {
+    super(ToggleSnapshot.<T>empty());
+    this.path = path.toAbsolutePath();
+    this.debounce = debounce;
+
+    reload();
+  }
+
+  /**
+   * Starts watching the toggle specification file on a background
+   * daemon thread, until this map is closed. The file is reloaded once
+   * more after watching starts, so that changes made since it was last
+   * loaded are not missed.
+   *
+   * @return This toggle map.
+   * @throws IOException If the file's parent directory cannot be
+   *         watched.
+   * @throws IllegalStateException If this map has already been started
+   *         or closed.
+   */
+  public synchronized WatchingJsonToggleMap<T> start() throws IOException {
+    if (watchService != null || closed) {
+      throw new IllegalStateException("Already started or closed: " + path);
+    }
+
+    final WatchService watchService = FileSystems.getDefault().newWatchService();
+
+    try {
+      path.getParent().register(
+        watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE
+      );
+    } catch (IOException | RuntimeException err) {
+      watchService.close();
+      throw err;
+    }
+
+    this.watchService = watchService;
+    this.target = resolveTarget();
+    reload();
+
+    final Thread watcherThread =
+      new Thread(() -> watch(watchService), "toggle-watcher-" + path.getFileName());
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+
+    return this;
+  }
+
+  /**
+   * Re-parses the toggle specification file and, if successful,
+   * replaces the snapshot backing this toggle map.
+   *
+   * @return {@code true} if the file was parsed successfully.
+   */
+  public synchronized boolean reload() {
+    try {
+      publish(JsonToggleMap.<T>parseSnapshot(path));
+      return true;
+    } catch (IOException | RuntimeException err) {
+      // Keep serving the last good snapshot.
+      return false;
+    }
+  }
+
+  /**
+   * Stops watching the toggle specification file. The last loaded
+   * snapshot continues to be served.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+
+  private void watch(WatchService watchService) {
+    try {
+      while (true) {
+        if (!drainChanges(watchService.take())) {
+          continue;
+        }
+
+        // Wait for the file to settle before re-parsing it.
+        WatchKey watchKey;
+        while ((watchKey = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+          drainChanges(watchKey);
+        }
+
+        reload();
+      }
+    } catch (ClosedWatchServiceException | InterruptedException err) {
+      // The map was closed.
+    }
+  }
+
+  /**
+   * Drains the argument {@link WatchKey} and reports whether any of
+   * its events pertain to the watched file, either directly or by
+   * changing the file it resolves to.
+   */
+  private boolean drainChanges(WatchKey watchKey) {
+    boolean changed = false;
+    boolean other = false;
+
+    for (final WatchEvent<?> event : watchKey.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+          || path.getFileName().equals(event.context())) {
+        changed = true;
+      } else {
+        other = true;
+      }
+    }
+
+    watchKey.reset();
+
+    // Links are swapped without touching the watched file name, so
+    // check whether the file now resolves elsewhere.
+    if (changed || other) {
+      final Path resolved = resolveTarget();
+      changed |= !Objects.equals(resolved, target);
+      target = resolved;
+    }
+
+    return changed;
+  }
+
+  private Path resolveTarget() {
+    try {
+      return path.toRealPath();
+    } catch (IOException err) {
+      return null;
+    }
+  }
+}
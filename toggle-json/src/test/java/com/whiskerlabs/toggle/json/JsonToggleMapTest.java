@@ -1,5 +1,7 @@
 package com.whiskerlabs.toggle.json;
 
+import com.whiskerlabs.toggle.LongToggle;
+import com.whiskerlabs.toggle.SnapshotToggleMap;
 import org.junit.Test;
 
 import java.nio.file.Path;
@@ -21,6 +23,15 @@ public class JsonToggleMapTest {
   private static final String abKey = "/feature/ab_test";
   private static final String offKey = "/feature/always_off";
 
+  @Test
+  public void testProducesLongToggles() {
+    final JsonToggleMap<Long> toggleMap = JsonToggleMap.fromPath(YAML_FIXTURE);
+
+    assertThat(LongToggle.lookUp(toggleMap, adminKey).testLong(1L)).isFalse();
+    assertThat(LongToggle.lookUp(toggleMap, adminKey).testLong(1L, "admin")).isTrue();
+    assertThat(LongToggle.lookUp(toggleMap, offKey).testLong(1L)).isFalse();
+  }
+
   @Test
   public void testEmptyToggleMapOnNonExistentToggleSpec() {
     final JsonToggleMap<Integer> toggleMap = JsonToggleMap.fromPath(NONEXISTENT_FIXTURE);
@@ -80,4 +91,35 @@ public class JsonToggleMapTest {
     assertThatThrownBy(() -> toggleMap.apply("/feature/nonexistent").test(1))
       .isInstanceOf(NoSuchElementException.class);
   }
+
+  @Test
+  public void testSnapshotReturnsKeysYaml() {
+    final SnapshotToggleMap<Integer> toggleMap = JsonToggleMap.snapshotFromPath(YAML_FIXTURE);
+
+    assertThat(toggleMap.keySet())
+      .containsOnly(adminKey, dogfoodKey, incRolloutKey, abKey, offKey);
+  }
+
+  @Test
+  public void testSnapshotProducesTogglesYaml() {
+    final SnapshotToggleMap<Integer> toggleMap = JsonToggleMap.snapshotFromPath(YAML_FIXTURE);
+
+    assertThat(toggleMap.apply(adminKey).test(1)).isFalse();
+    assertThat(toggleMap.apply(adminKey).withCohort("admin").test(1)).isTrue();
+    assertThat(toggleMap.apply(dogfoodKey).withCohort("admin").test(1)).isFalse();
+    assertThat(toggleMap.apply(offKey).test(1)).isFalse();
+  }
+
+  @Test
+  public void testSnapshotThrowsOnNonexistentKeysJson() {
+    final SnapshotToggleMap<Integer> toggleMap = JsonToggleMap.snapshotFromPath(JSON_FIXTURE);
+    assertThatThrownBy(() -> toggleMap.apply("/feature/nonexistent"))
+      .isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  public void testEmptySnapshotOnInvalidToggleSpec() {
+    assertThat(JsonToggleMap.readSnapshot(INVALID_FIXTURE).size()).isZero();
+    assertThat(JsonToggleMap.readSnapshot(NONEXISTENT_FIXTURE).size()).isZero();
+  }
 }
@@ -0,0 +1,150 @@
+package com.whiskerlabs.toggle.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.whiskerlabs.toggle.CompiledToggle;
+import com.whiskerlabs.toggle.ToggleSnapshot;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StreamingToggleSpecLoaderTest {
+  private static final Path YAML_FIXTURE = ResourcePath.get("toggle_spec.yml");
+  private static final Path JSON_FIXTURE = ResourcePath.get("toggle_spec.json");
+  private static final Path INVALID_FIXTURE = ResourcePath.get("not_a_toggle_spec.html");
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testMatchesTreeCompilationJson() throws IOException {
+    assertEquivalentToTree(JSON_FIXTURE);
+  }
+
+  @Test
+  public void testMatchesTreeCompilationYaml() throws IOException {
+    assertEquivalentToTree(YAML_FIXTURE);
+  }
+
+  @Test
+  public void testCompilesFilterArraysAndSkipsUnusableElements() throws IOException {
+    final Path path = write("toggle_spec.json", "["
+      + "{\"key\": \"/feature/a\", \"value\": \"high\", \"extra\": {\"value\": 1},"
+      + " \"filter\": ["
+      + "  {\"type\": \"cohort\", \"target\": \"admin\", \"value\": 10000, \"note\": [1, 2]},"
+      + "  {\"type\": \"cohort\", \"target\": \"admin\", \"value\": 0},"
+      + "  {\"type\": \"region\", \"target\": \"eu\", \"value\": 10000},"
+      + "  \"cohort\","
+      + "  {\"type\": \"cohort\", \"target\": \"employee\", \"value\": 5000}"
+      + "]},"
+      + "{\"value\": 10000},"
+      + "{\"key\": 7, \"value\": 10000},"
+      + "[\"/feature/nested\"],"
+      + "{\"key\": \"/feature/b\", \"value\": 100}"
+      + "]");
+
+    final ToggleSnapshot<Integer> snapshot = StreamingToggleSpecLoader.load(path);
+
+    assertThat(snapshot.keySet()).containsOnly("/feature/a", "/feature/b");
+    assertThat(snapshot.get("/feature/a").value()).isEqualTo(0);
+    assertThat(snapshot.get("/feature/a").cohortValues())
+      .containsOnlyKeys("admin", "employee")
+      .containsEntry("admin", 10000)
+      .containsEntry("employee", 5000);
+    assertThat(snapshot.get("/feature/b").value()).isEqualTo(100);
+  }
+
+  @Test
+  public void testCompilesMembershipFilters() throws IOException {
+    final String spec = "["
+      + "{\"key\": \"/feature/allow_listed\", \"value\": 0, \"filter\": ["
+      + "  {\"type\": \"cohort\", \"target\": \"acct-1\", \"value\": 0},"
+      + "  {\"type\": \"membership\", \"targets\": [\"acct-1\", \"acct-2\", 3, {}],"
+      + "   \"value\": 10000, \"bloom\": true}"
+      + "]}"
+      + "]";
+    final Path path = write("toggle_spec.json", spec);
+
+    final CompiledToggle<Integer> streamed =
+      StreamingToggleSpecLoader.<Integer>load(path).get("/feature/allow_listed");
+    final CompiledToggle<Integer> tree = ToggleJsonNode.<Integer>compileAll(
+      ToggleJsonNode.fromString(spec).elements(),
+      "key",
+      "value"
+    ).get("/feature/allow_listed");
+
+    for (final CompiledToggle<Integer> toggle : new CompiledToggle[] {streamed, tree}) {
+      assertThat(toggle.memberships()).hasSize(1);
+      assertThat(toggle.memberships().get(0).members().size()).isEqualTo(3);
+      assertThat(toggle.memberships().get(0).members().bloomFilter()).isNotNull();
+      assertThat(toggle.valueFor("acct-1")).isEqualTo(0);
+      assertThat(toggle.valueFor("acct-2")).isEqualTo(10000);
+      assertThat(toggle.valueFor("3")).isEqualTo(10000);
+      assertThat(toggle.valueFor("acct-4")).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void testAppliesFirstMatchingFilterInSpecification() throws IOException {
+    final String spec = "["
+      + "{\"key\": \"/feature/allow_listed\", \"value\": 0, \"filter\": ["
+      + "  {\"type\": \"membership\", \"targets\": [\"acct-1\"], \"value\": 10000},"
+      + "  {\"type\": \"cohort\", \"target\": \"acct-1\", \"value\": 0}"
+      + "]}"
+      + "]";
+    final Path path = write("toggle_spec.json", spec);
+
+    final CompiledToggle<Integer> streamed =
+      StreamingToggleSpecLoader.<Integer>load(path).get("/feature/allow_listed");
+    final CompiledToggle<Integer> tree = ToggleJsonNode.<Integer>compileAll(
+      ToggleJsonNode.fromString(spec).elements(),
+      "key",
+      "value"
+    ).get("/feature/allow_listed");
+
+    for (final CompiledToggle<Integer> toggle : new CompiledToggle[] {streamed, tree}) {
+      assertThat(toggle.memberships().get(0).precedingCohortFilters()).isEqualTo(0);
+      assertThat(toggle.valueFor("acct-1")).isEqualTo(10000);
+    }
+  }
+
+  @Test
+  public void testThrowsOnInvalidToggleSpec() throws IOException {
+    assertThatThrownBy(() -> StreamingToggleSpecLoader.load(INVALID_FIXTURE))
+      .isInstanceOf(IOException.class);
+
+    final Path truncated = write("truncated.json", "[{\"key\": \"/feature/a\"}");
+    assertThatThrownBy(() -> StreamingToggleSpecLoader.load(truncated))
+      .isInstanceOf(IOException.class);
+  }
+
+  private void assertEquivalentToTree(Path path) throws IOException {
+    final JsonNode rootNode = JsonToggleMap.DEFAULT_OBJECT_READER.readTree(
+      JsonToggleMap.DEFAULT_YAML_FACTORY.createParser(path.toFile())
+    );
+    final ToggleSnapshot<Integer> expected =
+      ToggleJsonNode.compileAll(rootNode.elements(), "key", "value");
+    final ToggleSnapshot<Integer> actual = StreamingToggleSpecLoader.load(path);
+
+    assertThat(actual.keySet()).isEqualTo(expected.keySet());
+
+    for (final String key : expected.keySet()) {
+      final CompiledToggle<Integer> toggle = actual.get(key);
+      assertThat(toggle.value()).isEqualTo(expected.get(key).value());
+      assertThat(toggle.cohortValues()).isEqualTo(expected.get(key).cohortValues());
+    }
+  }
+
+  private Path write(String fileName, String contents) throws IOException {
+    final Path path = temporaryFolder.getRoot().toPath().resolve(fileName);
+    Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+}
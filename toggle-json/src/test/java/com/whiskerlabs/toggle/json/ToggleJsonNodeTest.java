@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.MissingNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.whiskerlabs.toggle.CompiledToggle;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -130,4 +131,56 @@ public class ToggleJsonNodeTest {
 
     assertThat(ToggleJsonNode.findByCohort(expected, Optional.of("na")).isMissingNode()).isTrue();
   }
+
+  @Test
+  public void returnsMissingNodeForNullCohort() {
+    final ObjectNode filterNode = JsonNodeFactory.instance.objectNode()
+      .put("type", "cohort")
+      .put("target", "employee")
+      .put("value", 10000);
+
+    final ArrayNode expected = JsonNodeFactory.instance.arrayNode()
+      .add(filterNode);
+
+    assertThat(ToggleJsonNode.matchesNullableCohort(filterNode, null)).isFalse();
+    assertThat(ToggleJsonNode.findByNullableCohort(expected, null).isMissingNode()).isTrue();
+    assertThat(ToggleJsonNode.findByNullableCohort(expected, "employee")).isEqualTo(filterNode);
+  }
+
+  @Test
+  public void compilesToggleNodeWithFilters() {
+    final ArrayNode filterNode = JsonNodeFactory.instance.arrayNode();
+    filterNode.addObject()
+      .put("type", "cohort")
+      .put("target", "employee")
+      .put("value", 10000);
+    filterNode.addObject()
+      .put("type", "cohort")
+      .put("target", "employee")
+      .put("value", 0);
+    filterNode.addObject()
+      .put("type", "random")
+      .put("value", 5000);
+
+    final ObjectNode toggleNode = JsonNodeFactory.instance.objectNode()
+      .put("key", "/feature/admin_widget")
+      .put("value", 100);
+    toggleNode.set("filter", filterNode);
+
+    final CompiledToggle<Integer> toggle = ToggleJsonNode.compile(toggleNode, "key", "value");
+    assertThat(toggle.key()).isEqualTo("/feature/admin_widget");
+    assertThat(toggle.value()).isEqualTo(100);
+    assertThat(toggle.cohortValues()).containsOnlyKeys("employee");
+    assertThat(toggle.valueFor("employee")).isEqualTo(10000);
+    assertThat(toggle.valueFor("na")).isEqualTo(100);
+    assertThat(toggle.valueFor(null)).isEqualTo(100);
+  }
+
+  @Test
+  public void returnsNullWhenCompilingNodeWithoutKey() {
+    final ObjectNode toggleNode = JsonNodeFactory.instance.objectNode()
+      .put("value", 100);
+
+    assertThat(ToggleJsonNode.<Integer>compile(toggleNode, "key", "value")).isNull();
+  }
 }
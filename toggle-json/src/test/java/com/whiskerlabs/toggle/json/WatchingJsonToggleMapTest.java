@@ -0,0 +1,129 @@
+package com.whiskerlabs.toggle.json;
+
+import com.whiskerlabs.toggle.ToggleChange;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WatchingJsonToggleMapTest {
+  private static final Duration DEBOUNCE = Duration.ofMillis(50);
+  private static final long TIMEOUT_MILLIS = 10000;
+
+  private static final String onKey = "/feature/always_on";
+  private static final String offKey = "/feature/always_off";
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testLoadsToggleSpecOnConstruction() throws IOException {
+    final Path path = write("toggle_spec.json", "[{\"key\": \"" + onKey + "\", \"value\": 10000}]");
+
+    try (final WatchingJsonToggleMap<Integer> toggleMap = new WatchingJsonToggleMap<>(path, DEBOUNCE)) {
+      assertThat(toggleMap.keySet()).containsOnly(onKey);
+      assertThat(toggleMap.apply(onKey).test(1)).isTrue();
+    }
+  }
+
+  @Test
+  public void testReloadsToggleSpecOnChange() throws Exception {
+    final Path path = write("toggle_spec.json", "[{\"key\": \"" + onKey + "\", \"value\": 10000}]");
+
+    try (final WatchingJsonToggleMap<Integer> toggleMap = new WatchingJsonToggleMap<Integer>(path, DEBOUNCE).start()) {
+      write("toggle_spec.json", "[{\"key\": \"" + offKey + "\", \"value\": 0}]");
+      awaitKeySet(toggleMap::keySet, offKey);
+      assertThat(toggleMap.keySet()).containsOnly(offKey);
+    }
+  }
+
+  @Test
+  public void testKeepsLastGoodSnapshotOnMalformedToggleSpec() throws Exception {
+    final Path path = write("toggle_spec.json", "[{\"key\": \"" + onKey + "\", \"value\": 10000}]");
+
+    try (final WatchingJsonToggleMap<Integer> toggleMap = new WatchingJsonToggleMap<Integer>(path, DEBOUNCE).start()) {
+      write("toggle_spec.json", "[{\"key\": \"" + offKey);
+      assertThat(toggleMap.reload()).isFalse();
+      assertThat(toggleMap.keySet()).containsOnly(onKey);
+
+      write("toggle_spec.json", "[{\"key\": \"" + offKey + "\", \"value\": 0}]");
+      awaitKeySet(toggleMap::keySet, offKey);
+      assertThat(toggleMap.keySet()).containsOnly(offKey);
+    }
+  }
+
+  @Test
+  public void testNotifiesListenersOfChangedKeysOnReload() throws Exception {
+    final Path path = write("toggle_spec.json", "[{\"key\": \"" + onKey + "\", \"value\": 10000}]");
+
+    try (final WatchingJsonToggleMap<Integer> toggleMap = new WatchingJsonToggleMap<Integer>(path, DEBOUNCE).start()) {
+      final List<ToggleChange<String>> changes = new CopyOnWriteArrayList<>();
+      toggleMap.subscribe(changes::addAll);
+
+      write("toggle_spec.json", "[{\"key\": \"" + offKey + "\", \"value\": 0}]");
+      awaitKeySet(() -> changes.stream().map(ToggleChange::key).collect(Collectors.toSet()), offKey);
+
+      assertThat(changes).containsOnly(ToggleChange.added(offKey), ToggleChange.removed(onKey));
+    }
+  }
+
+  @Test
+  public void testReloadsToggleSpecOnSymbolicLinkSwap() throws Exception {
+    // Lay files out the way Kubernetes projects a ConfigMap.
+    final Path root = temporaryFolder.getRoot().toPath();
+    write("..v1/toggle_spec.json", "[{\"key\": \"" + onKey + "\", \"value\": 10000}]");
+    write("..v2/toggle_spec.json", "[{\"key\": \"" + offKey + "\", \"value\": 0}]");
+    Files.createSymbolicLink(root.resolve("..data"), Paths.get("..v1"));
+    final Path path = Files.createSymbolicLink(
+      root.resolve("toggle_spec.json"),
+      Paths.get("..data/toggle_spec.json")
+    );
+
+    try (final WatchingJsonToggleMap<Integer> toggleMap = new WatchingJsonToggleMap<Integer>(path, DEBOUNCE).start()) {
+      assertThat(toggleMap.keySet()).containsOnly(onKey);
+
+      Files.createSymbolicLink(root.resolve("..data_tmp"), Paths.get("..v2"));
+      Files.move(root.resolve("..data_tmp"), root.resolve("..data"), StandardCopyOption.ATOMIC_MOVE);
+      awaitKeySet(toggleMap::keySet, offKey);
+      assertThat(toggleMap.keySet()).containsOnly(offKey);
+    }
+  }
+
+  @Test
+  public void testStartsOnlyOnce() throws IOException {
+    final Path path = write("toggle_spec.json", "[{\"key\": \"" + onKey + "\", \"value\": 10000}]");
+
+    try (final WatchingJsonToggleMap<Integer> toggleMap = new WatchingJsonToggleMap<Integer>(path, DEBOUNCE).start()) {
+      assertThatThrownBy(toggleMap::start).isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  private Path write(String name, String contents) throws IOException {
+    final Path path = temporaryFolder.getRoot().toPath().resolve(name);
+    Files.createDirectories(path.getParent());
+    return Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void awaitKeySet(Supplier<Set<String>> keySet, String key) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+    while (!keySet.get().contains(key) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+}